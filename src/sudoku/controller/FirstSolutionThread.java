@@ -1,16 +1,18 @@
 package sudoku.controller;
 
 import sudoku.model.Board;
-import sudoku.model.SudokuBoardSolver;
+import sudoku.model.SolveStatus;
+import sudoku.model.SudokuSolver;
 
 /**
- * Thread to calculate first solution for given board.
+ * Job to calculate first solution for given board, run by a
+ * {@link SolverExecutor}.
  */
 public class FirstSolutionThread extends ThreadObservable implements Runnable {
     /**
      * Solver for sudoku board.
      */
-    private SudokuBoardSolver solverFirst;
+    private SudokuSolver solverFirst;
 
     /**
      * Sudoku board to solve.
@@ -23,26 +25,43 @@ public class FirstSolutionThread extends ThreadObservable implements Runnable {
     private Board firstSolution;
 
     /**
-     * Initialize thread, that calculates first solution for given board.
+     * Outcome of the search, as reported by the solver.
+     */
+    private volatile SolveStatus status;
+
+    /**
+     * Initialize job, that calculates first solution for given board.
      *
      * @param solverFirst Solver for sudoku board.
      * @param sudokuBoard Sudoku board to solve.
      */
-    public FirstSolutionThread(SudokuBoardSolver solverFirst,
+    public FirstSolutionThread(SudokuSolver solverFirst,
                                Board sudokuBoard) {
         this.solverFirst = solverFirst;
         this.sudokuBoard = sudokuBoard;
     }
 
     /**
-     * Executes thread.
+     * Executes job.
      */
     @Override
     public void run() {
         try {
             firstSolution = solverFirst.findFirstSolution(sudokuBoard);
+            status = solverFirst.getLastStatus();
         } finally {
             notifyThreadObservers(firstSolution, this);
         }
     }
+
+    /**
+     * Get outcome of the search. A missing solution only proves the board
+     * unsolvable, if the outcome is {@link SolveStatus#NO_SOLUTION}.
+     *
+     * @return Outcome as reported by the solver, or {@code null} if the
+     *         solver reports no outcomes or the job did not finish.
+     */
+    public SolveStatus getStatus() {
+        return status;
+    }
 }
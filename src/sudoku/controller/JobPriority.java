@@ -0,0 +1,25 @@
+package sudoku.controller;
+
+/**
+ * Priorities of the jobs of a {@link SolverExecutor}, highest first.
+ */
+public enum JobPriority {
+
+    /**
+     * Solve for a suggested value, the user waits for a single cell.
+     */
+    HINT,
+
+    /**
+     * Solve of the whole board, requested by the user.
+     */
+    SOLVE,
+
+    /**
+     * Solve in advance of a request, see {@link SpeculativeSolver}. Running
+     * jobs of this priority give way to requested ones, when all threads are
+     * busy.
+     */
+    SPECULATIVE
+
+}
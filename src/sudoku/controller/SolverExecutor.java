@@ -0,0 +1,208 @@
+package sudoku.controller;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor running all solving jobs of the application on a fixed set of
+ * daemon threads, instead of starting a thread per request.
+ *
+ * Waiting jobs are queued by {@link JobPriority}, in submission order within
+ * a priority, and the queue is bounded. A requested job finding all threads
+ * busy preempts a running {@link JobPriority#SPECULATIVE} job. Jobs are
+ * cancelled by interrupting their thread, the solvers check the interrupt
+ * flag and stop cooperatively.
+ */
+public class SolverExecutor {
+
+    /**
+     * Default number of threads.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * Default maximum number of waiting jobs.
+     */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Number of threads.
+     */
+    private final int threads;
+
+    /**
+     * Maximum number of waiting jobs.
+     */
+    private final int capacity;
+
+    /**
+     * Executor running the jobs, ordered by {@link Job}.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Jobs currently running.
+     */
+    private final Set<Job<?>> running;
+
+    /**
+     * Number of submitted jobs, to keep submission order.
+     */
+    private final AtomicLong submitted;
+
+    /**
+     * Construct executor with {@value #DEFAULT_THREADS} threads and up to
+     * {@value #DEFAULT_CAPACITY} waiting jobs.
+     */
+    public SolverExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct executor.
+     *
+     * @param threads  Number of threads, at least 1.
+     * @param capacity Maximum number of waiting jobs, at least 1.
+     */
+    public SolverExecutor(int threads, int capacity) {
+        assert (threads >= 1 && capacity >= 1);
+
+        this.threads = threads;
+        this.capacity = capacity;
+        running = new LinkedHashSet<>();
+        submitted = new AtomicLong();
+        executor = new ThreadPoolExecutor(threads, threads, 0,
+                TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "solver");
+                    thread.setDaemon(true);
+                    return thread;
+                }) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable runnable) {
+                synchronized (SolverExecutor.this) {
+                    running.add((Job<?>) runnable);
+                }
+            }
+
+            @Override
+            protected void afterExecute(Runnable runnable,
+                                        Throwable throwable) {
+                synchronized (SolverExecutor.this) {
+                    running.remove(runnable);
+                }
+            }
+        };
+    }
+
+    /**
+     * Submit a job.
+     *
+     * @param priority Priority of the job.
+     * @param task     The job.
+     * @return Handle to cancel the job, or {@code null} if the queue is full
+     *         or the executor is shut down.
+     */
+    public Future<?> submit(JobPriority priority, Runnable task) {
+        return submit(priority, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Submit a job.
+     *
+     * @param priority Priority of the job.
+     * @param task     The job.
+     * @param <T>      Type of the result.
+     * @return Handle to get the result or to cancel the job, or {@code null}
+     *         if the queue is full or the executor is shut down.
+     */
+    public synchronized <T> Future<T> submit(JobPriority priority,
+                                             Callable<T> task) {
+        if (executor.getQueue().size() >= capacity) {
+            // Cancelled jobs stay queued until a thread takes them.
+            executor.purge();
+        }
+
+        if (executor.isShutdown() || executor.getQueue().size() >= capacity) {
+            return null;
+        }
+
+        if (priority != JobPriority.SPECULATIVE && running.size() == threads) {
+            preemptSpeculative();
+        }
+        Job<T> job = new Job<>(task, priority, submitted.getAndIncrement());
+        executor.execute(job);
+        return job;
+    }
+
+    /**
+     * Cancel the running and waiting jobs and stop the threads.
+     */
+    public synchronized void shutdown() {
+        executor.shutdownNow();
+        running.clear();
+    }
+
+    /**
+     * Cancel one running speculative job, to free its thread.
+     */
+    private void preemptSpeculative() {
+        for (Job<?> job : running) {
+            if (job.priority == JobPriority.SPECULATIVE) {
+                job.cancel(true);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Job of the executor, ordered by priority and submission.
+     *
+     * @param <T> Type of the result.
+     */
+    private static final class Job<T> extends FutureTask<T>
+            implements Comparable<Job<?>> {
+
+        /**
+         * Priority of the job.
+         */
+        private final JobPriority priority;
+
+        /**
+         * Position in submission order.
+         */
+        private final long sequence;
+
+        /**
+         * Construct job.
+         *
+         * @param task     The job.
+         * @param priority Priority of the job.
+         * @param sequence Position in submission order.
+         */
+        private Job(Callable<T> task, JobPriority priority, long sequence) {
+            super(task);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int compareTo(Job<?> other) {
+            int order = priority.compareTo(other.priority);
+            return order != 0 ? order : Long.compare(sequence, other.sequence);
+        }
+    }
+}
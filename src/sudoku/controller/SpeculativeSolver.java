@@ -0,0 +1,169 @@
+package sudoku.controller;
+
+import sudoku.model.Board;
+import sudoku.model.BoardKey;
+import sudoku.model.InvalidSudokuException;
+import sudoku.model.SudokuModel;
+import sudoku.model.SudokuSolver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background service, which solves the current board while the user is
+ * thinking. Solutions are cached by a snapshot of the board, see
+ * {@link BoardKey}, thus Solve and Suggest are served without solving again.
+ *
+ * Every change of the board submits a new job and cancels the stale one by
+ * interrupting its thread. If the last solution still agrees with every set
+ * cell after a change, it is a solution of the changed board as well, and no
+ * job is started at all. Jobs run on a shared {@link SolverExecutor} with
+ * {@link JobPriority#SPECULATIVE} priority, thus they give way to requested
+ * solves.
+ */
+public class SpeculativeSolver {
+
+    /**
+     * Maximum number of cached solutions.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * Factory of the solvers running the jobs.
+     */
+    private final Supplier<SudokuSolver> solvers;
+
+    /**
+     * Receiver of every solution found, called on the background thread.
+     */
+    private final Consumer<Board> solved;
+
+    /**
+     * Executor running the jobs.
+     */
+    private final SolverExecutor executor;
+
+    /**
+     * Solutions by board snapshot, least recently used first.
+     */
+    private final Map<BoardKey, Board> cache;
+
+    /**
+     * Last solution found, or {@code null}.
+     */
+    private Board lastSolution;
+
+    /**
+     * Running or queued job, or {@code null}.
+     */
+    private Future<?> job;
+
+    /**
+     * Construct idle service.
+     *
+     * @param executor Executor running the jobs.
+     * @param solvers  Factory of the solvers running the jobs.
+     * @param solved   Receiver of every solution found, called on the
+     *                 background thread.
+     */
+    public SpeculativeSolver(SolverExecutor executor,
+                             Supplier<SudokuSolver> solvers,
+                             Consumer<Board> solved) {
+        this.executor = executor;
+        this.solvers = solvers;
+        this.solved = solved;
+        cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<BoardKey, Board> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Start solving the current board of a model in the background, unless
+     * a solution of it is known already. A job still running for an earlier
+     * board is cancelled.
+     *
+     * @param model Model holding the board. Only read on the calling thread.
+     */
+    public synchronized void submit(SudokuModel model) {
+        BoardKey key = BoardKey.of(model);
+
+        if (findSolution(key) != null) {
+            return;
+        }
+        cancel();
+
+        if (model.checkAllCellsSet()) {
+            return;
+        }
+        Board board;
+
+        try {
+            board = model.convertToSudokuBoard();
+        } catch (InvalidSudokuException e) {
+            return;
+        }
+        job = executor.submit(JobPriority.SPECULATIVE, () -> {
+            Board solution = solvers.get().findFirstSolution(board);
+
+            if (solution != null && !Thread.currentThread().isInterrupted()) {
+                store(key, solution);
+                solved.accept(solution);
+            }
+        });
+    }
+
+    /**
+     * Get a known solution of the current board of a model.
+     *
+     * @param model Model holding the board.
+     * @return A solution, or {@code null} if none is known yet.
+     */
+    public synchronized Board getSolution(SudokuModel model) {
+        return findSolution(BoardKey.of(model));
+    }
+
+    /**
+     * Cancel the running job, if any.
+     */
+    public synchronized void cancel() {
+        if (job != null) {
+            job.cancel(true);
+            job = null;
+        }
+    }
+
+    /**
+     * Look up a solution for a board snapshot.
+     *
+     * @param key Snapshot of the board.
+     * @return A solution, or {@code null} if none is known.
+     */
+    private Board findSolution(BoardKey key) {
+        Board solution = cache.get(key);
+
+        if (solution == null && lastSolution != null
+                && key.agreesWith(lastSolution)) {
+            solution = lastSolution;
+            cache.put(key, solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Store a solution found by a job.
+     *
+     * @param key      Snapshot of the solved board.
+     * @param solution Its solution.
+     */
+    private synchronized void store(BoardKey key, Board solution) {
+        cache.put(key, solution);
+        lastSolution = solution;
+    }
+}
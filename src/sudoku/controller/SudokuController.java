@@ -2,38 +2,48 @@ package sudoku.controller;
 
 import sudoku.model.SudokuModel;
 import sudoku.model.Board;
+import sudoku.model.BoardKey;
 import sudoku.model.InvalidSudokuException;
 import sudoku.model.SudokuFile;
-import sudoku.model.SudokuBoardSolver;
-import sudoku.model.EnforceCell;
-import sudoku.model.EnforceNumber;
+import sudoku.model.AutoSolver;
+import sudoku.model.Hint;
+import sudoku.model.HintFinder;
+import sudoku.model.SolveStatus;
 import sudoku.model.Structure;
+import sudoku.model.UndoJournal;
+import sudoku.view.BoardCanvas;
+import sudoku.view.SolverProgressPanel;
 import sudoku.view.SudokuFrame;
 import sudoku.view.SudokuView;
 
-import javax.swing.JLabel;
-import javax.swing.JPanel;
+import javax.swing.AbstractButton;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.Frame;
-import java.awt.Color;
-import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.File;
 import java.io.IOException;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Future;
 
 /**
  * Controller class for Sudoku-GUI application.
  */
 public class SudokuController {
 
+    /**
+     * System property naming the engine selection thresholds file.
+     */
+    public static final String ENGINE_CONFIG_PROPERTY = "sudoku.engines";
+
     /**
      * Board model instance.
      */
@@ -50,29 +60,46 @@ public class SudokuController {
     private SudokuFrame sudokuFrame;
 
     /**
-     * Last label that has been clicked on view.
+     * Row and column of the last cell that has been clicked on view, to
+     * insert or remove a value.
+     */
+    private int[] currentCell;
+
+    /**
+     * Journal of the cell changes, to undo and redo them.
+     */
+    private UndoJournal undoJournal;
+
+    /**
+     * Executor running all solving jobs.
+     */
+    private SolverExecutor solverExecutor;
+
+    /**
+     * Requested solving jobs, running or queued, by the job calculating the
+     * solution. Only accessed on the Event Dispatch Thread.
      */
-    private JLabel currentLabel;
+    private Map<ThreadObservable, SolverJob> solverJobs;
 
     /**
-     * Last label that has been clicked on view, to insert or remove a value.
+     * Finder of suggested values, caching the last solution.
      */
-    private JLabel spotlightLabel;
+    private HintFinder hintFinder;
 
     /**
-     * Stack holds previous board states.
+     * Background solver of the current board.
      */
-    private Deque<SudokuModel> undoStack;
+    private SpeculativeSolver speculativeSolver;
 
     /**
-     * Thread to calculate solution for board.
+     * States if the candidates of the empty cells are shown.
      */
-    private Thread firstSolutionThread;
+    private boolean showCandidates;
 
     /**
-     * States if thread has been stopped by force.
+     * Engine selection thresholds, passed to every solver.
      */
-    private boolean threadStopped;
+    private Properties engineThresholds;
 
     /**
      * Add Listener to view, either only the menu-bar or the menu-bar and the
@@ -84,13 +111,16 @@ public class SudokuController {
         sudokuView.addExitListener(new ExitListener());
         sudokuView.addOpenListener(new OpenListener());
         sudokuView.addUndoListener(new UndoListener());
+        sudokuView.addRedoListener(new RedoListener());
         sudokuView.addSugValueListener(new SuggestValueListener());
         sudokuView.addSolveListener(new SolveListener());
+        sudokuView.addCandidatesListener(new CandidatesListener());
 
         if (!onlyMenu) {
             sudokuView.addLableListener(new LableListener());
             sudokuView.addInsertListener(new InsertCellListener());
             sudokuView.addRemoveListener(new RemoveCellListener());
+            sudokuView.addCancelListener(new CancelListener());
         }
     }
 
@@ -98,84 +128,106 @@ public class SudokuController {
      * Construct controller to control model and view.
      */
     public SudokuController() {
-        undoStack = new ArrayDeque<>();
+        undoJournal = new UndoJournal();
         gameBoard = new SudokuModel(1, 1);
         sudokuFrame = new SudokuFrame();
         sudokuView = sudokuFrame.setupNewBoard(null);
         addListenerToView(true);
-        threadStopped = false;
+        solverExecutor = new SolverExecutor();
+        solverJobs = new LinkedHashMap<>();
+        engineThresholds = loadEngineThresholds();
+        hintFinder = new HintFinder(getSudokuSolver());
+        speculativeSolver = new SpeculativeSolver(solverExecutor,
+                this::getSudokuSolver, hintFinder::cacheSolution);
     }
 
     /**
-     * Push current state of board to stack.
+     * Set a cell of the game-board and record the change to undo it.
+     *
+     * @param row    Row index of cell.
+     * @param col    Column index of cell.
+     * @param number Value to set cell to.
      */
-    private void pushCurrentBoardState() {
-        SudokuModel currentBoardState = gameBoard.clone();
-        undoStack.push(currentBoardState);
+    private void setCellUndoable(int row, int col, int number) {
+        undoJournal.record(row, col, gameBoard.getNumbers(),
+                gameBoard.getCell(row, col), number);
+        gameBoard.setCell(row, col, number);
     }
 
     /**
-     * Stop all running threads.
+     * Stop all requested solving jobs. Running jobs are interrupted and stop
+     * cooperatively, queued ones never start, their results are ignored.
      */
-    @SuppressWarnings("deprecation")
     private void stopThreads() {
-        if (firstSolutionThread != null) {
-            firstSolutionThread.stop();
-            firstSolutionThread = null;
-            threadStopped = true;
+        if (!solverJobs.isEmpty()) {
+            for (SolverJob job : solverJobs.values()) {
+                job.future.cancel(true);
+            }
+            solverJobs.clear();
+            hideProgress();
         }
     }
 
     /**
-     * Apply view change by user-input to game-board.
-     */
-    private void updateGameboard() {
-        List<JLabel[][]> subBoxLabels = sudokuView.getSubBoxLabels();
-        JPanel[][] subBoxPanels = sudokuView.getSubBoxPanels();
-        int boxRows = gameBoard.getBoxRows();
-        int boxCols = gameBoard.getBoxColumns();
-        int boxMajor = 0;
-
-        for (JPanel[] subBoxPanel : subBoxPanels) {
-            for (int j = 0; j < subBoxPanel.length; j++) {
-                int boxMinor = 0;
-                JLabel[][] currentL2D = subBoxLabels.get(boxMajor);
-
-                for (JLabel[] jLabels : currentL2D) {
-                    for (JLabel jLabel : jLabels) {
-                        int row = (boxMajor / boxRows) * boxRows
-                                + (boxMinor / boxCols);
-                        int col = (boxMajor % boxRows) * boxCols
-                                + (boxMinor % boxCols);
-
-                        if (!String.valueOf(gameBoard.getCell(row,
-                                col)).equals(jLabel.getText())) {
-                            if (!((String.valueOf(gameBoard.getCell(row,
-                                    col)).equals(String.valueOf(
-                                    Board.UNSET_CELL)))
-                                    && (jLabel.getText().equals("")))) {
-
-                                try {
-                                    int cellValueView;
-
-                                    if (jLabel.getText().equals("")) {
-                                        cellValueView = Board.UNSET_CELL;
-                                    } else {
-                                        cellValueView = Integer.parseInt(
-                                                jLabel.getText());
-                                    }
-                                    gameBoard.setCell(row, col, cellValueView);
-                                    return;
-                                } catch (NumberFormatException e) {
-                                    e.printStackTrace();
-                                }
-                            }
-                        }
-                        boxMinor++;
-                    }
-                }
-                boxMajor++;
+     * Queue a job calculating the first solution of the current board,
+     * showing its progress on the view apart from the other jobs.
+     *
+     * @param priority    Priority of the job.
+     * @param name        Name of the job, shown with its progress.
+     * @param sudokuBoard The current board, converted.
+     * @param observer    Receiver of the solution.
+     */
+    private void submitFirstSolutionJob(JobPriority priority, String name,
+                                        Board sudokuBoard,
+                                        ThreadObserver observer) {
+        AutoSolver solverFirst = getSudokuSolver();
+        SolverProgressPanel progressPanel = sudokuView.getProgressPanel();
+        FirstSolutionThread fstSolThread
+                = new FirstSolutionThread(solverFirst, sudokuBoard);
+        fstSolThread.addThreadObserver(observer);
+
+        if (progressPanel != null) {
+            solverFirst.setProgressListener(
+                    progressPanel.startJob(fstSolThread, name));
+        }
+        Future<?> future = solverExecutor.submit(priority, fstSolThread);
+
+        if (future == null) {
+            if (progressPanel != null) {
+                progressPanel.stopJob(fstSolThread);
             }
+            displayBusy();
+            return;
+        }
+        solverJobs.put(fstSolThread,
+                new SolverJob(future, BoardKey.of(gameBoard)));
+    }
+
+    /**
+     * Forget a finished solving job.
+     *
+     * @param obj The job calculating the solution.
+     * @return The job, or {@code null} if it was stopped.
+     */
+    private SolverJob finishJob(ThreadObservable obj) {
+        SolverJob job = solverJobs.remove(obj);
+        obj.removeAllObservers();
+        SolverProgressPanel progressPanel = sudokuView.getProgressPanel();
+
+        if (job != null && progressPanel != null) {
+            progressPanel.stopJob(obj);
+        }
+        return job;
+    }
+
+    /**
+     * Hide the progress of the finished or stopped jobs.
+     */
+    private void hideProgress() {
+        SolverProgressPanel progressPanel = sudokuView.getProgressPanel();
+
+        if (progressPanel != null) {
+            progressPanel.stop();
         }
     }
 
@@ -189,6 +241,39 @@ public class SudokuController {
                 "Error!", JOptionPane.ERROR_MESSAGE);
     }
 
+    /**
+     * Display dialog for a solving job, which found no solution. The board is
+     * only reported unsolvable if the search finished, a search stopped at a
+     * limit of its solver or a job that failed proves nothing.
+     *
+     * @param obj The finished job.
+     */
+    private void displayNoSolution(ThreadObservable obj) {
+        SolveStatus status = ((FirstSolutionThread) obj).getStatus();
+
+        if (status == SolveStatus.NO_SOLUTION) {
+            displayUnsolvable();
+        } else if (status == null) {
+            JOptionPane.showMessageDialog(null,
+                    "Solving failed, the Sudoku may still be solvable.",
+                    "Error!", JOptionPane.ERROR_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(null,
+                    "Search stopped before finishing, the Sudoku may still"
+                            + " be solvable.",
+                    "Error!", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Display dialog, saying that too many solves are waiting already.
+     */
+    private void displayBusy() {
+        JOptionPane.showMessageDialog(null,
+                "Too many solves waiting, try again later.",
+                "Busy", JOptionPane.WARNING_MESSAGE);
+    }
+
     /**
      * Display dialog, saying that the currently displayed board is solvable.
      */
@@ -199,25 +284,59 @@ public class SudokuController {
     }
 
     /**
-     * Apply changes to spotlight and last clicked label.
+     * Hide popup-menu and remove the highlight of the last clicked cell.
      */
     private void applyPopupLabelClickedChanges() {
         sudokuView.getPopupMenu().setVisible(false);
-        spotlightLabel.setFont(new Font("Serif", Font.PLAIN, 21));
-        spotlightLabel.setBackground(Color.WHITE);
-        currentLabel.setFont(new Font("Serif", Font.PLAIN, 21));
+        sudokuView.getBoardCanvas().clearSelection();
     }
 
     /**
-     * Get Sudoku-board solver, filled with enforce number and enforce cell
-     * strategy.
+     * Load the engine selection thresholds from the file named by system
+     * property {@value #ENGINE_CONFIG_PROPERTY}, if set. Keys missing in the
+     * file keep their default. If the file cannot be read, the default
+     * thresholds are used and the error is displayed.
      *
-     * @return Sudoku-board solver.
+     * @return Thresholds by key.
      */
-    private SudokuBoardSolver getSudokuBoardSolver() {
-        SudokuBoardSolver solver = new SudokuBoardSolver();
-        solver.addSaturator(new EnforceCell());
-        solver.addSaturator(new EnforceNumber());
+    private Properties loadEngineThresholds() {
+        AutoSolver solver = new AutoSolver();
+        String config = System.getProperty(ENGINE_CONFIG_PROPERTY);
+
+        if (config != null) {
+            try {
+                solver.loadThresholds(new File(config));
+            } catch (IOException | NumberFormatException e) {
+                displayEngineConfigError(config, e);
+                return AutoSolver.getDefaultThresholds();
+            }
+        }
+        return solver.getThresholds();
+    }
+
+    /**
+     * Display dialog, saying that the engine selection thresholds could not
+     * be loaded.
+     *
+     * @param config Name of the thresholds file.
+     * @param e      The error.
+     */
+    private void displayEngineConfigError(String config, Exception e) {
+        JOptionPane.showMessageDialog(null,
+                "Could not load engine thresholds from " + config + " ("
+                        + e.getMessage() + "), using the defaults.",
+                "Error!", JOptionPane.ERROR_MESSAGE);
+    }
+
+    /**
+     * Get Sudoku solver, which picks the engine for each board by the engine
+     * selection thresholds loaded on construction.
+     *
+     * @return Sudoku solver.
+     */
+    private AutoSolver getSudokuSolver() {
+        AutoSolver solver = new AutoSolver();
+        solver.setThresholds(engineThresholds);
         return solver;
     }
 
@@ -233,18 +352,17 @@ public class SudokuController {
          */
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
-            if (firstSolutionThread == null) {
-                currentLabel.setText(actionEvent.getActionCommand());
+            if (currentCell != null) {
                 applyPopupLabelClickedChanges();
-                pushCurrentBoardState();
-                updateGameboard();
+                setCellUndoable(currentCell[0], currentCell[1],
+                        Integer.parseInt(actionEvent.getActionCommand()));
 
+                // Conflicts are tracked by the model on every change.
                 if (gameBoard.checkAllCellsSet()) {
-                    try {
-                        Board sudokuBoard = gameBoard.convertToSudokuBoard();
-                        displaySolvable();
-                    } catch (InvalidSudokuException e) {
+                    if (gameBoard.hasConflicts()) {
                         displayUnsolvable();
+                    } else {
+                        displaySolvable();
                     }
                 }
             }
@@ -262,11 +380,45 @@ public class SudokuController {
          */
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
-            if (firstSolutionThread == null) {
-                currentLabel.setText("");
+            if (currentCell != null) {
                 applyPopupLabelClickedChanges();
-                pushCurrentBoardState();
-                updateGameboard();
+                setCellUndoable(currentCell[0], currentCell[1],
+                        Board.UNSET_CELL);
+            }
+        }
+    }
+
+    /**
+     * Listener class, to handle cancel button interaction in view.
+     */
+    class CancelListener implements ActionListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void actionPerformed(ActionEvent actionEvent) {
+            stopThreads();
+        }
+    }
+
+    /**
+     * Listener class, to handle candidates menu-bar-item interaction in view
+     * and keystrokes.
+     */
+    class CandidatesListener implements ActionListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void actionPerformed(ActionEvent actionEvent) {
+            showCandidates = ((AbstractButton) actionEvent.getSource())
+                    .isSelected();
+            BoardCanvas canvas = sudokuView.getBoardCanvas();
+
+            if (canvas != null) {
+                canvas.setShowCandidates(showCandidates);
             }
         }
     }
@@ -283,6 +435,8 @@ public class SudokuController {
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
             stopThreads();
+            speculativeSolver.cancel();
+            solverExecutor.shutdown();
 
             for (Frame frame : Frame.getFrames()) {
                 frame.dispose();
@@ -315,11 +469,18 @@ public class SudokuController {
                     SudokuModel updatedBoard = sudokuFile.getGameBoard();
 
                     if (updatedBoard != null) {
-                        updateGameBoard(updatedBoard);
                         gameBoard.removeAllObserver();
+                        gameBoard.replaceBoard(updatedBoard);
                         sudokuView = sudokuFrame.setupNewBoard(gameBoard);
+                        currentCell = null;
+                        sudokuView.getBoardCanvas().setShowCandidates(
+                                showCandidates);
+                        sudokuView.setCandidatesSelected(showCandidates);
                         addListenerToView(false);
-                        undoStack.clear();
+                        undoJournal.clear();
+                        gameBoard.addObserver(event ->
+                                speculativeSolver.submit(event.getModel()));
+                        speculativeSolver.submit(gameBoard);
                     }
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -329,44 +490,32 @@ public class SudokuController {
     }
 
     /**
-     * Apply new board settings to current model.
-     *
-     * @param updatedBoard Board to update to.
-     */
-    private void updateGameBoard(SudokuModel updatedBoard) {
-        gameBoard.setBoxRows(updatedBoard.getBoxRows());
-        gameBoard.setBoxCols(updatedBoard.getBoxCols());
-        gameBoard.setNumbers(updatedBoard.getNumbers());
-        gameBoard.setPresetCell(updatedBoard.getPresetCell());
-        gameBoard.setGameBoard(updatedBoard.getGameBoard());
+     * Listener class, to handle undo menu-bar-item interaction in view and
+     * keystrokes.
+     */
+    class UndoListener implements ActionListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void actionPerformed(ActionEvent actionEvent) {
+            undoJournal.undo(gameBoard);
+        }
     }
 
     /**
-     * Listener class, to handle undo menu-bar-item interaction in view and
+     * Listener class, to handle redo menu-bar-item interaction in view and
      * keystrokes.
      */
-    class UndoListener implements ActionListener {
+    class RedoListener implements ActionListener {
 
         /**
          * {@inheritDoc}
          */
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
-            if (!undoStack.isEmpty() && firstSolutionThread == null) {
-                SudokuModel prevState = undoStack.pop();
-                int boardLength = gameBoard.getNumbers();
-
-                for (int row = 0; row < boardLength; row++) {
-                    for (int col = 0; col < boardLength; col++) {
-                        int currentStateCell = gameBoard.getCell(row, col);
-                        int prevStateCell = prevState.getCell(row, col);
-
-                        if (currentStateCell != prevStateCell) {
-                            gameBoard.setCell(row, col, prevStateCell);
-                        }
-                    }
-                }
-            }
+            undoJournal.redo(gameBoard);
         }
     }
 
@@ -379,53 +528,90 @@ public class SudokuController {
 
         /**
          * {@inheritDoc}
+         *
+         * Naked and hidden singles as well as hints from the last solution
+         * are applied at once, only otherwise the board is solved by a job
+         * of the highest priority.
          */
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
-            if (firstSolutionThread == null) {
+            try {
+                Board sudokuBoard = gameBoard.convertToSudokuBoard();
+                Hint hint = hintFinder.findDeduction(sudokuBoard);
 
-                try {
-                    Board sudokuBoard
-                            = gameBoard.convertToSudokuBoard().clone();
-                    SudokuBoardSolver solverFirst = getSudokuBoardSolver();
-                    FirstSolutionThread fstSolThread
-                            = new FirstSolutionThread(solverFirst, sudokuBoard);
-                    fstSolThread.addThreadObserver(this);
-                    Thread t1 = new Thread(fstSolThread);
-                    firstSolutionThread = t1;
-                    t1.start();
-                } catch (InvalidSudokuException e) {
-                    if (!threadStopped) {
-                        displayUnsolvable();
-                    }
+                if (hint == null) {
+                    hint = hintFinder.findCachedHint(sudokuBoard);
                 }
+
+                if (hint != null) {
+                    applyHint(hint);
+                    return;
+                }
+                submitFirstSolutionJob(JobPriority.HINT, "Suggest value",
+                        sudokuBoard, this);
+            } catch (InvalidSudokuException e) {
+                displayUnsolvable();
             }
         }
 
         /**
          * {@inheritDoc}
+         *
+         * Called on the solving thread, the result is applied on the Event
+         * Dispatch Thread.
          */
         @Override
         public void update(Board firstSolution, ThreadObservable obj) {
-            // Check if thread got stopped by controller.
-            if (firstSolutionThread != null) {
-                if (firstSolution == null) {
-                    displayUnsolvable();
-                } else {
-                    int[] lastCelLSet = firstSolution.getLastCellSet();
-                    int row = lastCelLSet[0];
-                    int col = lastCelLSet[1];
-                    int cellValue = firstSolution.getCell(Structure.ROW, row,
-                            col);
-                    pushCurrentBoardState();
-                    gameBoard.setCell(row, col, cellValue);
+            SwingUtilities.invokeLater(() -> applyResult(firstSolution, obj));
+        }
+
+        /**
+         * Apply the result of the solving job to the game-board. The board
+         * may have changed meanwhile, the hint is looked up for the current
+         * board and only if the solution still agrees with it.
+         *
+         * @param firstSolution First solution, or {@code null} if there is
+         *                      none.
+         * @param obj           The finished job.
+         */
+        private void applyResult(Board firstSolution, ThreadObservable obj) {
+            SolverJob job = finishJob(obj);
+
+            // Check if job got stopped by controller.
+            if (job == null) {
+                return;
+            }
+
+            if (firstSolution == null) {
+                if (job.board.equals(BoardKey.of(gameBoard))) {
+                    displayNoSolution(obj);
                 }
+                return;
+            }
+            hintFinder.cacheSolution(firstSolution);
 
-                if (gameBoard.checkAllCellsSet()) {
-                    displaySolvable();
+            try {
+                Hint hint = hintFinder.findCachedHint(
+                        gameBoard.convertToSudokuBoard());
+
+                if (hint != null) {
+                    applyHint(hint);
                 }
-                obj.removeAllObservers();
-                firstSolutionThread = null;
+            } catch (InvalidSudokuException e) {
+                // The board got invalid meanwhile, there is nothing to hint.
+            }
+        }
+
+        /**
+         * Set the suggested value of a hint on the game-board.
+         *
+         * @param hint Hint to apply.
+         */
+        private void applyHint(Hint hint) {
+            setCellUndoable(hint.getRow(), hint.getCol(), hint.getNumber());
+
+            if (gameBoard.checkAllCellsSet()) {
+                displaySolvable();
             }
         }
     }
@@ -441,57 +627,91 @@ public class SudokuController {
          */
         @Override
         public void actionPerformed(ActionEvent actionEvent) {
-            if (firstSolutionThread == null && !gameBoard.checkAllCellsSet()) {
+            if (!gameBoard.checkAllCellsSet()) {
+                Board solution = speculativeSolver.getSolution(gameBoard);
+
+                if (solution != null) {
+                    applySolution(solution);
+                    return;
+                }
+
                 try {
-                    Board sudokuBoard
-                            = gameBoard.convertToSudokuBoard().clone();
-                    SudokuBoardSolver solverFirst = getSudokuBoardSolver();
-                    FirstSolutionThread fstSolThread
-                            = new FirstSolutionThread(solverFirst, sudokuBoard);
-                    fstSolThread.addThreadObserver(this);
-                    Thread t1 = new Thread(fstSolThread);
-                    firstSolutionThread = t1;
-                    t1.start();
+                    Board sudokuBoard = gameBoard.convertToSudokuBoard();
+                    submitFirstSolutionJob(JobPriority.SOLVE, "Solve",
+                            sudokuBoard, this);
                 } catch (InvalidSudokuException e) {
-                    if (!threadStopped) {
-                        displayUnsolvable();
-                        threadStopped = false;
-                    }
+                    displayUnsolvable();
                 }
             }
         }
 
         /**
          * {@inheritDoc}
+         *
+         * Called on the solving thread, the result is applied on the Event
+         * Dispatch Thread.
          */
         @Override
         public void update(Board firstSolution, ThreadObservable obj) {
-            // Check if thread got stopped by controller.
-            if (firstSolutionThread != null) {
-                if (firstSolution == null) {
-                    displayUnsolvable();
-                } else {
-                    pushCurrentBoardState();
-
-                    for (int row = 0; row < gameBoard.getNumbers(); row++) {
-                        for (int col = 0; col < gameBoard.getNumbers(); col++) {
-                            if (gameBoard.getCell(row, col) == -1) {
-                                int cellValue
-                                        = firstSolution.getCell(Structure.ROW,
-                                        row, col);
-                                gameBoard.setCell(row, col, cellValue);
-                            }
-                        }
+            SwingUtilities.invokeLater(() -> applyResult(firstSolution, obj));
+        }
+
+        /**
+         * Apply the result of the solving job to the game-board. The board
+         * may have changed meanwhile, the solution is only applied if it
+         * still agrees with every set cell.
+         *
+         * @param firstSolution First solution, or {@code null} if there is
+         *                      none.
+         * @param obj           The finished job.
+         */
+        private void applyResult(Board firstSolution, ThreadObservable obj) {
+            SolverJob job = finishJob(obj);
+
+            // Check if job got stopped by controller.
+            if (job == null) {
+                return;
+            }
+            BoardKey current = BoardKey.of(gameBoard);
+
+            if (firstSolution == null) {
+                if (job.board.equals(current)) {
+                    displayNoSolution(obj);
+                }
+            } else if (current.agreesWith(firstSolution)
+                    && !gameBoard.checkAllCellsSet()) {
+                applySolution(firstSolution);
+            }
+        }
+
+        /**
+         * Set all empty cells of the game-board to their values in a
+         * solution.
+         *
+         * @param solution Solution of the game-board.
+         */
+        private void applySolution(Board solution) {
+            int[][] cells = gameBoard.getGameBoard();
+            undoJournal.beginMove();
+
+            for (int row = 0; row < cells.length; row++) {
+                for (int col = 0; col < cells.length; col++) {
+                    if (cells[row][col] == Board.UNSET_CELL) {
+                        cells[row][col] = solution.getCell(Structure.ROW, row,
+                                col);
+                        undoJournal.record(row, col, cells.length,
+                                Board.UNSET_CELL, cells[row][col]);
                     }
                 }
-                obj.removeAllObservers();
-                firstSolutionThread = null;
             }
+            undoJournal.endMove();
+            gameBoard.setCells(cells);
         }
     }
 
     /**
-     * Mouse Listener class, to apply changes to labels on panel in view.
+     * Mouse Listener class, to select the clicked cell on the board in view.
+     * Highlighting the cell below the mouse is done by the board itself.
      */
     class LableListener implements MouseListener {
 
@@ -500,44 +720,19 @@ public class SudokuController {
          */
         @Override
         public void mouseClicked(MouseEvent mouseEvent) {
-            if (firstSolutionThread != null) {
-                JPopupMenu popup = sudokuView.getPopupMenu();
-
-                if (popup.isVisible()) {
-                    popup.setVisible(false);
-                    spotlightLabel.setFont(new Font("Serif",
-                            Font.PLAIN, 21));
-                    spotlightLabel.setBackground(Color.WHITE);
-                }
-            } else {
-                currentLabel = (JLabel) mouseEvent.getComponent();
-                JPopupMenu popup = sudokuView.getPopupMenu();
+            JPopupMenu popup = sudokuView.getPopupMenu();
+            BoardCanvas canvas = sudokuView.getBoardCanvas();
+            int[] cell = canvas.cellAt(mouseEvent.getPoint());
+
+            if (popup.isVisible() || cell == null) {
+                applyPopupLabelClickedChanges();
+            } else if (!gameBoard.getPresetCellValue(cell[0], cell[1])) {
+                currentCell = cell;
+                canvas.setSelectedCell(cell[0], cell[1]);
                 popup.setLocation((int) mouseEvent.getLocationOnScreen().getX(),
                         (int) mouseEvent.getLocationOnScreen().getY());
                 popup.pack();
-
-                if (!currentLabel.getForeground().equals(Color.RED)) {
-                    if (spotlightLabel != null) {
-                        spotlightLabel.setFont(new Font("Serif",
-                                Font.PLAIN, 21));
-                        spotlightLabel.setBackground(Color.WHITE);
-                    }
-                    spotlightLabel = currentLabel;
-                    spotlightLabel.setBackground(Color.YELLOW);
-                    currentLabel.setFont(new Font("Serif",
-                            Font.PLAIN, 42));
-                }
-
-                if (popup.isVisible()) {
-                    popup.setVisible(false);
-                    spotlightLabel.setFont(new Font("Serif",
-                            Font.PLAIN, 21));
-                    spotlightLabel.setBackground(Color.WHITE);
-                } else {
-                    if (!currentLabel.getForeground().equals(Color.RED)) {
-                        popup.setVisible(true);
-                    }
-                }
+                popup.setVisible(true);
             }
         }
 
@@ -560,11 +755,6 @@ public class SudokuController {
          */
         @Override
         public void mouseEntered(MouseEvent mouseEvent) {
-            JLabel label = (JLabel) mouseEvent.getComponent();
-
-            if (!label.getBackground().equals(Color.YELLOW)) {
-                label.setBackground(Color.LIGHT_GRAY);
-            }
         }
 
         /**
@@ -572,11 +762,33 @@ public class SudokuController {
          */
         @Override
         public void mouseExited(MouseEvent mouseEvent) {
-            JLabel label = (JLabel) mouseEvent.getComponent();
+        }
+    }
 
-            if (!label.getBackground().equals(Color.YELLOW)) {
-                label.setBackground(Color.WHITE);
-            }
+    /**
+     * Requested solving job, running or queued.
+     */
+    private static final class SolverJob {
+
+        /**
+         * Handle to cancel the job.
+         */
+        private final Future<?> future;
+
+        /**
+         * Snapshot of the board the job solves.
+         */
+        private final BoardKey board;
+
+        /**
+         * Construct job.
+         *
+         * @param future Handle to cancel the job.
+         * @param board  Snapshot of the board the job solves.
+         */
+        private SolverJob(Future<?> future, BoardKey board) {
+            this.future = future;
+            this.board = board;
         }
     }
 }
@@ -0,0 +1,459 @@
+package sudoku.main;
+
+import sudoku.model.AutoSolver;
+import sudoku.model.Board;
+import sudoku.model.Branching;
+import sudoku.model.EnforceCell;
+import sudoku.model.EnforceNumber;
+import sudoku.model.InvalidSudokuException;
+import sudoku.model.PortfolioSolver;
+import sudoku.model.SearchMode;
+import sudoku.model.SolverEngine;
+import sudoku.model.Structure;
+import sudoku.model.SudokuBoard;
+import sudoku.model.SudokuBoardSolver;
+import sudoku.model.SudokuSolver;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Benchmark, which times the engines of {@link AutoSolver} on random puzzles
+ * of several geometries and ratios of given cells, and writes the derived
+ * selection thresholds as properties file for
+ * {@link AutoSolver#loadThresholds(File)}. A {@link PortfolioSolver} is
+ * timed as well, with the wins of each of its members, to tune it.
+ *
+ * Usage: {@code EngineBenchmark [file [puzzles [timeout-ms]]]}, the file
+ * defaulting to {@value #DEFAULT_FILE}.
+ */
+public final class EngineBenchmark {
+
+    /**
+     * Default output file.
+     */
+    private static final String DEFAULT_FILE = "engines.properties";
+
+    /**
+     * Box dimensions of the benchmarked geometries, ascending in size.
+     */
+    private static final int[][] GEOMETRIES =
+            {{4, 4}, {5, 5}, {6, 6}, {7, 7}, {8, 8}};
+
+    /**
+     * Benchmarked ratios of given cells, ascending.
+     */
+    private static final double[] GIVEN_RATIOS =
+            {0.0, 0.1, 0.2, 0.3, 0.4, 0.5};
+
+    /**
+     * Largest board length the template engine is benchmarked on.
+     */
+    private static final int MAX_TEMPLATE_NUMBERS = 16;
+
+    /**
+     * Private constructor for utility class.
+     */
+    private EngineBenchmark() {
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args Output file, puzzles per setting and timeout per solve in
+     *             milliseconds, all optional.
+     * @throws IOException          Exception regarding output errors.
+     * @throws InterruptedException Benchmark was interrupted.
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        File file = new File(args.length > 0 ? args[0] : DEFAULT_FILE);
+        int puzzles = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long timeout = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        AutoSolver auto = new AutoSolver();
+        Random random = new Random(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // Median times by geometry, ratio and engine.
+        double[][][] times = new double[GEOMETRIES.length]
+                [GIVEN_RATIOS.length][SolverEngine.values().length];
+        double[][] openRatios =
+                new double[GEOMETRIES.length][GIVEN_RATIOS.length];
+
+        try {
+            for (int g = 0; g < GEOMETRIES.length; g++) {
+                int boxRows = GEOMETRIES[g][0];
+                int boxCols = GEOMETRIES[g][1];
+                Board grid = solvedGrid(boxRows, boxCols);
+
+                for (int r = 0; r < GIVEN_RATIOS.length; r++) {
+                    List<Board> boards = new ArrayList<>();
+
+                    for (int i = 0; i < puzzles; i++) {
+                        Board puzzle = randomPuzzle(grid, GIVEN_RATIOS[r],
+                                random);
+                        boards.add(puzzle);
+                        openRatios[g][r] += openRatio(auto.saturate(puzzle))
+                                / puzzles;
+                    }
+
+                    for (SolverEngine engine : SolverEngine.values()) {
+                        times[g][r][engine.ordinal()] = benchmark(auto,
+                                engine, boards, executor, timeout);
+                    }
+                    System.out.printf("%dx%d given %.2f open %.2f:",
+                            boxRows * boxCols, boxRows * boxCols,
+                            GIVEN_RATIOS[r], openRatios[g][r]);
+
+                    for (SolverEngine engine : SolverEngine.values()) {
+                        System.out.printf(" %s %.1f ms", engine,
+                                times[g][r][engine.ordinal()]);
+                    }
+                    Map<String, Integer> wins = new TreeMap<>();
+                    double portfolio = benchmarkPortfolio(boards, executor,
+                            timeout, wins);
+                    System.out.printf(" PORTFOLIO %.1f ms %s", portfolio,
+                            wins);
+                    System.out.println();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Properties thresholds = calibrate(times, openRatios, timeout);
+
+        try (Writer out = new FileWriter(file)) {
+            thresholds.store(out, "Engine selection thresholds of AutoSolver,"
+                    + " calibrated by EngineBenchmark");
+        }
+        System.out.println("Thresholds " + thresholds + " written to "
+                + file);
+    }
+
+    /**
+     * Derive the selection thresholds from the measured times. Each threshold
+     * is chosen among the benchmarked settings, such that the total time of
+     * the engines it selects is minimal, timeouts counting as the timeout.
+     *
+     * @param times      Median times by geometry, ratio and engine.
+     * @param openRatios Mean ratios of open cells after probing, by geometry
+     *                   and ratio.
+     * @param timeout    Timeout per board in milliseconds.
+     * @return Thresholds by key.
+     */
+    private static Properties calibrate(double[][][] times,
+                                        double[][] openRatios, long timeout) {
+        int sat = SolverEngine.SAT.ordinal();
+        int unitMasks = SolverEngine.UNIT_MASKS.ordinal();
+        int templates = SolverEngine.TEMPLATES.ordinal();
+        // Never selecting SAT within the benchmarked geometries.
+        int satMinNumbers = Long.SIZE + 1;
+        double satMinGivenRatio = 0.0;
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        for (int from = GEOMETRIES.length; from >= 0; from--) {
+            for (int minRatio = 0; minRatio < GIVEN_RATIOS.length;
+                    minRatio++) {
+                double cost = 0;
+
+                for (int g = 0; g < GEOMETRIES.length; g++) {
+                    for (int r = 0; r < GIVEN_RATIOS.length; r++) {
+                        boolean useSat = g >= from && r >= minRatio;
+                        cost += Math.min(timeout,
+                                times[g][r][useSat ? sat : unitMasks]);
+                    }
+                }
+
+                if (cost < bestCost) {
+                    bestCost = cost;
+
+                    if (from < GEOMETRIES.length) {
+                        satMinNumbers = GEOMETRIES[from][0]
+                                * GEOMETRIES[from][1];
+                        satMinGivenRatio = GIVEN_RATIOS[minRatio];
+                    }
+                }
+            }
+        }
+        // The template engine is only benchmarked on the smallest geometry.
+        int templatesMaxNumbers = 0;
+        double templatesMaxOpenRatio = 0.0;
+        bestCost = Double.POSITIVE_INFINITY;
+
+        for (int limit = -1; limit < GIVEN_RATIOS.length; limit++) {
+            double maxOpen = limit < 0 ? -1 : openRatios[0][limit];
+            double cost = 0;
+
+            for (int r = 0; r < GIVEN_RATIOS.length; r++) {
+                boolean useTemplates = openRatios[0][r] <= maxOpen;
+                cost += Math.min(timeout,
+                        times[0][r][useTemplates ? templates : unitMasks]);
+            }
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                templatesMaxNumbers = limit < 0 ? 0 : MAX_TEMPLATE_NUMBERS;
+                templatesMaxOpenRatio = Math.max(maxOpen, 0.0);
+            }
+        }
+        Properties thresholds = new Properties();
+        thresholds.setProperty(AutoSolver.SAT_MIN_NUMBERS,
+                Integer.toString(satMinNumbers));
+        thresholds.setProperty(AutoSolver.SAT_MIN_GIVEN_RATIO,
+                Double.toString(satMinGivenRatio));
+        thresholds.setProperty(AutoSolver.TEMPLATES_MAX_NUMBERS,
+                Integer.toString(templatesMaxNumbers));
+        thresholds.setProperty(AutoSolver.TEMPLATES_MAX_OPEN_RATIO,
+                Double.toString(templatesMaxOpenRatio));
+        return thresholds;
+    }
+
+    /**
+     * Time an engine on some boards.
+     *
+     * @param auto     Facade creating the engine.
+     * @param engine   Engine to time.
+     * @param boards   Boards to solve.
+     * @param executor Executor to solve on.
+     * @param timeout  Timeout per board in milliseconds.
+     * @return Median time in milliseconds, infinite if a timeout is the
+     *         median, NaN if the engine does not apply.
+     * @throws InterruptedException Benchmark was interrupted.
+     */
+    private static double benchmark(AutoSolver auto, SolverEngine engine,
+                                    List<Board> boards,
+                                    ExecutorService executor, long timeout)
+            throws InterruptedException {
+        int numbers = boards.get(0).getNumbers();
+
+        if (engine == SolverEngine.BITBOARD
+                || (engine == SolverEngine.TEMPLATES
+                && numbers > MAX_TEMPLATE_NUMBERS)) {
+            return Double.NaN;
+        }
+        List<Double> millis = new ArrayList<>();
+
+        for (Board board : boards) {
+            SudokuSolver solver = auto.createEngine(engine);
+            long start = System.nanoTime();
+            Future<Board> result =
+                    executor.submit(() -> solver.findFirstSolution(board));
+
+            try {
+                result.get(timeout, TimeUnit.MILLISECONDS);
+                millis.add((System.nanoTime() - start) / 1e6);
+            } catch (TimeoutException e) {
+                result.cancel(true);
+                millis.add(Double.POSITIVE_INFINITY);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        Collections.sort(millis);
+        return millis.get(millis.size() / 2);
+    }
+
+    /**
+     * Time a portfolio of lexicographic searches on some boards, see
+     * {@link #createPortfolio()}.
+     *
+     * @param boards   Boards to solve.
+     * @param executor Executor to solve on.
+     * @param timeout  Timeout per board in milliseconds.
+     * @param wins     Number of wins by member, to add the wins to.
+     * @return Median time in milliseconds, infinite if a timeout is the
+     *         median.
+     * @throws InterruptedException Benchmark was interrupted.
+     */
+    private static double benchmarkPortfolio(List<Board> boards,
+                                             ExecutorService executor,
+                                             long timeout,
+                                             Map<String, Integer> wins)
+            throws InterruptedException {
+        List<Double> millis = new ArrayList<>();
+
+        for (Board board : boards) {
+            PortfolioSolver portfolio = createPortfolio();
+            long start = System.nanoTime();
+            Future<Board> result =
+                    executor.submit(() -> portfolio.findFirstSolution(board));
+
+            try {
+                result.get(timeout, TimeUnit.MILLISECONDS);
+                millis.add((System.nanoTime() - start) / 1e6);
+
+                if (portfolio.getLastWinner() != null) {
+                    wins.merge(portfolio.getLastWinner(), 1, Integer::sum);
+                }
+            } catch (TimeoutException e) {
+                result.cancel(true);
+                millis.add(Double.POSITIVE_INFINITY);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        Collections.sort(millis);
+        return millis.get(millis.size() / 2);
+    }
+
+    /**
+     * Create a portfolio of searches, which all find the lexicographically
+     * first solution, differing in search mode and solution strategies.
+     *
+     * @return The portfolio.
+     */
+    private static PortfolioSolver createPortfolio() {
+        PortfolioSolver portfolio = new PortfolioSolver();
+        SudokuBoardSolver cells = new SudokuBoardSolver();
+        cells.setBranching(Branching.ROW_MAJOR);
+        cells.addSaturator(new EnforceCell());
+        portfolio.addMember("cells", cells);
+        SudokuBoardSolver numbers = new SudokuBoardSolver();
+        numbers.setBranching(Branching.ROW_MAJOR);
+        numbers.addSaturator(new EnforceCell());
+        numbers.addSaturator(new EnforceNumber());
+        portfolio.addMember("numbers", numbers);
+        SudokuBoardSolver bounded = new SudokuBoardSolver();
+        bounded.setSearchMode(SearchMode.MEMORY_BOUNDED);
+        bounded.setBranching(Branching.ROW_MAJOR);
+        bounded.addSaturator(new EnforceCell());
+        bounded.addSaturator(new EnforceNumber());
+        portfolio.addMember("bounded", bounded);
+        return portfolio;
+    }
+
+    /**
+     * Get the ratio of unset cells of a board.
+     *
+     * @param board Board to check.
+     * @return Ratio of unset cells.
+     */
+    private static double openRatio(Board board) {
+        int numbers = board.getNumbers();
+        int open = 0;
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                if (board.getCell(Structure.ROW, row, col)
+                        == Board.UNSET_CELL) {
+                    open++;
+                }
+            }
+        }
+        return (double) open / (numbers * numbers);
+    }
+
+    /**
+     * Solve an empty board.
+     *
+     * @param boxRows Inner box-row length.
+     * @param boxCols Inner box-col length.
+     * @return A solved board.
+     */
+    private static Board solvedGrid(int boxRows, int boxCols) {
+        SudokuBoardSolver solver = new SudokuBoardSolver();
+        solver.setSearchMode(SearchMode.UNIT_MASKS);
+        return solver.findFirstSolution(new SudokuBoard(boxRows, boxCols));
+    }
+
+    /**
+     * Create a random puzzle from a solved board, by permuting its numbers,
+     * bands, rows within bands, stacks and columns within stacks, and keeping
+     * each cell with a given probability.
+     *
+     * @param grid       Solved board.
+     * @param givenRatio Probability of keeping a cell.
+     * @param random     Source of the random choices.
+     * @return The puzzle.
+     */
+    private static Board randomPuzzle(Board grid, double givenRatio,
+                                      Random random) {
+        int boxRows = grid.getBoxRows();
+        int boxCols = grid.getBoxColumns();
+        int numbers = grid.getNumbers();
+        int[] symbols = permutation(numbers, 1, random);
+        int[] rows = bandPermutation(boxCols, boxRows, random);
+        int[] cols = bandPermutation(boxRows, boxCols, random);
+        Board puzzle = new SudokuBoard(boxRows, boxCols);
+
+        try {
+            for (int row = 0; row < numbers; row++) {
+                for (int col = 0; col < numbers; col++) {
+                    if (random.nextDouble() < givenRatio) {
+                        int number = grid.getCell(Structure.ROW, rows[row],
+                                cols[col]);
+                        puzzle.setCell(Structure.ROW, row, col,
+                                symbols[number - 1]);
+                    }
+                }
+            }
+        } catch (InvalidSudokuException e) {
+            throw new IllegalStateException(e);
+        }
+        return puzzle;
+    }
+
+    /**
+     * Create a random permutation of rows or columns, which keeps boxes
+     * intact.
+     *
+     * @param bands     Number of bands (stacks).
+     * @param bandWidth Number of rows (columns) per band (stack).
+     * @param random    Source of the random choices.
+     * @return Source line of each line.
+     */
+    private static int[] bandPermutation(int bands, int bandWidth,
+                                         Random random) {
+        int[] bandOrder = permutation(bands, 0, random);
+        int[] lines = new int[bands * bandWidth];
+
+        for (int band = 0; band < bands; band++) {
+            int[] inner = permutation(bandWidth, 0, random);
+
+            for (int i = 0; i < bandWidth; i++) {
+                lines[band * bandWidth + i] =
+                        bandOrder[band] * bandWidth + inner[i];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Create a random permutation.
+     *
+     * @param length Number of elements.
+     * @param first  Smallest element.
+     * @param random Source of the random choices.
+     * @return The elements {@code first} to {@code first + length - 1} in
+     *         random order.
+     */
+    private static int[] permutation(int length, int first, Random random) {
+        int[] elements = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            elements[i] = first + i;
+        }
+
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = elements[i];
+            elements[i] = elements[j];
+            elements[j] = swap;
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,209 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base class for {@link SudokuSolver} implementations, which manages the
+ * registered solution strategies and the receiver of the search progress,
+ * and implements saturation.
+ */
+public abstract class AbstractSudokuSolver implements SudokuSolver {
+
+    /**
+     * Default minimum time between two progress reports, in milliseconds.
+     */
+    public static final long DEFAULT_PROGRESS_INTERVAL = 100;
+
+    /**
+     * List of saturators.
+     */
+    private List<Saturator> saturators;
+
+    /**
+     * Receiver of the progress of the searches, or {@code null}.
+     */
+    private volatile ProgressListener progressListener;
+
+    /**
+     * Minimum time between two progress reports, in milliseconds.
+     */
+    private volatile long progressInterval;
+
+    /**
+     * Construct solver without solution strategies.
+     */
+    protected AbstractSudokuSolver() {
+        saturators = new ArrayList<>();
+        progressInterval = DEFAULT_PROGRESS_INTERVAL;
+    }
+
+    /**
+     * Get receiver of the progress of the searches.
+     *
+     * @return The listener, or {@code null} if progress is not reported.
+     */
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    /**
+     * Set receiver of the progress of the following searches for first or
+     * all solutions. The listener is called on the solving thread, with the
+     * number of search steps, the current search depth and a snapshot of the
+     * current partial board, at most once per progress interval. Searches
+     * only look at the clock every few hundred steps and copy their board
+     * only when a report is due, thus reporting costs next to nothing.
+     *
+     * What counts as a step depends on the solver: a guess for
+     * {@link SudokuBoardSolver}, a decision for {@link SatSudokuSolver} and
+     * a tried template for {@link TemplateSudokuSolver}.
+     *
+     * @param progressListener The listener, or {@code null} to stop
+     *                         reporting.
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Get minimum time between two progress reports.
+     *
+     * @return Interval, in milliseconds.
+     */
+    public long getProgressInterval() {
+        return progressInterval;
+    }
+
+    /**
+     * Set minimum time between two progress reports. Defaults to
+     * {@value #DEFAULT_PROGRESS_INTERVAL}.
+     *
+     * @param progressInterval Interval, in milliseconds, at least 0.
+     */
+    public void setProgressInterval(long progressInterval) {
+        assert (progressInterval >= 0);
+
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Create the throttle of the progress reports of a starting search.
+     *
+     * @return The reporter, or {@code null} if progress is not reported.
+     */
+    ProgressReporter createProgressReporter() {
+        ProgressListener listener = progressListener;
+        return listener == null ? null
+                : new ProgressReporter(listener, progressInterval);
+    }
+
+    /**
+     * Get registered solution strategies.
+     *
+     * @return Unmodifiable view of the strategies, in order of registration.
+     */
+    protected List<Saturator> getSaturators() {
+        return Collections.unmodifiableList(saturators);
+    }
+
+    /**
+     * Apply set solving strategies on board.
+     *
+     * @param board Board to apply changes.
+     * @return True, if and only if board was changed.
+     * @throws UnsolvableSudokuException Sudoku board is not solvable.
+     */
+    protected boolean saturateDirect(Board board)
+            throws UnsolvableSudokuException {
+        if (!saturators.isEmpty()) {
+            try {
+                boolean change = false;
+
+                for (Saturator saturator : saturators) {
+                    boolean changeBoard = saturator.saturate(board);
+
+                    if (changeBoard) {
+                        change = true;
+                    }
+                }
+                return change;
+            } catch (UnsolvableSudokuException e) {
+                throw new UnsolvableSudokuException(e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply set solving strategies on board until a fix point is reached.
+     *
+     * @param board Board to apply changes.
+     * @return False, if and only if the board turned out to be unsolvable.
+     */
+    protected boolean saturateInPlace(Board board) {
+        try {
+            boolean change = true;
+
+            while (change && !board.isSolution()) {
+                change = saturateDirect(board);
+            }
+            return true;
+        } catch (UnsolvableSudokuException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Determine the outcome of a search for first or all solutions, which
+     * did not stop at a limit. A search cut short by an interrupt of the
+     * solving thread is cancelled, unless it already found the first
+     * solution it was asked for.
+     *
+     * @param solutions Found solutions, or {@code null} if there are none.
+     * @param onlyFirst Sets if the search stopped at the first solution.
+     * @return The outcome.
+     */
+    protected static SolveStatus outcomeOf(List<Board> solutions,
+                                           boolean onlyFirst) {
+        if (solutions != null && (onlyFirst
+                || !Thread.currentThread().isInterrupted())) {
+            return SolveStatus.SOLVED;
+        } else if (Thread.currentThread().isInterrupted()) {
+            return SolveStatus.CANCELLED;
+        } else {
+            return SolveStatus.NO_SOLUTION;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addSaturator(Saturator saturator) {
+        saturators.add(saturator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board saturate(Board board) {
+        Board boardClone = board.clone();
+        boolean done = false;
+
+        while (!done) {
+            try {
+                boolean change = saturateDirect(boardClone);
+
+                if (boardClone.isSolution() || !change) {
+                    done = true;
+                }
+            } catch (UnsolvableSudokuException e) {
+                done = true;
+            }
+        }
+        return boardClone;
+    }
+}
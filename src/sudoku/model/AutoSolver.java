@@ -0,0 +1,371 @@
+package sudoku.model;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Sudoku solver facade, which picks the engine for each board by itself.
+ *
+ * A board is first probed by applying the solution strategies until a fix
+ * point, which already solves or refutes many boards. Otherwise an engine is
+ * chosen from the board geometry, the ratio of given cells and the ratio of
+ * cells left open by the probe, see {@link #selectEngine(Board)}. The
+ * thresholds of this choice are calibrated by
+ * {@code sudoku.main.EngineBenchmark}, which writes them as properties file
+ * for {@link #loadThresholds(File)}.
+ *
+ * {@link EnforceCell} and {@link EnforceNumber} are registered on
+ * construction, further strategies are passed on to the engines.
+ */
+public class AutoSolver extends AbstractSudokuSolver {
+
+    /**
+     * Key of the smallest board length solved by {@link SolverEngine#SAT}.
+     */
+    public static final String SAT_MIN_NUMBERS = "sat.minNumbers";
+
+    /**
+     * Key of the smallest ratio of given cells solved by
+     * {@link SolverEngine#SAT}.
+     */
+    public static final String SAT_MIN_GIVEN_RATIO = "sat.minGivenRatio";
+
+    /**
+     * Key of the largest board length solved by
+     * {@link SolverEngine#TEMPLATES}.
+     */
+    public static final String TEMPLATES_MAX_NUMBERS = "templates.maxNumbers";
+
+    /**
+     * Key of the largest ratio of cells left open by the probe, which is
+     * solved by {@link SolverEngine#TEMPLATES}.
+     */
+    public static final String TEMPLATES_MAX_OPEN_RATIO =
+            "templates.maxOpenRatio";
+
+    /**
+     * Smallest board length solved by {@link SolverEngine#SAT}.
+     */
+    private int satMinNumbers;
+
+    /**
+     * Smallest ratio of given cells solved by {@link SolverEngine#SAT}.
+     */
+    private double satMinGivenRatio;
+
+    /**
+     * Largest board length solved by {@link SolverEngine#TEMPLATES}.
+     */
+    private int templatesMaxNumbers;
+
+    /**
+     * Largest ratio of open cells after probing, which is solved by
+     * {@link SolverEngine#TEMPLATES}.
+     */
+    private double templatesMaxOpenRatio;
+
+    /**
+     * Engine used by the last solve, or {@code null}.
+     */
+    private volatile SolverEngine lastEngine;
+
+    /**
+     * Outcome of the last solve.
+     */
+    private volatile SolveStatus lastStatus;
+
+    /**
+     * Construct auto-solver with the default thresholds.
+     */
+    public AutoSolver() {
+        super();
+        addSaturator(new EnforceCell());
+        addSaturator(new EnforceNumber());
+        setThresholds(getDefaultThresholds());
+    }
+
+    /**
+     * Get the default thresholds, as calibrated on the development machine.
+     *
+     * @return Thresholds by key.
+     */
+    public static Properties getDefaultThresholds() {
+        Properties defaults = new Properties();
+        defaults.setProperty(SAT_MIN_NUMBERS, "25");
+        defaults.setProperty(SAT_MIN_GIVEN_RATIO, "0.1");
+        defaults.setProperty(TEMPLATES_MAX_NUMBERS, "0");
+        defaults.setProperty(TEMPLATES_MAX_OPEN_RATIO, "0.0");
+        return defaults;
+    }
+
+    /**
+     * Get current thresholds.
+     *
+     * @return Thresholds by key.
+     */
+    public Properties getThresholds() {
+        Properties thresholds = new Properties();
+        thresholds.setProperty(SAT_MIN_NUMBERS,
+                Integer.toString(satMinNumbers));
+        thresholds.setProperty(SAT_MIN_GIVEN_RATIO,
+                Double.toString(satMinGivenRatio));
+        thresholds.setProperty(TEMPLATES_MAX_NUMBERS,
+                Integer.toString(templatesMaxNumbers));
+        thresholds.setProperty(TEMPLATES_MAX_OPEN_RATIO,
+                Double.toString(templatesMaxOpenRatio));
+        return thresholds;
+    }
+
+    /**
+     * Set thresholds. Missing keys keep their current value.
+     *
+     * @param thresholds Thresholds by key.
+     * @throws NumberFormatException A value is no number.
+     */
+    public void setThresholds(Properties thresholds) {
+        satMinNumbers = Integer.parseInt(thresholds.getProperty(
+                SAT_MIN_NUMBERS, Integer.toString(satMinNumbers)).trim());
+        satMinGivenRatio = Double.parseDouble(thresholds.getProperty(
+                SAT_MIN_GIVEN_RATIO, Double.toString(satMinGivenRatio))
+                .trim());
+        templatesMaxNumbers = Integer.parseInt(thresholds.getProperty(
+                TEMPLATES_MAX_NUMBERS, Integer.toString(templatesMaxNumbers))
+                .trim());
+        templatesMaxOpenRatio = Double.parseDouble(thresholds.getProperty(
+                TEMPLATES_MAX_OPEN_RATIO,
+                Double.toString(templatesMaxOpenRatio)).trim());
+    }
+
+    /**
+     * Load thresholds from a properties file. Missing keys keep their current
+     * value.
+     *
+     * @param file Properties file, as written by
+     *             {@code sudoku.main.EngineBenchmark}.
+     * @throws IOException           Exception regarding input errors.
+     * @throws NumberFormatException A value is no number.
+     */
+    public void loadThresholds(File file) throws IOException {
+        Properties thresholds = new Properties();
+
+        try (Reader in = new FileReader(file)) {
+            thresholds.load(in);
+        }
+        setThresholds(thresholds);
+    }
+
+    /**
+     * Get outcome of the last solve, as reported by its engine if the engine
+     * reports outcomes.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet.
+     */
+    @Override
+    public SolveStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Get engine used by the last solve.
+     *
+     * @return The engine, or {@code null} if the probe already decided the
+     *         board.
+     */
+    public SolverEngine getLastEngine() {
+        return lastEngine;
+    }
+
+    /**
+     * Select the engine for a board. In order:
+     * <ol>
+     * <li>{@link SolverEngine#SAT} for boards too large for candidate masks,
+     * or whose length reaches threshold {@value #SAT_MIN_NUMBERS} and whose
+     * ratio of given cells reaches threshold {@value #SAT_MIN_GIVEN_RATIO},
+     * </li>
+     * <li>{@link SolverEngine#BITBOARD} for boards with 3x3 boxes,</li>
+     * <li>{@link SolverEngine#TEMPLATES} for boards whose length stays within
+     * threshold {@value #TEMPLATES_MAX_NUMBERS} and whose ratio of cells open
+     * after probing stays within {@value #TEMPLATES_MAX_OPEN_RATIO},</li>
+     * <li>{@link SolverEngine#UNIT_MASKS} else.</li>
+     * </ol>
+     *
+     * @param board Board to select engine for. Will not be changed.
+     * @return The engine.
+     */
+    public SolverEngine selectEngine(Board board) {
+        Board probe = board.clone();
+        saturateInPlace(probe);
+        return selectEngine(probe, countSetCells(board));
+    }
+
+    /**
+     * Select the engine for a probed board.
+     *
+     * @param probe  Board after probing.
+     * @param givens Number of set cells before probing.
+     * @return The engine.
+     */
+    private SolverEngine selectEngine(Board probe, int givens) {
+        BoardGeometry geometry = BoardGeometry.of(probe);
+        int numbers = geometry.getNumbers();
+        double cells = geometry.getCellCount();
+        double givenRatio = givens / cells;
+        double openRatio = (cells - countSetCells(probe)) / cells;
+        final int classicBox = 3;
+
+        if (!geometry.fitsMask() || (numbers >= satMinNumbers
+                && givenRatio >= satMinGivenRatio)) {
+            return SolverEngine.SAT;
+        } else if (geometry.getBoxRows() == classicBox
+                && geometry.getBoxCols() == classicBox) {
+            return SolverEngine.BITBOARD;
+        } else if (numbers <= templatesMaxNumbers
+                && openRatio <= templatesMaxOpenRatio) {
+            return SolverEngine.TEMPLATES;
+        } else {
+            return SolverEngine.UNIT_MASKS;
+        }
+    }
+
+    /**
+     * Create a solver for an engine, with the solution strategies of this
+     * facade registered.
+     *
+     * @param engine The engine.
+     * @return The solver.
+     */
+    public SudokuSolver createEngine(SolverEngine engine) {
+        AbstractSudokuSolver solver;
+
+        switch (engine) {
+            case BITBOARD:
+                solver = new SudokuBoardSolver();
+                break;
+            case UNIT_MASKS:
+                SudokuBoardSolver unitMasks = new SudokuBoardSolver();
+                unitMasks.setSearchMode(SearchMode.UNIT_MASKS);
+                solver = unitMasks;
+                break;
+            case TEMPLATES:
+                solver = new TemplateSudokuSolver();
+                break;
+            default:
+                solver = new SatSudokuSolver();
+                break;
+        }
+
+        solver.setProgressListener(getProgressListener());
+        solver.setProgressInterval(getProgressInterval());
+
+        for (Saturator saturator : getSaturators()) {
+            solver.addSaturator(saturator);
+        }
+        return solver;
+    }
+
+    /**
+     * Count the set cells of a board.
+     *
+     * @param board Board to count.
+     * @return Number of set cells.
+     */
+    private static int countSetCells(Board board) {
+        int count = 0;
+
+        for (int row = 0; row < board.getNumbers(); row++) {
+            for (int col = 0; col < board.getNumbers(); col++) {
+                if (board.getCell(Structure.ROW, row, col)
+                        != Board.UNSET_CELL) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Solves board by the selected engine and records the outcome.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> solve(Board board, boolean onlyFirst) {
+        lastStatus = null;
+        List<Board> solutions = search(board, onlyFirst);
+
+        if (lastStatus == null) {
+            lastStatus = outcomeOf(solutions, onlyFirst);
+        }
+        return solutions;
+    }
+
+    /**
+     * Probes board and solves it by the selected engine.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> search(Board board, boolean onlyFirst) {
+        int givens = countSetCells(board);
+        lastEngine = null;
+
+        if (!saturateInPlace(board)) {
+            return null;
+        }
+        List<Board> solutions = new ArrayList<>();
+
+        if (board.isSolution()) {
+            solutions.add(board);
+            return solutions;
+        }
+        lastEngine = selectEngine(board, givens);
+        SudokuSolver solver = createEngine(lastEngine);
+
+        if (!onlyFirst) {
+            List<Board> all = solver.findAllSolutions(board);
+            lastStatus = solver.getLastStatus();
+            return all;
+        }
+        Board solution = solver.findFirstSolution(board);
+        lastStatus = solver.getLastStatus();
+
+        if (solution == null) {
+            return null;
+        }
+        solutions.add(solution);
+        return solutions;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board findFirstSolution(Board board) {
+        Board boardClone = board.clone();
+        List<Board> firstSolution = solve(boardClone, true);
+
+        if (firstSolution == null) {
+            return null;
+        } else {
+            return firstSolution.get(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Board> findAllSolutions(Board board) {
+        Board boardClone = board.clone();
+        return solve(boardClone, false);
+    }
+}
@@ -0,0 +1,310 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Computes the candidates of a board, which are globally consistent, i.e.,
+ * the numbers of every empty cell appearing in at least one solution. The
+ * candidates kept by a {@link Board} are only consistent with the cells
+ * they see.
+ *
+ * Every remaining candidate is checked by a probe: the number is set on a
+ * copy of the board, which is then solved for a first solution. Probes run
+ * in parallel, each thread with its own solver. Every solution found, the
+ * first one of the board as well as those of successful probes, witnesses
+ * all of its numbers at once, thus most probes are skipped. Only candidates
+ * without solution need a complete search, which is cheap for a
+ * propagating solver, e.g. a {@link SatSudokuSolver} refutes them by
+ * conflict analysis.
+ */
+public class BackboneAnalyzer {
+
+    /**
+     * Factory of the solvers running the probes.
+     */
+    private final Supplier<SudokuSolver> solvers;
+
+    /**
+     * Maximum number of probes running at the same time.
+     */
+    private int threads;
+
+    /**
+     * Number of probes run by the last analysis.
+     */
+    private volatile int lastProbeCount;
+
+    /**
+     * Construct analyzer probing with {@link SudokuBoardSolver} instances,
+     * running one probe per available processor.
+     */
+    public BackboneAnalyzer() {
+        this(SudokuBoardSolver::new);
+    }
+
+    /**
+     * Construct analyzer, running one probe per available processor.
+     *
+     * @param solvers Factory of the solvers running the probes. Every thread
+     *                obtains a new solver, thus solvers are never shared.
+     */
+    public BackboneAnalyzer(Supplier<SudokuSolver> solvers) {
+        this.solvers = solvers;
+        threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Get maximum number of probes running at the same time.
+     *
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set maximum number of probes running at the same time.
+     *
+     * @param threads Number of threads, at least 1.
+     */
+    public void setThreads(int threads) {
+        assert (threads >= 1);
+
+        this.threads = threads;
+    }
+
+    /**
+     * Get number of probes, which were not skipped by the last analysis.
+     *
+     * @return Number of solver calls besides the first solution.
+     */
+    public int getLastProbeCount() {
+        return lastProbeCount;
+    }
+
+    /**
+     * Find the numbers of every empty cell, which appear in at least one
+     * solution of a board.
+     *
+     * @param board The Sudoku to analyze. Will not be changed.
+     * @return Supported numbers in ascending order, indexed by row and
+     *         column, {@code null} for set cells like
+     *         {@link Board#getPossibilities(Structure, int, int)}. Empty
+     *         arrays if {@code board} is not solvable. {@code null} if the
+     *         analysis was interrupted or a solver gave up, see
+     *         {@link SudokuSolver#getLastStatus()}.
+     */
+    public int[][][] findSupportedCandidates(Board board) {
+        int numbers = board.getNumbers();
+        AtomicIntegerArray supported =
+                new AtomicIntegerArray(numbers * numbers * numbers);
+        lastProbeCount = 0;
+        SudokuSolver solver = solvers.get();
+        Board first = solver.findFirstSolution(board);
+
+        if (Thread.currentThread().isInterrupted()
+                || first == null && gaveUp(solver)) {
+            return null;
+        }
+
+        if (first != null) {
+            witness(first, supported);
+            List<int[]> probes = new ArrayList<>();
+
+            for (int row = 0; row < numbers; row++) {
+                for (int col = 0; col < numbers; col++) {
+                    int[] possibilities =
+                            board.getPossibilities(Structure.ROW, row, col);
+
+                    if (possibilities != null) {
+                        for (int number : possibilities) {
+                            if (supported.get(index(numbers, row, col,
+                                    number)) == 0) {
+                                probes.add(new int[] {row, col, number});
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (!probe(board, probes, supported)) {
+                return null;
+            }
+        }
+        return collect(board, supported);
+    }
+
+    /**
+     * Run probes in parallel, skipping those witnessed in the meantime.
+     *
+     * @param board     The Sudoku to analyze. Will not be changed.
+     * @param probes    Row, column and number of each probe.
+     * @param supported Flags of the witnessed candidates.
+     * @return False, if the probes were interrupted or a solver gave up.
+     */
+    private boolean probe(Board board, List<int[]> probes,
+                          AtomicIntegerArray supported) {
+        int workers = Math.max(1, Math.min(threads, probes.size()));
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger probeCount = new AtomicInteger();
+        AtomicBoolean incomplete = new AtomicBoolean();
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int w = 0; w < workers; w++) {
+            // Boards are not thread-safe, thus every worker clones its own.
+            Board copy = board.clone();
+            tasks.add(() -> {
+                SudokuSolver solver = solvers.get();
+                int numbers = copy.getNumbers();
+
+                for (int i = next.getAndIncrement(); i < probes.size();
+                        i = next.getAndIncrement()) {
+                    int[] probe = probes.get(i);
+
+                    if (Thread.currentThread().isInterrupted()
+                            || incomplete.get()) {
+                        return null;
+                    }
+
+                    if (supported.get(index(numbers, probe[0], probe[1],
+                            probe[2])) == 0) {
+                        probeCount.incrementAndGet();
+                        Board solution = solveWith(solver, copy, probe);
+
+                        if (solution != null) {
+                            witness(solution, supported);
+                        } else if (gaveUp(solver)) {
+                            incomplete.set(true);
+                            return null;
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+        try {
+            for (Future<Void> done : executor.invokeAll(tasks)) {
+                done.get();
+            }
+            lastProbeCount = probeCount.get();
+            return !incomplete.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Probe failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Solve a board with one cell set additionally.
+     *
+     * @param solver Solver of the calling thread.
+     * @param board  The Sudoku to analyze. Will not be changed.
+     * @param probe  Row, column and number of the cell to set.
+     * @return A solution, or {@code null} if there is none.
+     */
+    private static Board solveWith(SudokuSolver solver, Board board,
+                                   int[] probe) {
+        Board probed = board.clone();
+
+        try {
+            probed.setCell(Structure.ROW, probe[0], probe[1], probe[2]);
+        } catch (InvalidSudokuException e) {
+            return null;
+        }
+        return solver.findFirstSolution(probed);
+    }
+
+    /**
+     * Check, if the last solve of a solver stopped without deciding the
+     * board, e.g. at a memory limit. Solvers not reporting their outcome
+     * never give up.
+     *
+     * @param solver Solver of the calling thread.
+     * @return True iff the last solve gave up.
+     */
+    private static boolean gaveUp(SudokuSolver solver) {
+        SolveStatus status = solver.getLastStatus();
+        return status != null && !status.isDefinitive();
+    }
+
+    /**
+     * Mark all numbers of a solution as supported.
+     *
+     * @param solution  A solution of the analyzed board.
+     * @param supported Flags of the witnessed candidates.
+     */
+    private static void witness(Board solution,
+                                AtomicIntegerArray supported) {
+        int numbers = solution.getNumbers();
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                supported.set(index(numbers, row, col,
+                        solution.getCell(Structure.ROW, row, col)), 1);
+            }
+        }
+    }
+
+    /**
+     * Build the supported numbers of every empty cell.
+     *
+     * @param board     The analyzed Sudoku.
+     * @param supported Flags of the witnessed candidates.
+     * @return Supported numbers, indexed by row and column.
+     */
+    private static int[][][] collect(Board board,
+                                     AtomicIntegerArray supported) {
+        int numbers = board.getNumbers();
+        int[][][] result = new int[numbers][numbers][];
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                if (board.getCell(Structure.ROW, row, col)
+                        == Board.UNSET_CELL) {
+                    result[row][col] = new int[numbers];
+                    int count = 0;
+
+                    for (int number = 1; number <= numbers; number++) {
+                        if (supported.get(index(numbers, row, col, number))
+                                != 0) {
+                            result[row][col][count++] = number;
+                        }
+                    }
+                    result[row][col] =
+                            Arrays.copyOf(result[row][col], count);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the flag index of a candidate.
+     *
+     * @param numbers Numbers of the board.
+     * @param row     Row of the cell.
+     * @param col     Column of the cell.
+     * @param number  Candidate number.
+     * @return Index into the flags of the candidates.
+     */
+    private static int index(int numbers, int row, int col, int number) {
+        return (row * numbers + col) * numbers + number - 1;
+    }
+}
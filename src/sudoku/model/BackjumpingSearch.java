@@ -0,0 +1,528 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Search with forward checking and conflict-directed backjumping (FC-CBJ).
+ *
+ * Every removal of a candidate is recorded together with its reason, i.e. the
+ * decision level which removed it, or the learned nogood which forbade it.
+ * When a cell runs out of candidates, the union of the reasons is the
+ * conflict set, and the search jumps straight back to the deepest decision
+ * in it, skipping all decisions which did not contribute to the conflict.
+ * Optionally, conflict sets up to a given size are learned as nogoods, which
+ * prune the same combination of decisions anywhere else in the search.
+ *
+ * Level 0 holds the numbers of the initial board, decisions start at level 1.
+ */
+final class BackjumpingSearch {
+
+    /**
+     * Reason of a removal which does not depend on any decision.
+     */
+    private static final int NO_REASON = 0;
+
+    /**
+     * Geometry of the board.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Maximum size of a learned nogood, 0 disables learning.
+     */
+    private final int maxNogoodSize;
+
+    /**
+     * Candidate mask of each cell, for a set cell its candidates at the time
+     * it was set.
+     */
+    private final long[] cand;
+
+    /**
+     * Number of each cell, 0 if not yet set.
+     */
+    private final int[] value;
+
+    /**
+     * Decision level at which each cell was set.
+     */
+    private final int[] levelOf;
+
+    /**
+     * Reason of each removed candidate, indexed by cell * numbers + digit. A
+     * positive value is the deciding level, a negative value {@code -(k + 1)}
+     * refers to learned nogood {@code k}.
+     */
+    private final int[] reason;
+
+    /**
+     * Removed candidates in removal order, as cell * numbers + digit.
+     */
+    private final int[] trail;
+
+    /**
+     * Number of used entries in {@link #trail}.
+     */
+    private int trailSize;
+
+    /**
+     * First trail entry of each level.
+     */
+    private final int[] trailStart;
+
+    /**
+     * Cell decided at each level.
+     */
+    private final int[] cellAt;
+
+    /**
+     * Candidates of the decided cell, which are still to be tried per level.
+     */
+    private final long[] untried;
+
+    /**
+     * Conflict set of each level.
+     */
+    private final BitSet[] confSet;
+
+    /**
+     * Learned nogoods, each as list of cell * numbers + digit.
+     */
+    private final List<int[]> nogoods;
+
+    /**
+     * Indices of the nogoods containing each cell * numbers + digit.
+     */
+    private final List<List<Integer>> watches;
+
+    /**
+     * Number of decisions made.
+     */
+    private long nodes;
+
+    /**
+     * Receiver of the progress, or {@code null}.
+     */
+    private ProgressReporter progress;
+
+    /**
+     * Initialize search on a board.
+     *
+     * @param board         Board to solve. Will not be changed.
+     * @param maxNogoodSize Maximum size of a learned nogood, 0 disables
+     *                      learning.
+     */
+    BackjumpingSearch(Board board, int maxNogoodSize) {
+        geometry = BoardGeometry.of(board);
+        numbers = geometry.getNumbers();
+        this.maxNogoodSize = maxNogoodSize;
+        int cells = geometry.getCellCount();
+        cand = geometry.readCandidates(board);
+        value = new int[cells];
+        levelOf = new int[cells];
+        reason = new int[cells * numbers];
+        trail = new int[cells * numbers];
+        trailStart = new int[cells + 2];
+        cellAt = new int[cells + 2];
+        untried = new long[cells + 2];
+        confSet = new BitSet[cells + 2];
+        nogoods = new ArrayList<>();
+        watches = new ArrayList<>();
+
+        if (maxNogoodSize > 0) {
+            for (int i = 0; i < cells * numbers; i++) {
+                watches.add(null);
+            }
+        }
+        int[] given = geometry.readValues(board);
+
+        for (int cell = 0; cell < cells; cell++) {
+            if (given[cell] != Board.UNSET_CELL) {
+                value[cell] = given[cell];
+            }
+        }
+    }
+
+    /**
+     * Check if a board can be handled by this search.
+     *
+     * @param board Board to check.
+     * @return True, if its numbers fit into the candidate masks.
+     */
+    static boolean supports(Board board) {
+        return BoardGeometry.of(board).fitsMask();
+    }
+
+    /**
+     * Get the number of decisions made so far.
+     *
+     * @return Number of decisions.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Report the progress of the search to a reporter.
+     *
+     * @param progress Receiver of the progress, or {@code null}.
+     */
+    void setProgress(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Get the number of nogoods learned so far.
+     *
+     * @return Number of nogoods.
+     */
+    int getNogoodCount() {
+        return nogoods.size();
+    }
+
+    /**
+     * Run the search.
+     *
+     * @param onlyFirst Sets if the search stops at the first solution.
+     * @return Number of each cell for every solution found, in search order.
+     */
+    List<int[]> run(boolean onlyFirst) {
+        List<int[]> solutions = new ArrayList<>();
+        run(values -> solutions.add(values) && !onlyFirst);
+        return solutions;
+    }
+
+    /**
+     * Run the search, passing on every solution as soon as it is found.
+     *
+     * @param sink Receiver of the solutions, in search order.
+     */
+    void run(SolutionSink sink) {
+        boolean learning = maxNogoodSize > 0;
+        int level = 0;
+
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            int cell = selectCell();
+            boolean descend;
+
+            if (cell < 0) {
+                if (!sink.accept(value.clone())) {
+                    return;
+                }
+                // A solution is no conflict, hence nothing can be learned
+                // from failures which include it.
+                learning = false;
+                // Decisions set one cell each, so the last one set the only
+                // open cell. All its peers were set, thus it had exactly one
+                // candidate and there is no other value to try at this level.
+                // Going back chronologically to the previous level therefore
+                // skips no solution.
+                assert (level == 0 || untried[level] == 0);
+
+                if (level > 1) {
+                    confSet(level).set(1, level);
+                }
+                descend = false;
+            } else {
+                level++;
+                nodes++;
+
+                if (progress != null && progress.isDue(nodes)) {
+                    progress.report(nodes, level, numbers, decode());
+                }
+                cellAt[level] = cell;
+                untried[level] = cand[cell];
+                confSet(level).clear();
+                descend = tryValues(level);
+            }
+
+            while (!descend) {
+                BitSet conflict = confSet(level);
+
+                if (level > 0) {
+                    addReasons(cellAt[level], conflict);
+                }
+                conflict.clear(level);
+
+                if (learning && conflict.cardinality() <= maxNogoodSize) {
+                    learn(conflict);
+                }
+                int target = conflict.isEmpty() ? 0 : conflict.length() - 1;
+
+                if (target == 0) {
+                    return;
+                }
+                confSet(target).or(conflict);
+                confSet(target).clear(target);
+
+                while (level > target) {
+                    undoLevel(level);
+                    level--;
+                }
+                descend = tryValues(level);
+            }
+        }
+    }
+
+    /**
+     * Try the remaining candidates of the cell decided at a level, until one
+     * survives forward checking.
+     *
+     * @param level Current decision level.
+     * @return True, if a candidate was set, false if all failed.
+     */
+    private boolean tryValues(int level) {
+        int cell = cellAt[level];
+        undoLevel(level);
+
+        while (untried[level] != 0) {
+            long bit = Long.lowestOneBit(untried[level]);
+            untried[level] &= ~bit;
+
+            if (assign(level, cell, Long.numberOfTrailingZeros(bit) + 1)) {
+                return true;
+            }
+            undoLevel(level);
+        }
+        return false;
+    }
+
+    /**
+     * Select the unset cell with the fewest candidates.
+     *
+     * @return Cell index, or -1 if all cells are set.
+     */
+    private int selectCell() {
+        int best = -1;
+        int minCardinality = Integer.MAX_VALUE;
+
+        for (int cell = 0; cell < value.length; cell++) {
+            if (value[cell] == 0) {
+                int cardinality = Long.bitCount(cand[cell]);
+
+                if (cardinality < minCardinality) {
+                    minCardinality = cardinality;
+                    best = cell;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Set a cell at a level and remove its number from all peers.
+     *
+     * @param level  Current decision level.
+     * @param cell   Cell to set.
+     * @param number Number to set.
+     * @return False, if a conflict was detected. The conflict set of the level
+     *         holds the reasons then.
+     */
+    private boolean assign(int level, int cell, int number) {
+        value[cell] = number;
+        levelOf[cell] = level;
+        trailStart[level] = trailSize;
+        long bit = 1L << (number - 1);
+
+        for (int peer : geometry.peersOf(cell)) {
+            if (value[peer] == 0 && (cand[peer] & bit) != 0) {
+                if (!remove(peer, number - 1, level, level)) {
+                    return false;
+                }
+            }
+        }
+
+        if (!nogoods.isEmpty()) {
+            return checkNogoods(level, cell * numbers + number - 1);
+        }
+        return true;
+    }
+
+    /**
+     * Remove a candidate with a reason.
+     *
+     * @param cell  Cell to remove candidate of.
+     * @param digit Zero based number to remove.
+     * @param cause Reason to record.
+     * @param level Current decision level.
+     * @return False, if the cell has no candidates left.
+     */
+    private boolean remove(int cell, int digit, int cause, int level) {
+        cand[cell] &= ~(1L << digit);
+        reason[cell * numbers + digit] = cause;
+        trail[trailSize++] = cell * numbers + digit;
+
+        if (cand[cell] == 0) {
+            addReasons(cell, confSet(level));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Check the nogoods containing a freshly set candidate. A nogood with all
+     * but one of its candidates set removes the last one, a nogood with all
+     * candidates set is a conflict.
+     *
+     * @param level   Current decision level.
+     * @param literal The set candidate as cell * numbers + digit.
+     * @return False, if a conflict was detected.
+     */
+    private boolean checkNogoods(int level, int literal) {
+        List<Integer> watching = watches.get(literal);
+
+        if (watching == null) {
+            return true;
+        }
+
+        for (int k : watching) {
+            int[] nogood = nogoods.get(k);
+            int open = -1;
+            boolean inactive = false;
+
+            for (int lit : nogood) {
+                int cell = lit / numbers;
+                int digit = lit % numbers;
+
+                if (value[cell] == digit + 1) {
+                    continue;
+                }
+
+                if (value[cell] != 0 || (cand[cell] & (1L << digit)) == 0
+                        || open >= 0) {
+                    inactive = true;
+                    break;
+                }
+                open = lit;
+            }
+
+            if (inactive) {
+                continue;
+            }
+
+            if (open < 0) {
+                for (int lit : nogood) {
+                    confSet(level).set(levelOf[lit / numbers]);
+                }
+                return false;
+            }
+
+            if (!remove(open / numbers, open % numbers, -(k + 1), level)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the reasons of all removed candidates of a cell to a conflict set.
+     *
+     * @param cell     Cell to collect reasons of.
+     * @param conflict Conflict set to extend.
+     */
+    private void addReasons(int cell, BitSet conflict) {
+        for (int digit = 0; digit < numbers; digit++) {
+            int cause = reason[cell * numbers + digit];
+
+            if (cause > 0) {
+                conflict.set(cause);
+            } else if (cause < 0) {
+                int open = cell * numbers + digit;
+
+                for (int lit : nogoods.get(-cause - 1)) {
+                    if (lit != open) {
+                        conflict.set(levelOf[lit / numbers]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Learn the decisions of a conflict set as nogood.
+     *
+     * @param conflict Levels of the decisions which cannot hold together.
+     */
+    private void learn(BitSet conflict) {
+        int[] nogood = new int[conflict.cardinality()];
+        int fill = 0;
+
+        for (int level = conflict.nextSetBit(1); level >= 0;
+             level = conflict.nextSetBit(level + 1)) {
+            int cell = cellAt[level];
+            nogood[fill++] = cell * numbers + value[cell] - 1;
+        }
+
+        if (nogood.length == 0) {
+            return;
+        }
+        int k = nogoods.size();
+        nogoods.add(nogood);
+
+        for (int lit : nogood) {
+            if (watches.get(lit) == null) {
+                watches.set(lit, new ArrayList<>());
+            }
+            watches.get(lit).add(k);
+        }
+    }
+
+    /**
+     * Undo the decision of a level and every removal it caused.
+     *
+     * @param level Level to undo.
+     */
+    private void undoLevel(int level) {
+        int cell = cellAt[level];
+
+        if (value[cell] == 0) {
+            return;
+        }
+
+        while (trailSize > trailStart[level]) {
+            int lit = trail[--trailSize];
+            cand[lit / numbers] |= 1L << (lit % numbers);
+            reason[lit] = NO_REASON;
+        }
+        value[cell] = 0;
+    }
+
+    /**
+     * Get the conflict set of a level, allocating it on first use.
+     *
+     * @param level Decision level.
+     * @return The conflict set.
+     */
+    private BitSet confSet(int level) {
+        if (confSet[level] == null) {
+            confSet[level] = new BitSet();
+        }
+        return confSet[level];
+    }
+
+    /**
+     * Read the numbers of the current partial assignment.
+     *
+     * @return Number of each cell, {@link Board#UNSET_CELL} for unset cells.
+     */
+    private int[] decode() {
+        int[] values = value.clone();
+
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] == 0) {
+                values[cell] = Board.UNSET_CELL;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,465 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search specialized on classic 9x9 boards with 3x3 boxes.
+ *
+ * The candidates are stored per number and band, a band being three rows of
+ * boxes: each {@code int} holds one bit for each of the 27 cells of a band.
+ * Setting a cell removes its number from all peers with one masking per band,
+ * naked singles are found for a whole band at once by counting candidates
+ * bitwise over the nine numbers, and hidden singles by masking rows, columns
+ * and boxes out of the band words. A search state is just 30 {@code int}s,
+ * thus guessing copies a state instead of a board.
+ */
+final class Bitboard9x9Search {
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private static final int NUMBERS = 9;
+
+    /**
+     * Number of bands.
+     */
+    private static final int BANDS = 3;
+
+    /**
+     * Number of cells per band.
+     */
+    private static final int BAND_CELLS = 27;
+
+    /**
+     * Number of cells.
+     */
+    private static final int CELLS = 81;
+
+    /**
+     * Index of the first unset cell mask in a state, the candidate masks of
+     * number d and band b being at {@code d * BANDS + b} before it.
+     */
+    private static final int UNSET = NUMBERS * BANDS;
+
+    /**
+     * Length of a state.
+     */
+    private static final int STATE = UNSET + BANDS;
+
+    /**
+     * All cells of a band.
+     */
+    private static final int BAND_MASK = (1 << BAND_CELLS) - 1;
+
+    /**
+     * First row of a band.
+     */
+    private static final int ROW_MASK = (1 << NUMBERS) - 1;
+
+    /**
+     * First column of a band.
+     */
+    private static final int COL_MASK = 1 | 1 << NUMBERS | 1 << 2 * NUMBERS;
+
+    /**
+     * First box of a band.
+     */
+    private static final int BOX_MASK = 7 | 7 << NUMBERS | 7 << 2 * NUMBERS;
+
+    /**
+     * Peers of each cell as band masks, indexed by cell * BANDS + band.
+     */
+    private static final int[] PEERS = new int[CELLS * BANDS];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int other = 0; other < CELLS; other++) {
+                boolean sameRow = cell / NUMBERS == other / NUMBERS;
+                boolean sameCol = cell % NUMBERS == other % NUMBERS;
+                boolean sameBox = cell / BAND_CELLS == other / BAND_CELLS
+                        && cell % NUMBERS / BANDS == other % NUMBERS / BANDS;
+
+                if (other != cell && (sameRow || sameCol || sameBox)) {
+                    PEERS[cell * BANDS + other / BAND_CELLS] |=
+                            1 << (other % BAND_CELLS);
+                }
+            }
+        }
+    }
+
+    /**
+     * State of each search depth.
+     */
+    private final int[][] states;
+
+    /**
+     * Receiver of the found solutions.
+     */
+    private SolutionSink sink;
+
+    /**
+     * Number of guesses made.
+     */
+    private long nodes;
+
+    /**
+     * Receiver of the progress, or {@code null}.
+     */
+    private ProgressReporter progress;
+
+    /**
+     * Initialize search on a board.
+     *
+     * @param board Board to solve, must have 3x3 boxes. Will not be changed.
+     */
+    Bitboard9x9Search(Board board) {
+        assert (supports(board));
+
+        states = new int[CELLS + 1][STATE];
+        int[] root = states[0];
+        long[] masks = BoardGeometry.of(board).readCandidates(board);
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int band = cell / BAND_CELLS;
+            int bit = 1 << (cell % BAND_CELLS);
+
+            for (int d = 0; d < NUMBERS; d++) {
+                if ((masks[cell] & (1L << d)) != 0) {
+                    root[d * BANDS + band] |= bit;
+                }
+            }
+
+            if (board.getCell(Structure.ROW, cell / NUMBERS, cell % NUMBERS)
+                    == Board.UNSET_CELL) {
+                root[UNSET + band] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Check if a board has the geometry of this search.
+     *
+     * @param board Board to check.
+     * @return True, if the board is 9x9 with 3x3 boxes.
+     */
+    static boolean supports(Board board) {
+        return board.getBoxRows() == BANDS && board.getBoxColumns() == BANDS;
+    }
+
+    /**
+     * Get the number of guesses made so far.
+     *
+     * @return Number of guesses.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Report the progress of the search to a reporter.
+     *
+     * @param progress Receiver of the progress, or {@code null}.
+     */
+    void setProgress(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Run the search.
+     *
+     * @param onlyFirst Sets if the search stops at the first solution.
+     * @return Number of each cell for every solution found, in search order.
+     */
+    List<int[]> run(boolean onlyFirst) {
+        List<int[]> solutions = new ArrayList<>();
+        run(values -> solutions.add(values) && !onlyFirst);
+        return solutions;
+    }
+
+    /**
+     * Run the search, passing on every solution as soon as it is found.
+     *
+     * @param solutionSink Receiver of the solutions, in search order.
+     */
+    void run(SolutionSink solutionSink) {
+        sink = solutionSink;
+        search(0);
+    }
+
+    /**
+     * Propagate the state of a depth and guess on its best cell.
+     *
+     * @param depth Current depth.
+     * @return True, if the search is to stop.
+     */
+    private boolean search(int depth) {
+        int[] s = states[depth];
+
+        if (!propagate(s)) {
+            return false;
+        }
+
+        if ((s[UNSET] | s[UNSET + 1] | s[UNSET + 2]) == 0) {
+            return !sink.accept(decode(s));
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        int cell = selectCell(s);
+        int band = cell / BAND_CELLS;
+        int bit = 1 << (cell % BAND_CELLS);
+        int[] child = states[depth + 1];
+
+        for (int d = 0; d < NUMBERS; d++) {
+            if ((s[d * BANDS + band] & bit) != 0) {
+                nodes++;
+
+                if (progress != null && progress.isDue(nodes)) {
+                    progress.report(nodes, depth, NUMBERS, decode(s));
+                }
+                System.arraycopy(s, 0, child, 0, STATE);
+
+                if (place(child, cell, d) && search(depth + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set a cell and remove its number from all peers.
+     *
+     * @param s     State to change.
+     * @param cell  Cell to set.
+     * @param digit Zero based number to set.
+     * @return False, if the number is no candidate of the cell.
+     */
+    private static boolean place(int[] s, int cell, int digit) {
+        int band = cell / BAND_CELLS;
+        int bit = 1 << (cell % BAND_CELLS);
+        int base = digit * BANDS;
+
+        if ((s[base + band] & bit) == 0) {
+            return false;
+        }
+
+        for (int d = band; d < UNSET; d += BANDS) {
+            s[d] &= ~bit;
+        }
+        int peers = cell * BANDS;
+        s[base] &= ~PEERS[peers];
+        s[base + 1] &= ~PEERS[peers + 1];
+        s[base + 2] &= ~PEERS[peers + 2];
+        s[base + band] |= bit;
+        s[UNSET + band] &= ~bit;
+        return true;
+    }
+
+    /**
+     * Set naked and hidden singles until a fix point is reached.
+     *
+     * @param s State to change.
+     * @return False, if the state turned out to be unsolvable.
+     */
+    private static boolean propagate(int[] s) {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int band = 0; band < BANDS; band++) {
+                int unset = s[UNSET + band];
+
+                if (unset == 0) {
+                    continue;
+                }
+                int once = 0;
+                int twice = 0;
+
+                for (int d = band; d < UNSET; d += BANDS) {
+                    twice |= once & s[d];
+                    once |= s[d];
+                }
+
+                if ((unset & ~once) != 0) {
+                    return false;
+                }
+                int singles = unset & ~twice;
+
+                while (singles != 0) {
+                    int bit = singles & -singles;
+                    singles ^= bit;
+                    int digit = 0;
+
+                    while (digit < NUMBERS
+                            && (s[digit * BANDS + band] & bit) == 0) {
+                        digit++;
+                    }
+
+                    // An earlier single may have removed the last candidate.
+                    if (digit == NUMBERS || !place(s, band * BAND_CELLS
+                            + Integer.numberOfTrailingZeros(bit), digit)) {
+                        return false;
+                    }
+                    changed = true;
+                }
+            }
+
+            for (int digit = 0; digit < NUMBERS && !changed; digit++) {
+                int result = findHiddenSingle(s, digit);
+
+                if (result < 0) {
+                    return false;
+                } else if (result > 0) {
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Set the first hidden single of a number, i.e. a row, column or box with
+     * only one unset cell left for the number.
+     *
+     * @param s     State to change.
+     * @param digit Zero based number to check.
+     * @return 1 if a cell was set, 0 if none was found, -1 if a unit has no
+     *         cell left for the number.
+     */
+    private static int findHiddenSingle(int[] s, int digit) {
+        int base = digit * BANDS;
+        int b0 = s[base];
+        int b1 = s[base + 1];
+        int b2 = s[base + 2];
+
+        for (int band = 0; band < BANDS; band++) {
+            int cand = s[base + band];
+            int unset = s[UNSET + band];
+
+            for (int i = 0; i < BANDS; i++) {
+                int rowCells = cand & (ROW_MASK << (i * NUMBERS));
+                int boxCells = cand & (BOX_MASK << (i * BANDS));
+
+                if (rowCells == 0 || boxCells == 0) {
+                    return -1;
+                }
+
+                if ((rowCells & (rowCells - 1)) == 0
+                        && (rowCells & unset) != 0) {
+                    return place(s, band * BAND_CELLS
+                            + Integer.numberOfTrailingZeros(rowCells), digit)
+                            ? 1 : -1;
+                }
+
+                if ((boxCells & (boxCells - 1)) == 0
+                        && (boxCells & unset) != 0) {
+                    return place(s, band * BAND_CELLS
+                            + Integer.numberOfTrailingZeros(boxCells), digit)
+                            ? 1 : -1;
+                }
+            }
+        }
+
+        for (int col = 0; col < NUMBERS; col++) {
+            int mask = COL_MASK << col;
+            int c0 = b0 & mask;
+            int c1 = b1 & mask;
+            int c2 = b2 & mask;
+            int count = Integer.bitCount(c0) + Integer.bitCount(c1)
+                    + Integer.bitCount(c2);
+
+            if (count == 0) {
+                return -1;
+            } else if (count == 1) {
+                int band = c0 != 0 ? 0 : (c1 != 0 ? 1 : 2);
+                int cells = c0 | c1 | c2;
+
+                if ((cells & s[UNSET + band]) != 0) {
+                    return place(s, band * BAND_CELLS
+                            + Integer.numberOfTrailingZeros(cells), digit)
+                            ? 1 : -1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Select an unset cell with two candidates, or the first unset cell if
+     * there is none.
+     *
+     * @param s Current state.
+     * @return The cell.
+     */
+    private static int selectCell(int[] s) {
+        int first = -1;
+
+        for (int band = 0; band < BANDS; band++) {
+            int unset = s[UNSET + band];
+
+            if (unset == 0) {
+                continue;
+            }
+            int once = 0;
+            int twice = 0;
+            int thrice = 0;
+
+            for (int d = band; d < UNSET; d += BANDS) {
+                thrice |= twice & s[d];
+                twice |= once & s[d];
+                once |= s[d];
+            }
+            int pairs = unset & twice & ~thrice;
+
+            if (pairs != 0) {
+                return band * BAND_CELLS + Integer.numberOfTrailingZeros(pairs);
+            }
+
+            if (first < 0) {
+                first = band * BAND_CELLS
+                        + Integer.numberOfTrailingZeros(unset);
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Read the numbers of a state.
+     *
+     * @param s State, solved or partial.
+     * @return Number of each cell, {@link Board#UNSET_CELL} for unset cells.
+     */
+    private static int[] decode(int[] s) {
+        int[] values = new int[CELLS];
+
+        for (int d = 0; d < NUMBERS; d++) {
+            for (int band = 0; band < BANDS; band++) {
+                int cells = s[d * BANDS + band] & BAND_MASK;
+
+                while (cells != 0) {
+                    int bit = cells & -cells;
+                    cells ^= bit;
+                    values[band * BAND_CELLS
+                            + Integer.numberOfTrailingZeros(bit)] = d + 1;
+                }
+            }
+        }
+
+        for (int band = 0; band < BANDS; band++) {
+            int unset = s[UNSET + band];
+
+            while (unset != 0) {
+                int bit = unset & -unset;
+                unset ^= bit;
+                int cell = band * BAND_CELLS
+                        + Integer.numberOfTrailingZeros(bit);
+                values[cell] = Board.UNSET_CELL;
+            }
+        }
+        return values;
+    }
+}
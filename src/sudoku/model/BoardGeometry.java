@@ -0,0 +1,313 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed cell and unit tables for one board geometry, i.e. for one pair
+ * of box-row and box-col lengths. Cells are addressed by a single row-major
+ * index {@code row * numbers + col}, units are numbered rows first, then
+ * columns, then boxes.
+ *
+ * Instances are immutable and shared, see {@link #of(int, int)}.
+ */
+final class BoardGeometry {
+
+    /**
+     * Largest number of symbols, which fits into a candidate mask.
+     */
+    static final int MAX_MASK_NUMBERS = Long.SIZE;
+
+    /**
+     * Cache of already computed geometries, keyed by box-rows and box-cols.
+     */
+    private static final Map<Long, BoardGeometry> CACHE =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Inner box-row length.
+     */
+    private final int boxRows;
+
+    /**
+     * Inner box-col length.
+     */
+    private final int boxCols;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Number of cells of the board.
+     */
+    private final int cellCount;
+
+    /**
+     * Box number of each cell.
+     */
+    private final int[] boxOf;
+
+    /**
+     * Cell indices of each unit, rows first, then columns, then boxes.
+     */
+    private final int[][] units;
+
+    /**
+     * Cell indices of all other cells sharing a unit with each cell.
+     */
+    private final int[][] peers;
+
+    /**
+     * Construct the tables for a geometry.
+     *
+     * @param boxRows Inner box-row length.
+     * @param boxCols Inner box-col length.
+     */
+    private BoardGeometry(int boxRows, int boxCols) {
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        numbers = boxRows * boxCols;
+        cellCount = numbers * numbers;
+        boxOf = new int[cellCount];
+        final int unitTypes = 3;
+        units = new int[unitTypes * numbers][numbers];
+        int[] boxFill = new int[numbers];
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                int cell = row * numbers + col;
+                int box = (row / boxRows) * boxRows + (col / boxCols);
+                boxOf[cell] = box;
+                units[row][col] = cell;
+                units[numbers + col][row] = cell;
+                units[2 * numbers + box][boxFill[box]++] = cell;
+            }
+        }
+        peers = new int[cellCount][];
+        int peerCount = 2 * (numbers - 1) + (numbers - boxRows - boxCols + 1);
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / numbers;
+            int col = cell % numbers;
+            int[] cellPeers = new int[peerCount];
+            int fill = 0;
+
+            for (int other = 0; other < cellCount; other++) {
+                if (other != cell && (other / numbers == row
+                        || other % numbers == col
+                        || boxOf[other] == boxOf[cell])) {
+                    cellPeers[fill++] = other;
+                }
+            }
+            peers[cell] = cellPeers;
+        }
+    }
+
+    /**
+     * Get the shared geometry for the given box dimensions.
+     *
+     * @param boxRows Inner box-row length.
+     * @param boxCols Inner box-col length.
+     * @return The geometry.
+     */
+    static BoardGeometry of(int boxRows, int boxCols) {
+        long key = ((long) boxRows << Integer.SIZE) | boxCols;
+        return CACHE.computeIfAbsent(key,
+                k -> new BoardGeometry(boxRows, boxCols));
+    }
+
+    /**
+     * Get the shared geometry of a board.
+     *
+     * @param board Board to get geometry of.
+     * @return The geometry.
+     */
+    static BoardGeometry of(Board board) {
+        return of(board.getBoxRows(), board.getBoxColumns());
+    }
+
+    /**
+     * Get inner box-row length.
+     *
+     * @return Inner box-row length.
+     */
+    int getBoxRows() {
+        return boxRows;
+    }
+
+    /**
+     * Get inner box-col length.
+     *
+     * @return Inner box-col length.
+     */
+    int getBoxCols() {
+        return boxCols;
+    }
+
+    /**
+     * Get board length for row-/col-/box elements.
+     *
+     * @return Board length.
+     */
+    int getNumbers() {
+        return numbers;
+    }
+
+    /**
+     * Get number of cells.
+     *
+     * @return Number of cells.
+     */
+    int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Get box number of a cell.
+     *
+     * @param cell Cell index.
+     * @return Box number.
+     */
+    int boxOf(int cell) {
+        return boxOf[cell];
+    }
+
+    /**
+     * Get all units. The returned arrays must not be changed.
+     *
+     * @return Cell indices of each unit.
+     */
+    int[][] getUnits() {
+        return units;
+    }
+
+    /**
+     * Get the peers of a cell. The returned array must not be changed.
+     *
+     * @param cell Cell index.
+     * @return Cell indices of all cells sharing a unit with {@code cell}.
+     */
+    int[] peersOf(int cell) {
+        return peers[cell];
+    }
+
+    /**
+     * Check if candidates of this geometry fit into a {@code long} mask.
+     *
+     * @return True, if masks can be used.
+     */
+    boolean fitsMask() {
+        return numbers <= MAX_MASK_NUMBERS;
+    }
+
+    /**
+     * Read the candidates of every cell as masks, bit {@code d - 1} standing
+     * for number {@code d}. Set cells hold exactly their number.
+     *
+     * @param board Board to read.
+     * @return Candidate mask of each cell.
+     */
+    long[] readCandidates(Board board) {
+        long[] masks = new long[cellCount];
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            int row = cell / numbers;
+            int col = cell % numbers;
+            int number = board.getCell(Structure.ROW, row, col);
+
+            if (number != Board.UNSET_CELL) {
+                masks[cell] = 1L << (number - 1);
+            } else {
+                for (int po : board.getPossibilities(Structure.ROW, row,
+                        col)) {
+                    masks[cell] |= 1L << (po - 1);
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Read the numbers of every cell.
+     *
+     * @param board Board to read.
+     * @return Number of each cell, or {@link Board#UNSET_CELL}.
+     */
+    int[] readValues(Board board) {
+        int[] values = new int[cellCount];
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            values[cell] = board.getCell(Structure.ROW, cell / numbers,
+                    cell % numbers);
+        }
+        return values;
+    }
+
+    /**
+     * Write a complete assignment into a copy of a board. Cells already set on
+     * {@code board} are kept, the remaining ones are set in row-major order,
+     * thus the last cell set of the result is the last one that was empty.
+     *
+     * @param board  Board the assignment was computed for. Will not be changed.
+     * @param values Number of each cell.
+     * @return The completed copy, or {@code null} if the assignment
+     *         contradicts {@code board}.
+     */
+    Board writeSolution(Board board, int[] values) {
+        Board solution = board.clone();
+
+        try {
+            for (int cell = 0; cell < cellCount; cell++) {
+                int row = cell / numbers;
+                int col = cell % numbers;
+
+                if (solution.getCell(Structure.ROW, row, col)
+                        == Board.UNSET_CELL) {
+                    solution.setCell(Structure.ROW, row, col, values[cell]);
+                }
+            }
+        } catch (InvalidSudokuException e) {
+            return null;
+        }
+        return solution;
+    }
+
+    /**
+     * Write complete assignments into copies of a board, see
+     * {@link #writeSolution(Board, int[])}.
+     *
+     * @param board       Board the assignments were computed for. Will not be
+     *                    changed.
+     * @param assignments Number of each cell for every solution. Will not be
+     *                    changed.
+     * @param sorted      Sets if the solutions are returned in lexicographic
+     *                    order of their cells in row-major order, otherwise
+     *                    in the order of the assignments.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff there are no assignments.
+     */
+    List<Board> writeSolutions(Board board, List<int[]> assignments,
+                               boolean sorted) {
+        if (assignments.isEmpty()) {
+            return null;
+        }
+        List<int[]> ordered = assignments;
+
+        // Assignments are row-major, thus compare like their boards.
+        if (sorted) {
+            ordered = new ArrayList<>(assignments);
+            ordered.sort(Arrays::compare);
+        }
+        List<Board> solutions = new ArrayList<>(ordered.size());
+
+        for (int[] values : ordered) {
+            solutions.add(writeSolution(board, values));
+        }
+        return solutions;
+    }
+}
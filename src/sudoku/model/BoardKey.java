@@ -0,0 +1,102 @@
+package sudoku.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the cells of a {@link SudokuModel}, usable as key of
+ * hash based caches. Two keys are equal, if and only if their boards have
+ * the same geometry and the same number in every cell.
+ */
+public final class BoardKey {
+
+    /**
+     * Inner box-row length.
+     */
+    private final int boxRows;
+
+    /**
+     * Inner box-col length.
+     */
+    private final int boxCols;
+
+    /**
+     * Number of each cell in row-major order, or {@link Board#UNSET_CELL}.
+     */
+    private final int[] values;
+
+    /**
+     * Hash code of the snapshot.
+     */
+    private final int hash;
+
+    /**
+     * Construct key.
+     *
+     * @param boxRows Inner box-row length.
+     * @param boxCols Inner box-col length.
+     * @param values  Number of each cell in row-major order. Will not be
+     *                changed.
+     */
+    private BoardKey(int boxRows, int boxCols, int[] values) {
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        this.values = values;
+        hash = 31 * (31 * boxRows + boxCols) + Arrays.hashCode(values);
+    }
+
+    /**
+     * Take a snapshot of the current cells of a model.
+     *
+     * @param model Model to take a snapshot of.
+     * @return Key of the current board of {@code model}.
+     */
+    public static BoardKey of(SudokuModel model) {
+        return new BoardKey(model.getBoxRows(), model.getBoxColumns(),
+                model.getValues());
+    }
+
+    /**
+     * Check if a board agrees with every set cell of this snapshot.
+     *
+     * @param board Board to check, e.g. a solution found earlier.
+     * @return True, if {@code board} has the same geometry and holds the
+     *         number of every set cell of this snapshot.
+     */
+    public boolean agreesWith(Board board) {
+        if (board.getBoxRows() != boxRows
+                || board.getBoxColumns() != boxCols) {
+            return false;
+        }
+        int numbers = boxRows * boxCols;
+
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] != Board.UNSET_CELL
+                    && values[cell] != board.getCell(Structure.ROW,
+                    cell / numbers, cell % numbers)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BoardKey)) {
+            return false;
+        }
+        BoardKey key = (BoardKey) other;
+        return hash == key.hash && boxRows == key.boxRows
+                && boxCols == key.boxCols && Arrays.equals(values, key.values);
+    }
+}
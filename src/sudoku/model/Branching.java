@@ -0,0 +1,29 @@
+package sudoku.model;
+
+/**
+ * The different orders in which {@link SudokuBoardSolver} picks the cell to
+ * guess on in {@link SearchMode#CHRONOLOGICAL} and
+ * {@link SearchMode#MEMORY_BOUNDED} mode.
+ */
+public enum Branching {
+
+    /**
+     * Guess on the first cell with the fewest candidates, trying its
+     * candidates in ascending order.
+     */
+    MIN_REMAINING,
+
+    /**
+     * Guess on the first unset cell in row-major order, trying its candidates
+     * in ascending order.
+     */
+    ROW_MAJOR,
+
+    /**
+     * Guess on a random cell among those with the fewest candidates, trying
+     * its candidates in random order. The choices only depend on the seed,
+     * see {@link SudokuBoardSolver#setSeed(long)}.
+     */
+    RANDOM
+
+}
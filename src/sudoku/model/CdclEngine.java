@@ -0,0 +1,1084 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Self-contained conflict-driven clause learning SAT solver.
+ *
+ * Clauses are propagated with two watched literals, decisions follow VSIDS
+ * activities with phase saving, conflicts are analyzed to the first unique
+ * implication point, and the search restarts after a Luby sequence of
+ * conflicts. Learned clauses are reduced by activity from time to time.
+ *
+ * Besides clauses, at-most-one constraints over variables are supported
+ * natively. They behave like the pairwise binary clauses they stand for, but
+ * need memory linear in their size only, which matters for the unit
+ * constraints of large Sudokus.
+ *
+ * Variables are numbered from 1, literals at the interface are given in
+ * DIMACS form, i.e. {@code v} or {@code -v}.
+ */
+final class CdclEngine {
+
+    /**
+     * Reason of a decision or of a fact at level 0.
+     */
+    private static final int NO_REASON = -1;
+
+    /**
+     * Conflicts before the first restart, multiplied by the Luby sequence.
+     */
+    private static final int RESTART_BASE = 100;
+
+    /**
+     * Decay factor of variable activities.
+     */
+    private static final double VAR_DECAY = 0.95;
+
+    /**
+     * Decay factor of clause activities.
+     */
+    private static final double CLAUSE_DECAY = 0.999;
+
+    /**
+     * Activity above which all activities are scaled down.
+     */
+    private static final double RESCALE_LIMIT = 1e100;
+
+    /**
+     * Number of variables.
+     */
+    private final int varCount;
+
+    /**
+     * Value of each variable, 1 true, -1 false, 0 unassigned.
+     */
+    private final byte[] assigns;
+
+    /**
+     * Decision level of each assigned variable.
+     */
+    private final int[] level;
+
+    /**
+     * Reason of each assigned variable: a clause index, {@link #NO_REASON},
+     * or {@code -2 - p} if implied by true literal {@code p} through an
+     * at-most-one constraint.
+     */
+    private final int[] reason;
+
+    /**
+     * Saved phase of each variable.
+     */
+    private final boolean[] phase;
+
+    /**
+     * VSIDS activity of each variable.
+     */
+    private final double[] activity;
+
+    /**
+     * Increment of variable activities.
+     */
+    private double varInc;
+
+    /**
+     * Increment of clause activities.
+     */
+    private double clauseInc;
+
+    /**
+     * Decision order by activity.
+     */
+    private final VarHeap order;
+
+    /**
+     * Assigned literals in assignment order.
+     */
+    private final int[] trail;
+
+    /**
+     * Number of entries of {@link #trail}.
+     */
+    private int trailSize;
+
+    /**
+     * Next trail entry to propagate.
+     */
+    private int qhead;
+
+    /**
+     * Trail size at the start of each decision level.
+     */
+    private final int[] trailLim;
+
+    /**
+     * Current decision level.
+     */
+    private int decisionLevel;
+
+    /**
+     * Literals of all clauses, the first two are watched.
+     */
+    private final List<int[]> clauses;
+
+    /**
+     * Whether each clause was learned.
+     */
+    private final List<Boolean> learnt;
+
+    /**
+     * Activity of each clause.
+     */
+    private double[] clauseActivity;
+
+    /**
+     * Whether each clause was deleted.
+     */
+    private boolean[] deleted;
+
+    /**
+     * Clauses watching each literal.
+     */
+    private final IntList[] watches;
+
+    /**
+     * At-most-one constraints, as variables.
+     */
+    private final List<int[]> groups;
+
+    /**
+     * At-most-one constraints containing each variable.
+     */
+    private final IntList[] groupsOf;
+
+    /**
+     * Number of learned clauses, which are not deleted.
+     */
+    private int learntCount;
+
+    /**
+     * Learned clauses kept before reducing.
+     */
+    private double maxLearnts;
+
+    /**
+     * Whether the problem is still possibly satisfiable.
+     */
+    private boolean ok;
+
+    /**
+     * Literals of the last conflict.
+     */
+    private int[] conflict;
+
+    /**
+     * Clause index of the last conflict, -1 for an at-most-one conflict.
+     */
+    private int conflictIndex;
+
+    /**
+     * Marks used in conflict analysis.
+     */
+    private final boolean[] seen;
+
+    /**
+     * Model of the last satisfiable call.
+     */
+    private byte[] model;
+
+    /**
+     * Number of conflicts so far.
+     */
+    private long conflicts;
+
+    /**
+     * Number of decisions so far.
+     */
+    private long decisions;
+
+    /**
+     * Receiver of the progress, or {@code null}.
+     */
+    private ProgressReporter progress;
+
+    /**
+     * Board length for row-/col-/box elements, passed on with the progress.
+     */
+    private int progressNumbers;
+
+    /**
+     * Decoder of the current partial assignment into the number of each
+     * cell, for the progress.
+     */
+    private Supplier<int[]> progressSnapshot;
+
+    /**
+     * Create an engine without constraints.
+     *
+     * @param varCount Number of variables.
+     */
+    CdclEngine(int varCount) {
+        this.varCount = varCount;
+        int size = varCount + 1;
+        assigns = new byte[size];
+        level = new int[size];
+        reason = new int[size];
+        phase = new boolean[size];
+        activity = new double[size];
+        seen = new boolean[size];
+        trail = new int[size];
+        trailLim = new int[size];
+        varInc = 1;
+        clauseInc = 1;
+        clauses = new ArrayList<>();
+        learnt = new ArrayList<>();
+        clauseActivity = new double[16];
+        deleted = new boolean[16];
+        watches = new IntList[2 * size];
+        groups = new ArrayList<>();
+        groupsOf = new IntList[size];
+        ok = true;
+        order = new VarHeap();
+
+        for (int v = 1; v <= varCount; v++) {
+            order.insert(v);
+        }
+    }
+
+    /**
+     * Get number of conflicts so far.
+     *
+     * @return Number of conflicts.
+     */
+    long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * Get number of decisions so far.
+     *
+     * @return Number of decisions.
+     */
+    long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Report the progress of the following searches to a reporter, counting
+     * decisions as guesses and the decision level as depth.
+     *
+     * @param progress Receiver of the progress, or {@code null}.
+     * @param numbers  Board length for row-/col-/box elements.
+     * @param snapshot Decoder of the current partial assignment, see
+     *                 {@link #isTrue(int)}, into the number of each cell.
+     */
+    void setProgress(ProgressReporter progress, int numbers,
+                     Supplier<int[]> snapshot) {
+        this.progress = progress;
+        progressNumbers = numbers;
+        progressSnapshot = snapshot;
+    }
+
+    /**
+     * Add a clause. May be called between calls of {@link #solve()}.
+     *
+     * @param dimacs Literals of the clause in DIMACS form.
+     */
+    void addClause(int... dimacs) {
+        cancelUntil(0);
+
+        if (!ok) {
+            return;
+        }
+        IntList kept = new IntList();
+
+        for (int d : dimacs) {
+            int lit = toLit(d);
+            int val = value(lit);
+
+            if (val > 0) {
+                return;
+            } else if (val == 0 && !kept.contains(lit)) {
+                kept.add(lit);
+            }
+        }
+
+        if (kept.size() == 0) {
+            ok = false;
+        } else if (kept.size() == 1) {
+            enqueue(kept.get(0), NO_REASON);
+        } else {
+            attach(kept.toArray(), false);
+        }
+    }
+
+    /**
+     * Add an at-most-one constraint, i.e. at most one of the variables may be
+     * true.
+     *
+     * @param vars Variables of the constraint.
+     */
+    void addAtMostOne(int... vars) {
+        if (vars.length < 2) {
+            return;
+        }
+        int g = groups.size();
+        groups.add(vars.clone());
+
+        for (int v : vars) {
+            if (groupsOf[v] == null) {
+                groupsOf[v] = new IntList();
+            }
+            groupsOf[v].add(g);
+        }
+    }
+
+    /**
+     * Search for a satisfying assignment.
+     *
+     * @return {@code TRUE} if satisfiable, {@code FALSE} if not, {@code null}
+     *         if the calling thread was interrupted.
+     */
+    Boolean solve() {
+        cancelUntil(0);
+
+        if (!ok) {
+            return Boolean.FALSE;
+        }
+        // Units added before the first call are not propagated yet.
+        qhead = 0;
+        maxLearnts = Math.max(clauses.size() / 3.0, 1000);
+        int restart = 0;
+        long restartLimit = RESTART_BASE * luby(restart);
+        long conflictsHere = 0;
+
+        while (true) {
+            if (propagate()) {
+                conflicts++;
+                conflictsHere++;
+
+                if (decisionLevel == 0) {
+                    ok = false;
+                    return Boolean.FALSE;
+                }
+                int[] learned = analyze();
+                cancelUntil(backtrackLevel(learned));
+
+                if (learned.length == 1) {
+                    enqueue(learned[0], NO_REASON);
+                } else {
+                    int c = attach(learned, true);
+                    enqueue(learned[0], c);
+                }
+                varInc /= VAR_DECAY;
+                clauseInc /= CLAUSE_DECAY;
+
+                if (conflictsHere >= restartLimit) {
+                    cancelUntil(0);
+                    restart++;
+                    restartLimit = RESTART_BASE * luby(restart);
+                    conflictsHere = 0;
+                }
+            } else {
+                if (Thread.currentThread().isInterrupted()) {
+                    cancelUntil(0);
+                    return null;
+                }
+
+                if (learntCount - trailSize >= maxLearnts) {
+                    reduceLearnts();
+                }
+                int next = pickBranchLiteral();
+
+                if (next < 0) {
+                    model = assigns.clone();
+                    return Boolean.TRUE;
+                }
+                decisions++;
+
+                if (progress != null && progress.isDue(decisions)) {
+                    progress.report(decisions, decisionLevel,
+                            progressNumbers, progressSnapshot.get());
+                }
+                trailLim[decisionLevel++] = trailSize;
+                enqueue(next, NO_REASON);
+            }
+        }
+    }
+
+    /**
+     * Check if a variable is true in the current partial assignment.
+     *
+     * @param var The variable.
+     * @return True, if it is assigned true.
+     */
+    boolean isTrue(int var) {
+        return assigns[var] > 0;
+    }
+
+    /**
+     * Get the value of a variable in the last model.
+     *
+     * @param var The variable.
+     * @return Its value.
+     */
+    boolean modelValue(int var) {
+        return model[var] > 0;
+    }
+
+    /**
+     * Propagate all enqueued literals.
+     *
+     * @return True, if a conflict was found, see {@link #conflict}.
+     */
+    private boolean propagate() {
+        while (qhead < trailSize) {
+            int p = trail[qhead++];
+            int var = p >> 1;
+
+            if ((p & 1) == 0 && groupsOf[var] != null) {
+                for (int i = 0; i < groupsOf[var].size(); i++) {
+                    for (int other : groups.get(groupsOf[var].get(i))) {
+                        if (other == var || assigns[other] < 0) {
+                            continue;
+                        }
+
+                        if (assigns[other] > 0) {
+                            conflict = new int[] {p ^ 1, (other << 1) | 1};
+                            conflictIndex = -1;
+                            return true;
+                        }
+                        enqueue((other << 1) | 1, -2 - p);
+                    }
+                }
+            }
+
+            if (propagateClauses(p ^ 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visit the clauses watching a literal which just became false.
+     *
+     * @param falseLit The false literal.
+     * @return True, if a conflict was found.
+     */
+    private boolean propagateClauses(int falseLit) {
+        IntList ws = watches[falseLit];
+
+        if (ws == null) {
+            return false;
+        }
+        int kept = 0;
+        int i = 0;
+
+        while (i < ws.size()) {
+            int c = ws.get(i++);
+
+            if (deleted[c]) {
+                continue;
+            }
+            int[] lits = clauses.get(c);
+
+            if (lits[0] == falseLit) {
+                lits[0] = lits[1];
+                lits[1] = falseLit;
+            }
+
+            if (value(lits[0]) > 0) {
+                ws.set(kept++, c);
+                continue;
+            }
+            boolean moved = false;
+
+            for (int k = 2; k < lits.length; k++) {
+                if (value(lits[k]) >= 0) {
+                    lits[1] = lits[k];
+                    lits[k] = falseLit;
+                    watch(lits[1], c);
+                    moved = true;
+                    break;
+                }
+            }
+
+            if (moved) {
+                continue;
+            }
+            ws.set(kept++, c);
+
+            if (value(lits[0]) < 0) {
+                conflict = lits;
+                conflictIndex = c;
+
+                while (i < ws.size()) {
+                    ws.set(kept++, ws.get(i++));
+                }
+                ws.shrink(kept);
+                return true;
+            }
+            enqueue(lits[0], c);
+        }
+        ws.shrink(kept);
+        return false;
+    }
+
+    /**
+     * Analyze the last conflict to the first unique implication point.
+     *
+     * @return The learned clause, asserting literal first.
+     */
+    private int[] analyze() {
+        IntList out = new IntList();
+        out.add(0);
+        int pathCount = 0;
+        int p = -1;
+        int index = trailSize - 1;
+        int[] lits = conflict;
+        bumpClause(conflictIndex);
+
+        do {
+            for (int j = p < 0 ? 0 : 1; j < lits.length; j++) {
+                int q = lits[j];
+                int v = q >> 1;
+
+                if (!seen[v] && level[v] > 0) {
+                    bumpVar(v);
+                    seen[v] = true;
+
+                    if (level[v] >= decisionLevel) {
+                        pathCount++;
+                    } else {
+                        out.add(q);
+                    }
+                }
+            }
+
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            p = trail[index--];
+            seen[p >> 1] = false;
+            pathCount--;
+
+            if (pathCount > 0) {
+                lits = reasonLits(p);
+                bumpClause(reason[p >> 1]);
+            }
+        } while (pathCount > 0);
+        out.set(0, p ^ 1);
+        int[] full = out.toArray();
+
+        // Drop literals implied by the other ones.
+        int kept = 1;
+
+        for (int j = 1; j < full.length; j++) {
+            if (!redundant(full[j])) {
+                out.set(kept++, full[j]);
+            }
+        }
+
+        for (int j = 1; j < full.length; j++) {
+            seen[full[j] >> 1] = false;
+        }
+        out.shrink(kept);
+        return out.toArray();
+    }
+
+    /**
+     * Check if a literal of a learned clause is implied by the others.
+     *
+     * @param q The literal.
+     * @return True, if all literals of its reason are in the clause.
+     */
+    private boolean redundant(int q) {
+        int v = q >> 1;
+
+        if (reason[v] == NO_REASON) {
+            return false;
+        }
+        int[] lits = reasonLits(q ^ 1);
+
+        for (int j = 1; j < lits.length; j++) {
+            int u = lits[j] >> 1;
+
+            if (!seen[u] && level[u] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the reason of a true literal as clause, with the literal first.
+     *
+     * @param p The true literal.
+     * @return The literals of its reason.
+     */
+    private int[] reasonLits(int p) {
+        int r = reason[p >> 1];
+
+        if (r >= 0) {
+            return clauses.get(r);
+        }
+        return new int[] {p, (-2 - r) ^ 1};
+    }
+
+    /**
+     * Move the literal of the highest level below the current one to the
+     * second position of a learned clause.
+     *
+     * @param learned The learned clause.
+     * @return The level to backtrack to.
+     */
+    private int backtrackLevel(int[] learned) {
+        if (learned.length == 1) {
+            return 0;
+        }
+        int max = 1;
+
+        for (int j = 2; j < learned.length; j++) {
+            if (level[learned[j] >> 1] > level[learned[max] >> 1]) {
+                max = j;
+            }
+        }
+        int tmp = learned[1];
+        learned[1] = learned[max];
+        learned[max] = tmp;
+        return level[learned[1] >> 1];
+    }
+
+    /**
+     * Pick the unassigned variable with the highest activity.
+     *
+     * @return Literal to decide, or -1 if all variables are assigned.
+     */
+    private int pickBranchLiteral() {
+        while (!order.isEmpty()) {
+            int v = order.removeMax();
+
+            if (assigns[v] == 0) {
+                return (v << 1) | (phase[v] ? 0 : 1);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Undo all assignments above a decision level.
+     *
+     * @param target Level to keep.
+     */
+    private void cancelUntil(int target) {
+        if (decisionLevel <= target) {
+            return;
+        }
+
+        for (int i = trailSize - 1; i >= trailLim[target]; i--) {
+            int v = trail[i] >> 1;
+            phase[v] = (trail[i] & 1) == 0;
+            assigns[v] = 0;
+
+            if (!order.contains(v)) {
+                order.insert(v);
+            }
+        }
+        trailSize = trailLim[target];
+        qhead = trailSize;
+        decisionLevel = target;
+    }
+
+    /**
+     * Assign a literal to true.
+     *
+     * @param p     The literal.
+     * @param cause Its reason.
+     */
+    private void enqueue(int p, int cause) {
+        int v = p >> 1;
+        assigns[v] = (byte) ((p & 1) == 0 ? 1 : -1);
+        level[v] = decisionLevel;
+        reason[v] = cause;
+        trail[trailSize++] = p;
+    }
+
+    /**
+     * Store a clause and watch its first two literals.
+     *
+     * @param lits     Literals of the clause.
+     * @param isLearnt Whether the clause was learned.
+     * @return Index of the clause.
+     */
+    private int attach(int[] lits, boolean isLearnt) {
+        int c = clauses.size();
+        clauses.add(lits);
+        learnt.add(isLearnt);
+
+        if (c == deleted.length) {
+            deleted = Arrays.copyOf(deleted, 2 * c);
+            clauseActivity = Arrays.copyOf(clauseActivity, 2 * c);
+        }
+
+        if (isLearnt) {
+            learntCount++;
+            clauseActivity[c] = clauseInc;
+        }
+        watch(lits[0], c);
+        watch(lits[1], c);
+        return c;
+    }
+
+    /**
+     * Add a clause to the watch list of a literal.
+     *
+     * @param lit Watched literal.
+     * @param c   Clause index.
+     */
+    private void watch(int lit, int c) {
+        if (watches[lit] == null) {
+            watches[lit] = new IntList();
+        }
+        watches[lit].add(c);
+    }
+
+    /**
+     * Delete the less active half of the learned clauses, which are not
+     * reasons of current assignments.
+     */
+    private void reduceLearnts() {
+        IntList candidates = new IntList();
+
+        for (int c = 0; c < clauses.size(); c++) {
+            int[] lits = clauses.get(c);
+
+            if (learnt.get(c) && !deleted[c] && lits.length > 2
+                    && reason[lits[0] >> 1] != c) {
+                candidates.add(c);
+            }
+        }
+        int[] sorted = candidates.toArray();
+        Integer[] boxed = new Integer[sorted.length];
+
+        for (int j = 0; j < sorted.length; j++) {
+            boxed[j] = sorted[j];
+        }
+        Arrays.sort(boxed, (a, b) -> Double.compare(clauseActivity[a],
+                clauseActivity[b]));
+
+        for (int j = 0; j < boxed.length / 2; j++) {
+            deleted[boxed[j]] = true;
+            learntCount--;
+        }
+        maxLearnts *= 1.1;
+    }
+
+    /**
+     * Increase the activity of a variable.
+     *
+     * @param v The variable.
+     */
+    private void bumpVar(int v) {
+        activity[v] += varInc;
+
+        if (activity[v] > RESCALE_LIMIT) {
+            for (int u = 1; u <= varCount; u++) {
+                activity[u] /= RESCALE_LIMIT;
+            }
+            varInc /= RESCALE_LIMIT;
+        }
+
+        if (order.contains(v)) {
+            order.increased(v);
+        }
+    }
+
+    /**
+     * Increase the activity of a learned clause.
+     *
+     * @param c Clause index, ignored if negative or not learned.
+     */
+    private void bumpClause(int c) {
+        if (c < 0 || !learnt.get(c)) {
+            return;
+        }
+        clauseActivity[c] += clauseInc;
+
+        if (clauseActivity[c] > RESCALE_LIMIT) {
+            for (int k = 0; k < clauses.size(); k++) {
+                clauseActivity[k] /= RESCALE_LIMIT;
+            }
+            clauseInc /= RESCALE_LIMIT;
+        }
+    }
+
+    /**
+     * Get the value of a literal.
+     *
+     * @param lit The literal.
+     * @return 1 if true, -1 if false, 0 if unassigned.
+     */
+    private int value(int lit) {
+        int val = assigns[lit >> 1];
+        return (lit & 1) == 0 ? val : -val;
+    }
+
+    /**
+     * Convert a DIMACS literal.
+     *
+     * @param dimacs Literal in DIMACS form.
+     * @return Internal literal.
+     */
+    private static int toLit(int dimacs) {
+        return dimacs > 0 ? dimacs << 1 : ((-dimacs) << 1) | 1;
+    }
+
+    /**
+     * Get an element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+     *
+     * @param i Zero based index.
+     * @return The element.
+     */
+    static long luby(int i) {
+        int size = 1;
+        int seq = 0;
+
+        while (size < i + 1) {
+            seq++;
+            size = 2 * size + 1;
+        }
+        int x = i;
+
+        while (size - 1 != x) {
+            size = (size - 1) >> 1;
+            seq--;
+            x = x % size;
+        }
+        return 1L << seq;
+    }
+
+    /**
+     * Growable list of {@code int} values.
+     */
+    static final class IntList {
+
+        /**
+         * Stored values.
+         */
+        private int[] data = new int[4];
+
+        /**
+         * Number of stored values.
+         */
+        private int size;
+
+        /**
+         * Append a value.
+         *
+         * @param x The value.
+         */
+        void add(int x) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, 2 * size);
+            }
+            data[size++] = x;
+        }
+
+        /**
+         * Get a value.
+         *
+         * @param i Index of the value.
+         * @return The value.
+         */
+        int get(int i) {
+            return data[i];
+        }
+
+        /**
+         * Replace a value.
+         *
+         * @param i Index of the value.
+         * @param x The new value.
+         */
+        void set(int i, int x) {
+            data[i] = x;
+        }
+
+        /**
+         * Get number of values.
+         *
+         * @return Number of values.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Drop all values from an index on.
+         *
+         * @param newSize New number of values.
+         */
+        void shrink(int newSize) {
+            size = newSize;
+        }
+
+        /**
+         * Check if a value is stored.
+         *
+         * @param x The value.
+         * @return True, if found.
+         */
+        boolean contains(int x) {
+            for (int i = 0; i < size; i++) {
+                if (data[i] == x) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Copy the values.
+         *
+         * @return Array of the values.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Binary max-heap of variables ordered by activity.
+     */
+    private final class VarHeap {
+
+        /**
+         * Heap of variables.
+         */
+        private final int[] heap = new int[varCount + 1];
+
+        /**
+         * Position of each variable in the heap, -1 if absent.
+         */
+        private final int[] pos = new int[varCount + 1];
+
+        /**
+         * Number of variables in the heap.
+         */
+        private int size;
+
+        /**
+         * Construct empty heap.
+         */
+        VarHeap() {
+            Arrays.fill(pos, -1);
+        }
+
+        /**
+         * Check if empty.
+         *
+         * @return True, if empty.
+         */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Check if a variable is in the heap.
+         *
+         * @param v The variable.
+         * @return True, if contained.
+         */
+        boolean contains(int v) {
+            return pos[v] >= 0;
+        }
+
+        /**
+         * Insert a variable.
+         *
+         * @param v The variable.
+         */
+        void insert(int v) {
+            heap[size] = v;
+            pos[v] = size;
+            size++;
+            up(pos[v]);
+        }
+
+        /**
+         * Restore heap order after the activity of a variable increased.
+         *
+         * @param v The variable.
+         */
+        void increased(int v) {
+            up(pos[v]);
+        }
+
+        /**
+         * Remove the variable with the highest activity.
+         *
+         * @return The variable.
+         */
+        int removeMax() {
+            int top = heap[0];
+            size--;
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            pos[top] = -1;
+
+            if (size > 0) {
+                down(0);
+            }
+            return top;
+        }
+
+        /**
+         * Move an entry up.
+         *
+         * @param i Position of the entry.
+         */
+        private void up(int i) {
+            int v = heap[i];
+
+            while (i > 0 && activity[heap[(i - 1) >> 1]] < activity[v]) {
+                heap[i] = heap[(i - 1) >> 1];
+                pos[heap[i]] = i;
+                i = (i - 1) >> 1;
+            }
+            heap[i] = v;
+            pos[v] = i;
+        }
+
+        /**
+         * Move an entry down.
+         *
+         * @param i Position of the entry.
+         */
+        private void down(int i) {
+            int v = heap[i];
+
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+
+                if (child + 1 < size
+                        && activity[heap[child + 1]] > activity[heap[child]]) {
+                    child++;
+                }
+
+                if (activity[heap[child]] <= activity[v]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                pos[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = v;
+            pos[v] = i;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package sudoku.model;
+
+import java.math.BigInteger;
+
+/**
+ * A {@link SudokuSolver}, which can also count the solutions of a board
+ * without enumerating them.
+ */
+public interface CountingSudokuSolver extends SudokuSolver {
+
+    /**
+     * Counts all solutions for a given Sudoku puzzle. The count equals the
+     * size of {@link #findAllSolutions(Board)}, but is also available for
+     * boards with far too many solutions to list, like empty ones.
+     *
+     * @param board The Sudoku to count the solutions of. Will not be changed.
+     * @return Number of solutions of {@code board}, or {@code null} if
+     *         counting was interrupted or needed too much memory, see
+     *         {@link #getLastStatus()}.
+     */
+    BigInteger countSolutions(Board board);
+
+}
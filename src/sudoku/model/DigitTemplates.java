@@ -0,0 +1,235 @@
+package sudoku.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Placement templates of single numbers. A template is one valid placement of
+ * a number on the whole board, i.e. one cell per row, column and box, stored
+ * as bitboard of {@code long} words over the row-major cell indices. Template
+ * arrays are flat, template {@code i} occupying the words
+ * {@code i * words} to {@code (i + 1) * words - 1}.
+ *
+ * The complete table of a geometry is built on first use and cached, if it
+ * has at most {@link #MAX_CACHED_TEMPLATES} templates. Larger geometries
+ * have their templates enumerated per board, restricted to the candidates.
+ */
+final class DigitTemplates {
+
+    /**
+     * Largest table cached per geometry. Classic 9x9 boards have 46656
+     * templates, 16x16 boards far too many.
+     */
+    static final int MAX_CACHED_TEMPLATES = 1 << 16;
+
+    /**
+     * Marker of geometries with too many templates to cache.
+     */
+    private static final long[] TOO_LARGE = new long[0];
+
+    /**
+     * Cached complete tables, or {@link #TOO_LARGE}.
+     */
+    private static final Map<BoardGeometry, long[]> TABLES =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Geometry of the templates.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Cells allowed for the number of each row, as column masks.
+     */
+    private final long[] allowedCols;
+
+    /**
+     * Maximum number of templates to enumerate.
+     */
+    private final int limit;
+
+    /**
+     * Enumerated templates.
+     */
+    private long[] data;
+
+    /**
+     * Number of enumerated templates.
+     */
+    private int count;
+
+    /**
+     * Template being built.
+     */
+    private final long[] current;
+
+    /**
+     * Prepare an enumeration.
+     *
+     * @param geometry    Geometry of the templates.
+     * @param allowedCols Cells allowed for the number of each row, as column
+     *                    masks.
+     * @param limit       Maximum number of templates to enumerate.
+     */
+    private DigitTemplates(BoardGeometry geometry, long[] allowedCols,
+                           int limit) {
+        this.geometry = geometry;
+        this.allowedCols = allowedCols;
+        this.limit = limit;
+        data = new long[wordsOf(geometry) * Math.min(limit, Short.MAX_VALUE)];
+        current = new long[wordsOf(geometry)];
+    }
+
+    /**
+     * Get the number of words of one template.
+     *
+     * @param geometry Geometry of the templates.
+     * @return Number of {@code long} words.
+     */
+    static int wordsOf(BoardGeometry geometry) {
+        return (geometry.getCellCount() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Get the templates of one number on a board, i.e. those only using cells
+     * which have the number as candidate.
+     *
+     * @param geometry   Geometry of the board, must fit masks.
+     * @param candidates Candidate mask of each cell, see
+     *                   {@link BoardGeometry#readCandidates(Board)}.
+     * @param digit      Zero based number.
+     * @param limit      Maximum number of templates.
+     * @return The flat templates, or {@code null} if there are more than
+     *         {@code limit}.
+     */
+    static long[] forDigit(BoardGeometry geometry, long[] candidates,
+                           int digit, int limit) {
+        int numbers = geometry.getNumbers();
+        int words = wordsOf(geometry);
+        long[] allowed = new long[words];
+        long[] allowedCols = new long[numbers];
+
+        for (int cell = 0; cell < candidates.length; cell++) {
+            if ((candidates[cell] & (1L << digit)) != 0) {
+                allowed[cell / Long.SIZE] |= 1L << cell;
+                allowedCols[cell / numbers] |= 1L << (cell % numbers);
+            }
+        }
+        long[] table = TABLES.computeIfAbsent(geometry,
+                DigitTemplates::buildTable);
+
+        if (table != TOO_LARGE) {
+            return filter(table, words, allowed, limit);
+        }
+        DigitTemplates builder =
+                new DigitTemplates(geometry, allowedCols, limit);
+        return builder.enumerate(0, 0, 0)
+                ? Arrays.copyOf(builder.data, builder.count * words) : null;
+    }
+
+    /**
+     * Build the complete table of a geometry.
+     *
+     * @param geometry Geometry of the templates.
+     * @return The flat templates, or {@link #TOO_LARGE}.
+     */
+    private static long[] buildTable(BoardGeometry geometry) {
+        if (!geometry.fitsMask()) {
+            return TOO_LARGE;
+        }
+        long[] allowedCols = new long[geometry.getNumbers()];
+        Arrays.fill(allowedCols, -1L);
+        DigitTemplates builder = new DigitTemplates(geometry, allowedCols,
+                MAX_CACHED_TEMPLATES);
+
+        if (!builder.enumerate(0, 0, 0)) {
+            return TOO_LARGE;
+        }
+        return Arrays.copyOf(builder.data, builder.count * wordsOf(geometry));
+    }
+
+    /**
+     * Select the templates of a table which only use allowed cells.
+     *
+     * @param table   Flat templates.
+     * @param words   Number of words of one template.
+     * @param allowed Allowed cells.
+     * @param limit   Maximum number of templates.
+     * @return The selected flat templates, or {@code null} if there are more
+     *         than {@code limit}.
+     */
+    private static long[] filter(long[] table, int words, long[] allowed,
+                                 int limit) {
+        long[] selected = new long[table.length];
+        int fill = 0;
+
+        for (int t = 0; t < table.length; t += words) {
+            long outside = 0;
+
+            for (int w = 0; w < words; w++) {
+                outside |= table[t + w] & ~allowed[w];
+            }
+
+            if (outside == 0) {
+                if (fill / words == limit) {
+                    return null;
+                }
+                System.arraycopy(table, t, selected, fill, words);
+                fill += words;
+            }
+        }
+        return Arrays.copyOf(selected, fill);
+    }
+
+    /**
+     * Enumerate the templates row by row.
+     *
+     * @param row     Row to place the number in.
+     * @param colUsed Columns already holding the number.
+     * @param boxUsed Boxes already holding the number.
+     * @return False, if the limit was exceeded.
+     */
+    private boolean enumerate(int row, long colUsed, long boxUsed) {
+        int numbers = geometry.getNumbers();
+
+        if (row == numbers) {
+            if (count == limit) {
+                return false;
+            }
+            int words = current.length;
+
+            if ((count + 1) * words > data.length) {
+                data = Arrays.copyOf(data, 2 * data.length);
+            }
+            System.arraycopy(current, 0, data, count * words, words);
+            count++;
+            return true;
+        }
+        long cols = allowedCols[row] & ~colUsed;
+
+        if (numbers < Long.SIZE) {
+            cols &= (1L << numbers) - 1;
+        }
+
+        while (cols != 0) {
+            int col = Long.numberOfTrailingZeros(cols);
+            cols &= cols - 1;
+            int cell = row * numbers + col;
+            long box = 1L << geometry.boxOf(cell);
+
+            if ((boxUsed & box) != 0) {
+                continue;
+            }
+            current[cell / Long.SIZE] |= 1L << cell;
+            boolean ok = enumerate(row + 1, colUsed | (1L << col),
+                    boxUsed | box);
+            current[cell / Long.SIZE] &= ~(1L << cell);
+
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
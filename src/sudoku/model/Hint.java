@@ -0,0 +1,86 @@
+package sudoku.model;
+
+/**
+ * A suggested number for an empty cell, found by {@link HintFinder}.
+ */
+public final class Hint {
+
+    /**
+     * Row of the cell.
+     */
+    private final int row;
+
+    /**
+     * Column of the cell.
+     */
+    private final int col;
+
+    /**
+     * Suggested number.
+     */
+    private final int number;
+
+    /**
+     * Reasoning behind the hint.
+     */
+    private final HintKind kind;
+
+    /**
+     * Construct hint.
+     *
+     * @param row    Row of the cell.
+     * @param col    Column of the cell.
+     * @param number Suggested number.
+     * @param kind   Reasoning behind the hint.
+     */
+    public Hint(int row, int col, int number, HintKind kind) {
+        this.row = row;
+        this.col = col;
+        this.number = number;
+        this.kind = kind;
+    }
+
+    /**
+     * Get row of the cell.
+     *
+     * @return Row index.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Get column of the cell.
+     *
+     * @return Column index.
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Get suggested number.
+     *
+     * @return Number for the cell.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Get reasoning behind the hint.
+     *
+     * @return Kind of the hint.
+     */
+    public HintKind getKind() {
+        return kind;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return kind + ": " + number + " at (" + row + ", " + col + ")";
+    }
+}
@@ -0,0 +1,203 @@
+package sudoku.model;
+
+/**
+ * Finds the next number to suggest for a board, trying the cheapest
+ * reasoning first: a naked single, i.e. a cell with one candidate left, then
+ * a hidden single, i.e. a number with one cell left in a row, column or box.
+ * Both are found by one pass over the candidate masks of the board, without
+ * any search.
+ *
+ * Only if no single exists, the number is looked up in a solution. The last
+ * solution is cached and reused as long as it agrees with every set cell of
+ * the board, in which case it is a solution of that board as well, thus
+ * following hints do not search again.
+ */
+public class HintFinder {
+
+    /**
+     * Solver for boards without singles.
+     */
+    private final SudokuSolver solver;
+
+    /**
+     * Last solution, or {@code null}.
+     */
+    private volatile Board cachedSolution;
+
+    /**
+     * Construct hint finder.
+     *
+     * @param solver Solver for boards without singles.
+     */
+    public HintFinder(SudokuSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * Find a hint, solving the board if neither a single nor a cached
+     * solution is available.
+     *
+     * @param board The Sudoku to find a hint for. Will not be changed.
+     * @return Hint for an empty cell, or {@code null} if {@code board} is
+     *         complete or not solvable.
+     */
+    public Hint findHint(Board board) {
+        Hint hint = findDeduction(board);
+
+        if (hint == null) {
+            hint = findCachedHint(board);
+        }
+
+        if (hint == null && !board.isSolution()) {
+            Board solution = solver.findFirstSolution(board);
+
+            if (solution != null) {
+                cacheSolution(solution);
+                hint = findCachedHint(board);
+            }
+        }
+        return hint;
+    }
+
+    /**
+     * Find a naked or hidden single.
+     *
+     * @param board The Sudoku to find a hint for. Will not be changed.
+     * @return Hint for an empty cell, or {@code null} if there is no single,
+     *         the board contradicts itself or is too large for candidate
+     *         masks.
+     */
+    public Hint findDeduction(Board board) {
+        BoardGeometry geometry = BoardGeometry.of(board);
+
+        if (!geometry.fitsMask()) {
+            return null;
+        }
+        int numbers = geometry.getNumbers();
+        long[] masks = geometry.readCandidates(board);
+        int[] values = geometry.readValues(board);
+        long all = numbers == Long.SIZE ? -1L : (1L << numbers) - 1;
+        Hint naked = null;
+
+        for (int cell = 0; cell < masks.length; cell++) {
+            if (values[cell] == Board.UNSET_CELL) {
+                if (masks[cell] == 0) {
+                    return null;
+                } else if (naked == null && Long.bitCount(masks[cell]) == 1) {
+                    naked = toHint(numbers, cell, masks[cell],
+                            HintKind.NAKED_SINGLE);
+                }
+            }
+        }
+        Hint hidden = null;
+
+        for (int[] unit : geometry.getUnits()) {
+            long placed = 0;
+            long once = 0;
+            long twice = 0;
+
+            for (int cell : unit) {
+                if (values[cell] == Board.UNSET_CELL) {
+                    twice |= once & masks[cell];
+                    once |= masks[cell];
+                } else {
+                    placed |= masks[cell];
+                }
+            }
+
+            if ((placed | once) != all) {
+                return null;
+            }
+            long singles = once & ~twice & ~placed;
+
+            if (hidden == null && singles != 0) {
+                long bit = Long.lowestOneBit(singles);
+
+                for (int cell : unit) {
+                    if (values[cell] == Board.UNSET_CELL
+                            && (masks[cell] & bit) != 0) {
+                        hidden = toHint(numbers, cell, bit,
+                                HintKind.HIDDEN_SINGLE);
+                        break;
+                    }
+                }
+            }
+        }
+        return naked != null ? naked : hidden;
+    }
+
+    /**
+     * Find a hint in the cached solution, for the empty cell with the fewest
+     * candidates.
+     *
+     * @param board The Sudoku to find a hint for. Will not be changed.
+     * @return Hint for an empty cell, or {@code null} if there is no cached
+     *         solution of {@code board}.
+     */
+    public Hint findCachedHint(Board board) {
+        Board solution = cachedSolution;
+
+        if (solution == null || solution.getBoxRows() != board.getBoxRows()
+                || solution.getBoxColumns() != board.getBoxColumns()) {
+            return null;
+        }
+        int numbers = board.getNumbers();
+        int bestRow = -1;
+        int bestCol = -1;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                int number = board.getCell(Structure.ROW, row, col);
+
+                if (number == Board.UNSET_CELL) {
+                    int count = board.getPossibilities(Structure.ROW, row,
+                            col).length;
+
+                    if (count < bestCount) {
+                        bestRow = row;
+                        bestCol = col;
+                        bestCount = count;
+                    }
+                } else if (number != solution.getCell(Structure.ROW, row,
+                        col)) {
+                    return null;
+                }
+            }
+        }
+
+        if (bestRow < 0) {
+            return null;
+        }
+        return new Hint(bestRow, bestCol,
+                solution.getCell(Structure.ROW, bestRow, bestCol),
+                HintKind.SOLUTION);
+    }
+
+    /**
+     * Cache a solution for following hints, e.g. one computed in the
+     * background.
+     *
+     * @param solution A solved board, or {@code null} to clear the cache.
+     */
+    public void cacheSolution(Board solution) {
+        assert (solution == null || solution.isSolution());
+
+        cachedSolution = solution;
+    }
+
+    /**
+     * Build a hint from a candidate mask.
+     *
+     * @param numbers Numbers of the board.
+     * @param cell    Cell index.
+     * @param bit     Mask holding the suggested number only.
+     * @param kind    Reasoning behind the hint.
+     * @return The hint.
+     */
+    private static Hint toHint(int numbers, int cell, long bit,
+                               HintKind kind) {
+        return new Hint(cell / numbers, cell % numbers,
+                Long.numberOfTrailingZeros(bit) + 1, kind);
+    }
+}
@@ -0,0 +1,24 @@
+package sudoku.model;
+
+/**
+ * Reasoning behind a {@link Hint}, from the cheapest deduction to looking up
+ * a solution.
+ */
+public enum HintKind {
+
+    /**
+     * The cell has only one candidate left.
+     */
+    NAKED_SINGLE,
+
+    /**
+     * The number has only one cell left in a row, column or box.
+     */
+    HIDDEN_SINGLE,
+
+    /**
+     * No single was found, the number was taken from a solution.
+     */
+    SOLUTION
+
+}
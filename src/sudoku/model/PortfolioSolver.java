@@ -0,0 +1,408 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Sudoku solver, which races several named solver configurations on separate
+ * threads. The result of the member finishing first with a complete search
+ * is returned, all other members are interrupted and awaited. Members must
+ * stop cooperatively when interrupted, as the solvers of this package do by
+ * checking the interrupt flag of their thread while searching.
+ *
+ * To keep results repeatable whichever member wins, all members must find
+ * the same first solution of every board, e.g. the lexicographically first
+ * one, which {@link SudokuBoardSolver} finds with
+ * {@link Branching#ROW_MAJOR} in {@link SearchMode#CHRONOLOGICAL} or
+ * {@link SearchMode#MEMORY_BOUNDED} mode, whatever its solution strategies.
+ * All solutions are the same for every member anyway, and are returned in
+ * lexicographic order.
+ */
+public class PortfolioSolver implements SudokuSolver {
+
+    /**
+     * Time to wait for the members of a race to stop after interrupting
+     * them, in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 1000;
+
+    /**
+     * Names of the members, in order of addition.
+     */
+    private final List<String> names;
+
+    /**
+     * Solvers of the members, in order of addition.
+     */
+    private final List<SudokuSolver> members;
+
+    /**
+     * Maximum number of members running at the same time.
+     */
+    private int threads;
+
+    /**
+     * Name of the member, which won the last race.
+     */
+    private volatile String lastWinner;
+
+    /**
+     * Outcome of the last race.
+     */
+    private volatile SolveStatus lastStatus;
+
+    /**
+     * Executor of the last race, if its members did not stop in time.
+     */
+    private ExecutorService stragglers;
+
+    /**
+     * Construct portfolio-solver without members, running up to one member per
+     * available processor.
+     */
+    public PortfolioSolver() {
+        names = new ArrayList<>();
+        members = new ArrayList<>();
+        threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Add a member to the portfolio. A member must not be used by other
+     * threads while this portfolio is solving.
+     *
+     * @param name   Unique name of the member.
+     * @param solver Configured solver of the member, finding the same first
+     *               solution as all other members and stopping when its
+     *               thread is interrupted.
+     * @throws IllegalArgumentException A member with that name exists.
+     */
+    public void addMember(String name, SudokuSolver solver) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Member " + name
+                    + " already exists.");
+        }
+        names.add(name);
+        members.add(solver);
+    }
+
+    /**
+     * Get names of all members.
+     *
+     * @return Names, in order of addition.
+     */
+    public List<String> getMemberNames() {
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Get maximum number of members running at the same time.
+     *
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set maximum number of members running at the same time. If there are
+     * more members, the remaining ones start in order of addition as soon as
+     * others finish.
+     *
+     * @param threads Number of threads, at least 1.
+     */
+    public void setThreads(int threads) {
+        assert (threads >= 1);
+
+        this.threads = threads;
+    }
+
+    /**
+     * Get the member, whose result was returned by the last finished call.
+     *
+     * @return Name of the winning member, or {@code null} if no race has
+     *         finished yet or the last one was interrupted.
+     */
+    public String getLastWinner() {
+        return lastWinner;
+    }
+
+    /**
+     * Get outcome of the last race. If no member finished definitively, this
+     * is the outcome of the first member to finish.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet.
+     */
+    @Override
+    public SolveStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Registers a solution strategy at every member.
+     *
+     * @param saturator A solution strategy.
+     */
+    @Override
+    public void addSaturator(Saturator saturator) {
+        for (SudokuSolver member : members) {
+            member.addSaturator(saturator);
+        }
+    }
+
+    /**
+     * Applies the solution strategies of the first member.
+     *
+     * @param board The Sudoku puzzle on which the solution strategies will be
+     *              applied. Will not be changed.
+     * @return A saturated version of {@code board}.
+     * @throws IllegalStateException The portfolio has no members.
+     */
+    @Override
+    public Board saturate(Board board) {
+        if (members.isEmpty()) {
+            throw new IllegalStateException("Portfolio has no members.");
+        }
+        return members.get(0).saturate(board);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Repeatable only if all members find the same first solution.
+     */
+    @Override
+    public Board findFirstSolution(Board board) {
+        return race(member -> member.findFirstSolution(board));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The solutions of the winning member are sorted lexicographically, thus
+     * their order does not depend on the winner.
+     */
+    @Override
+    public List<Board> findAllSolutions(Board board) {
+        return sortSolutions(board,
+                race(member -> member.findAllSolutions(board)));
+    }
+
+    /**
+     * Sort solutions in lexicographic order of their cells in row-major
+     * order.
+     *
+     * @param board     Board the solutions were found for.
+     * @param solutions Solutions to sort, or {@code null}.
+     * @return The sorted solutions, or {@code null} if there are none.
+     */
+    private static List<Board> sortSolutions(Board board,
+                                             List<Board> solutions) {
+        if (solutions == null || solutions.size() < 2) {
+            return solutions;
+        }
+        BoardGeometry geometry = BoardGeometry.of(board);
+        List<int[]> assignments = new ArrayList<>(solutions.size());
+
+        for (Board solution : solutions) {
+            assignments.add(geometry.readValues(solution));
+        }
+        return geometry.writeSolutions(board, assignments, true);
+    }
+
+    /**
+     * Run a task on all members and return the first definitive result. A
+     * result is definitive unless its member was interrupted or reports an
+     * incomplete search by {@link SudokuSolver#getLastStatus()}. Members with
+     * other results are passed over for the next member to finish. Before
+     * returning, all other members are interrupted and awaited for up to
+     * {@value #STOP_TIMEOUT} milliseconds, thus the members can be raced
+     * again right away if they stopped in time.
+     *
+     * @param task Task to run on each member.
+     * @param <T>  Type of the result.
+     * @return The result of the first member to finish definitively, or
+     *         {@code null} if no member did or the calling thread was
+     *         interrupted.
+     * @throws IllegalStateException The portfolio has no members, all
+     *                               members failed, or members of the last
+     *                               race are still running.
+     */
+    private <T> T race(Function<SudokuSolver, T> task) {
+        if (members.isEmpty()) {
+            throw new IllegalStateException("Portfolio has no members.");
+        }
+
+        if (stragglers != null) {
+            if (!stragglers.isTerminated()) {
+                throw new IllegalStateException("Members of the last race"
+                        + " are still running.");
+            }
+            stragglers = null;
+        }
+        lastWinner = null;
+        lastStatus = null;
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, members.size()), runnable -> {
+                    Thread thread = new Thread(runnable, "portfolio");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        CompletionService<Outcome<T>> completion =
+                new ExecutorCompletionService<>(executor);
+        Map<Future<Outcome<T>>, String> running = new HashMap<>();
+
+        try {
+            for (int i = 0; i < members.size(); i++) {
+                SudokuSolver member = members.get(i);
+                running.put(completion.submit(() -> run(member, task)),
+                        names.get(i));
+            }
+            Throwable failure = null;
+            boolean answered = false;
+
+            for (int i = 0; i < members.size(); i++) {
+                Future<Outcome<T>> done = completion.take();
+
+                try {
+                    Outcome<T> outcome = done.get();
+
+                    if (outcome.isDefinitive()) {
+                        lastWinner = running.get(done);
+                        lastStatus = outcome.status;
+                        return outcome.result;
+                    }
+
+                    if (!answered) {
+                        lastStatus = outcome.status;
+                    }
+                    answered = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+
+            if (answered) {
+                return null;
+            }
+            throw new IllegalStateException("All portfolio members failed.",
+                    failure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastStatus = SolveStatus.CANCELLED;
+            return null;
+        } finally {
+            executor.shutdownNow();
+
+            if (!awaitStopped(executor)) {
+                stragglers = executor;
+            }
+        }
+    }
+
+    /**
+     * Run a task on a member and determine the outcome.
+     *
+     * @param member Member to run the task on.
+     * @param task   Task to run.
+     * @param <T>    Type of the result.
+     * @return Result of the member.
+     */
+    private static <T> Outcome<T> run(SudokuSolver member,
+                                      Function<SudokuSolver, T> task) {
+        T result = task.apply(member);
+        SolveStatus status = member.getLastStatus();
+
+        if (Thread.currentThread().isInterrupted()) {
+            status = SolveStatus.CANCELLED;
+        } else if (status == null) {
+            status = result == null ? SolveStatus.NO_SOLUTION
+                    : SolveStatus.SOLVED;
+        }
+        return new Outcome<>(result, status);
+    }
+
+    /**
+     * Wait up to {@value #STOP_TIMEOUT} milliseconds until all members of a
+     * race have stopped, even if the calling thread is interrupted meanwhile.
+     * Members stop soon after being interrupted, and must not overlap with
+     * the next race, since solvers are not thread-safe. A member ignoring
+     * interrupts is left running rather than blocking the caller.
+     *
+     * @param executor Executor of the race, already shut down.
+     * @return True, if all members stopped in time.
+     */
+    private static boolean awaitStopped(ExecutorService executor) {
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT);
+        boolean interrupted = false;
+
+        while (!executor.isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+
+            if (remaining <= 0) {
+                break;
+            }
+
+            try {
+                executor.awaitTermination(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return executor.isTerminated();
+    }
+
+    /**
+     * Result of one member in a race.
+     *
+     * @param <T> Type of the result.
+     */
+    private static final class Outcome<T> {
+
+        /**
+         * Result returned by the member.
+         */
+        private final T result;
+
+        /**
+         * Status of the search, which produced the result.
+         */
+        private final SolveStatus status;
+
+        /**
+         * Construct outcome.
+         *
+         * @param result Result returned by the member.
+         * @param status Status of the search.
+         */
+        private Outcome(T result, SolveStatus status) {
+            this.result = result;
+            this.status = status;
+        }
+
+        /**
+         * Check, if the result is complete, rather than cut short.
+         *
+         * @return True iff the search finished.
+         */
+        private boolean isDefinitive() {
+            return status.isDefinitive();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package sudoku.model;
+
+/**
+ * Receiver of the progress of a running search, see
+ * {@link AbstractSudokuSolver#setProgressListener(ProgressListener)}.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Receive the progress of the search. Called on the solving thread, thus
+     * it should return quickly.
+     *
+     * @param progress State of the search.
+     */
+    void progress(SolverProgress progress);
+
+}
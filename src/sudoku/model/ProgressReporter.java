@@ -0,0 +1,78 @@
+package sudoku.model;
+
+/**
+ * Throttle between a search and its {@link ProgressListener}. The searches
+ * ask {@link #isDue(long)} after every guess, which only reads the clock
+ * every {@value #CHECK_NODES} guesses, and build the snapshot of their
+ * partial board only when a report is due. Reporting thus does not slow the
+ * search down noticeably.
+ */
+final class ProgressReporter {
+
+    /**
+     * Number of guesses between two looks at the clock, a power of two.
+     */
+    static final int CHECK_NODES = 256;
+
+    /**
+     * Receiver of the reports.
+     */
+    private final ProgressListener listener;
+
+    /**
+     * Minimum time between two reports, in nanoseconds.
+     */
+    private final long intervalNanos;
+
+    /**
+     * Start of the search, in nanoseconds.
+     */
+    private final long start;
+
+    /**
+     * Earliest time of the next report, in nanoseconds.
+     */
+    private long nextReport;
+
+    /**
+     * Construct reporter for a search starting now.
+     *
+     * @param listener       Receiver of the reports.
+     * @param intervalMillis Minimum time between two reports, in
+     *                       milliseconds.
+     */
+    ProgressReporter(ProgressListener listener, long intervalMillis) {
+        this.listener = listener;
+        intervalNanos = intervalMillis * 1_000_000L;
+        start = System.nanoTime();
+        nextReport = start + intervalNanos;
+    }
+
+    /**
+     * Check if a report is due.
+     *
+     * @param nodes Number of guesses made so far.
+     * @return True, if the search is to call
+     *         {@link #report(long, int, int, int[])}.
+     */
+    boolean isDue(long nodes) {
+        return (nodes & (CHECK_NODES - 1)) == 0
+                && System.nanoTime() >= nextReport;
+    }
+
+    /**
+     * Report the progress of the search.
+     *
+     * @param nodes   Number of guesses made so far.
+     * @param depth   Number of guesses on the current path.
+     * @param numbers Board length for row-/col-/box elements.
+     * @param values  Number of each cell of the current partial board, not
+     *                used by the search afterwards.
+     */
+    void report(long nodes, int depth, int numbers, int[] values) {
+        long now = System.nanoTime();
+        nextReport = now + intervalNanos;
+        listener.progress(new SolverProgress(nodes, depth,
+                (now - start) / 1_000_000L, numbers, values));
+    }
+}
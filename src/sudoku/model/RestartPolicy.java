@@ -0,0 +1,92 @@
+package sudoku.model;
+
+/**
+ * Schedule of node budgets for restarting a randomized search, see
+ * {@link SudokuBoardSolver#setRestartPolicy(RestartPolicy)}. A run which
+ * exceeds its budget is abandoned and the search starts over with a new seed
+ * and the next budget. Since the budgets grow without bound, a solution is
+ * found eventually if one exists.
+ *
+ * Instances are immutable.
+ */
+public final class RestartPolicy {
+
+    /**
+     * Sets if budgets follow the Luby sequence, else a geometric one.
+     */
+    private final boolean luby;
+
+    /**
+     * Budget of the first run, in nodes.
+     */
+    private final long firstBudget;
+
+    /**
+     * Growth of the budget per restart for the geometric schedule.
+     */
+    private final double factor;
+
+    /**
+     * Construct restart policy.
+     *
+     * @param luby        Sets if budgets follow the Luby sequence.
+     * @param firstBudget Budget of the first run, in nodes.
+     * @param factor      Growth of the budget per restart, if geometric.
+     */
+    private RestartPolicy(boolean luby, long firstBudget, double factor) {
+        this.luby = luby;
+        this.firstBudget = firstBudget;
+        this.factor = factor;
+    }
+
+    /**
+     * Create a policy whose budgets are multiples of the Luby sequence
+     * 1, 1, 2, 1, 1, 2, 4, ... which is within a logarithmic factor of the
+     * optimal schedule without knowing anything about the runtime
+     * distribution.
+     *
+     * @param unit Budget of a sequence element 1, in nodes, at least 1.
+     * @return The policy.
+     */
+    public static RestartPolicy luby(long unit) {
+        assert (unit >= 1);
+
+        return new RestartPolicy(true, unit, 1);
+    }
+
+    /**
+     * Create a policy whose budgets grow geometrically.
+     *
+     * @param firstBudget Budget of the first run, in nodes, at least 1.
+     * @param factor      Growth of the budget per restart, greater than 1.
+     * @return The policy.
+     */
+    public static RestartPolicy geometric(long firstBudget, double factor) {
+        assert (firstBudget >= 1 && factor > 1);
+
+        return new RestartPolicy(false, firstBudget, factor);
+    }
+
+    /**
+     * Get node budget of a run.
+     *
+     * @param restart Number of restarts before the run.
+     * @return Maximum number of nodes of the run.
+     */
+    public long getBudget(int restart) {
+        if (luby) {
+            return firstBudget * CdclEngine.luby(restart);
+        }
+        double budget = firstBudget * Math.pow(factor, restart);
+        return budget >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) budget;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return luby ? "luby(" + firstBudget + ")"
+                : "geometric(" + firstBudget + ", " + factor + ")";
+    }
+}
@@ -0,0 +1,171 @@
+package sudoku.model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sudoku solver, which encodes a board as propositional formula and solves it
+ * with the built-in CDCL engine. Scales to much larger boards than the board
+ * copying depth first search of {@link SudokuBoardSolver}.
+ *
+ * Registered solution strategies are applied once before encoding, which
+ * shrinks the formula.
+ */
+public class SatSudokuSolver extends AbstractSudokuSolver {
+
+    /**
+     * File to write the formula of every solved board to, or {@code null}.
+     */
+    private File cnfDumpFile;
+
+    /**
+     * Outcome of the last solve.
+     */
+    private SolveStatus lastStatus;
+
+    /**
+     * Construct sat-sudoku-solver.
+     */
+    public SatSudokuSolver() {
+        super();
+    }
+
+    /**
+     * Get file the formulas are written to.
+     *
+     * @return The dump file, or {@code null} if formulas are not written.
+     */
+    public File getCnfDumpFile() {
+        return cnfDumpFile;
+    }
+
+    /**
+     * Set file to write the formula of every following solved board to, in
+     * DIMACS CNF format. An existing file is overwritten.
+     *
+     * @param cnfDumpFile The dump file, or {@code null} to stop writing.
+     */
+    public void setCnfDumpFile(File cnfDumpFile) {
+        this.cnfDumpFile = cnfDumpFile;
+    }
+
+    /**
+     * Write the formula of a board in DIMACS CNF format. Registered solution
+     * strategies are applied first, like when solving.
+     *
+     * @param board Board to encode. Will not be changed.
+     * @param out   Writer to write to, will not be closed.
+     * @throws IOException Exception regarding output errors.
+     */
+    public void writeCnf(Board board, Writer out) throws IOException {
+        Board boardClone = board.clone();
+        saturateInPlace(boardClone);
+        new SudokuCnf(boardClone).writeDimacs(out);
+    }
+
+    /**
+     * Get outcome of the last solve.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet.
+     */
+    @Override
+    public SolveStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Solves board and records the outcome.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> solve(Board board, boolean onlyFirst) {
+        lastStatus = null;
+        List<Board> solutions = search(board, onlyFirst);
+
+        if (lastStatus == null) {
+            lastStatus = outcomeOf(solutions, onlyFirst);
+        }
+        return solutions;
+    }
+
+    /**
+     * Solves board by the CDCL engine.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> search(Board board, boolean onlyFirst) {
+        if (!saturateInPlace(board)) {
+            return null;
+        }
+        SudokuCnf cnf = new SudokuCnf(board);
+
+        if (cnfDumpFile != null) {
+            dump(cnf);
+        }
+        CdclEngine engine = cnf.createEngine();
+        engine.setProgress(createProgressReporter(), board.getNumbers(),
+                () -> cnf.decodePartial(engine));
+        BoardGeometry geometry = BoardGeometry.of(board);
+        List<int[]> assignments = new ArrayList<>();
+
+        while (Boolean.TRUE.equals(engine.solve())) {
+            int[] values = cnf.decode(engine);
+            assignments.add(values);
+
+            if (onlyFirst) {
+                break;
+            }
+            engine.addClause(cnf.blockingClause(values));
+        }
+        return geometry.writeSolutions(board, assignments, true);
+    }
+
+    /**
+     * Write a formula to the dump file.
+     *
+     * @param cnf Formula to write.
+     */
+    private void dump(SudokuCnf cnf) {
+        try (Writer out = new BufferedWriter(new FileWriter(cnfDumpFile))) {
+            cnf.writeDimacs(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board findFirstSolution(Board board) {
+        Board boardClone = board.clone();
+        List<Board> firstSolution = solve(boardClone, true);
+
+        if (firstSolution == null) {
+            return null;
+        } else {
+            return firstSolution.get(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Board> findAllSolutions(Board board) {
+        Board boardClone = board.clone();
+        return solve(boardClone, false);
+    }
+}
@@ -0,0 +1,43 @@
+package sudoku.model;
+
+/**
+ * The different backtracking strategies of {@link SudokuBoardSolver}.
+ */
+public enum SearchMode {
+
+    /**
+     * Depth first search on board copies. After a failure the next sibling of
+     * the failed guess is tried, i.e. backtracking is chronological.
+     */
+    CHRONOLOGICAL,
+
+    /**
+     * Forward checking with conflict-directed backjumping. The reason of each
+     * removed candidate is recorded, and after a failure the search returns
+     * directly to the deepest guess responsible for it. Small conflicts can
+     * be learned as nogoods, see
+     * {@link SudokuBoardSolver#setMaxNogoodSize(int)}. Boards with more than
+     * 64 numbers are solved chronologically instead.
+     */
+    BACKJUMPING,
+
+    /**
+     * Depth first search on compact states, which keep the candidate mask of
+     * every cell and, per unit and number, the mask of positions open for the
+     * number. Eliminations and hidden single scans work on whole runs of
+     * unit masks at once, which pays off on large boards. Boards with more
+     * than 64 numbers are solved chronologically instead.
+     */
+    UNIT_MASKS,
+
+    /**
+     * Depth first search like {@link #CHRONOLOGICAL}, but the untried guesses
+     * are kept as choice points (cell and remaining numbers) on one board per
+     * open level, instead of as one board per guess. The last guess of a
+     * level reuses its board. If more boards would be needed than allowed,
+     * see {@link SudokuBoardSolver#setMaxLiveBoards(int)}, the search stops
+     * with {@link SolveStatus#FRONTIER_LIMIT}.
+     */
+    MEMORY_BOUNDED
+
+}
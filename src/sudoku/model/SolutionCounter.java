@@ -0,0 +1,655 @@
+package sudoku.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact solution counting by dynamic programming over the cells, band by
+ * band, within a band stack by stack, i.e. box by box.
+ *
+ * Which numbers may still be placed only depends on the numbers used by
+ * every column, by the rows of the current band and by the current box. A
+ * state stores, per number, its signature: the set of these units already
+ * holding it. Numbers which are not given on any remaining cell are
+ * interchangeable, so a state is the sorted multiset of their signatures,
+ * which merges all states equal up to relabeling into one symmetry class.
+ * Placing one of {@code k} interchangeable numbers then leads to the same
+ * class {@code k} times. Numbers given on a remaining cell keep their
+ * identity until their last given cell is passed.
+ *
+ * Once no givens remain, a state after a completed row of a box is moreover
+ * equivalent to the states obtained by permuting the columns within each
+ * stack, the stacks of the band which are equally far filled, and the rows
+ * of the band which are equally far filled. Such states are merged by
+ * replacing each with its least permutation, e.g. the states after the first
+ * band of a 9x9 board fall into 44 classes.
+ *
+ * Boards with up to {@value #ID_SHIFT} units per signature are supported,
+ * i.e. up to 49 numbers for square boxes. Given numbers keep states apart,
+ * thus only sparse boards are supported, and a count gives up once the
+ * states of one step would not fit the heap. With a heap of 1.5 GB, the
+ * empty 9x9 board fits, needing about 2 million states per step.
+ */
+final class SolutionCounter {
+
+    /**
+     * Flag of a signature, whose number keeps its identity.
+     */
+    private static final long NAMED = 1L << (Long.SIZE - 1);
+
+    /**
+     * Position of the number of a named signature.
+     */
+    private static final int ID_SHIFT = 57;
+
+    /**
+     * Mask of the number of a named signature, after shifting.
+     */
+    private static final int ID_MASK = (1 << (Long.SIZE - 1 - ID_SHIFT)) - 1;
+
+    /**
+     * Mask of the unit bits of a signature.
+     */
+    private static final long UNITS = (1L << ID_SHIFT) - 1;
+
+    /**
+     * Maximum number of permutations tried on a state.
+     */
+    private static final int MAX_SYMMETRIES = 1 << 12;
+
+    /**
+     * Estimated bytes of a state besides its signatures, i.e. its object,
+     * map entry and weight.
+     */
+    private static final int STATE_BYTES = 128;
+
+    /**
+     * Number of steps, whose states are held at the same time while merging
+     * symmetric states.
+     */
+    private static final int LIVE_LAYERS = 3;
+
+    /**
+     * Minimum share of open cells of a supported board.
+     */
+    private static final double MIN_OPEN_RATIO = 0.75;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Inner box-row length.
+     */
+    private final int boxRows;
+
+    /**
+     * Inner box-col length.
+     */
+    private final int boxCols;
+
+    /**
+     * Number of stacks.
+     */
+    private final int stacks;
+
+    /**
+     * Number of cells.
+     */
+    private final int cellCount;
+
+    /**
+     * Maximum number of states of one step, such that the live layers fit
+     * the maximum heap size.
+     */
+    private final int maxStates;
+
+    /**
+     * Signature bits of the units of the cell visited at each step.
+     */
+    private final long[] units;
+
+    /**
+     * Signature bits of the units completed at each step.
+     */
+    private final long[] done;
+
+
+    /**
+     * Given number of the cell visited at each step, 0-based, or -1.
+     */
+    private final int[] given;
+
+    /**
+     * Sets for each step if it visits the last given of its number.
+     */
+    private final boolean[] lastGiven;
+
+    /**
+     * Numbers given on peers of the cell visited at each step, 0-based bits.
+     */
+    private final long[] givenOnPeers;
+
+    /**
+     * Permutations of the columns within a stack, as table from the column
+     * bits of a stack to the permuted bits.
+     */
+    private final int[][] columnTables;
+
+    /**
+     * Permutations keeping the rest of a blank board after each step, or
+     * {@code null} if there are too many to try or the step does not
+     * complete a row of a box.
+     */
+    private final Symmetries[] symmetries;
+
+    /**
+     * Initial state.
+     */
+    private final State initial;
+
+    /**
+     * Initialize counting on a board.
+     *
+     * @param board Board to count, must be supported. Will not be changed.
+     */
+    SolutionCounter(Board board) {
+        assert (supports(board));
+
+        BoardGeometry geometry = BoardGeometry.of(board);
+        numbers = geometry.getNumbers();
+        boxRows = geometry.getBoxRows();
+        boxCols = geometry.getBoxCols();
+        stacks = numbers / boxCols;
+        cellCount = geometry.getCellCount();
+        maxStates = (int) Math.min(Integer.MAX_VALUE,
+                Runtime.getRuntime().maxMemory() / LIVE_LAYERS
+                        / (STATE_BYTES + (long) Long.BYTES * numbers));
+        units = new long[cellCount];
+        done = new long[cellCount];
+        symmetries = new Symmetries[cellCount];
+        given = new int[cellCount];
+        lastGiven = new boolean[cellCount];
+        givenOnPeers = new long[cellCount];
+        int[] values = geometry.readValues(board);
+        int[] stepOf = new int[cellCount];
+        long boxBit = 1L << (numbers + boxRows);
+        long rowBits = ((1L << boxRows) - 1) << numbers;
+        columnTables = bitTables(permutations(new int[] {boxCols}), boxCols);
+        int step = 0;
+
+        for (int band = 0; band < numbers / boxRows; band++) {
+            for (int stack = 0; stack < stacks; stack++) {
+                for (int r = 0; r < boxRows; r++) {
+                    for (int c = 0; c < boxCols; c++) {
+                        int col = stack * boxCols + c;
+                        int cell = (band * boxRows + r) * numbers + col;
+                        stepOf[cell] = step;
+                        units[step] = (1L << col) | (1L << (numbers + r))
+                                | boxBit;
+                        given[step] = values[cell] == Board.UNSET_CELL ? -1
+                                : values[cell] - 1;
+                        step++;
+                    }
+                    symmetries[step - 1] = symmetries(stack, r + 1);
+                }
+                done[step - 1] = boxBit;
+            }
+            done[step - 1] |= rowBits;
+        }
+        int[] last = new int[numbers];
+        Arrays.fill(last, -1);
+
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (values[cell] != Board.UNSET_CELL) {
+                int number = values[cell] - 1;
+                last[number] = Math.max(last[number], stepOf[cell]);
+
+                for (int peer : geometry.peersOf(cell)) {
+                    givenOnPeers[stepOf[peer]] |= 1L << number;
+                }
+            }
+        }
+        long[] digits = new long[numbers];
+
+        for (int d = 0; d < numbers; d++) {
+            if (last[d] >= 0) {
+                lastGiven[last[d]] = true;
+                digits[d] = NAMED | ((long) d << ID_SHIFT);
+            }
+        }
+        Arrays.sort(digits);
+        initial = new State(digits);
+    }
+
+    /**
+     * Get the permutations keeping the rest of a blank board, after a row of
+     * a box was filled.
+     *
+     * @param stack      Stack of the box.
+     * @param filledRows Number of filled rows of the box.
+     * @return The permutations, or {@code null} if there are too many.
+     */
+    private Symmetries symmetries(int stack, int filledRows) {
+        int[] rowBlocks;
+        int[] stackBlocks;
+
+        if (filledRows < boxRows) {
+            rowBlocks = new int[] {filledRows, boxRows - filledRows};
+            stackBlocks = new int[] {stack, 1, stacks - stack - 1};
+        } else if (stack < stacks - 1) {
+            rowBlocks = new int[] {boxRows};
+            stackBlocks = new int[] {stack + 1, stacks - stack - 1};
+        } else {
+            // The band is complete, its row bits are dropped already.
+            rowBlocks = new int[boxRows];
+            Arrays.fill(rowBlocks, 1);
+            stackBlocks = new int[] {stacks};
+        }
+        double count = Math.pow(columnTables.length, stacks)
+                * countPermutations(rowBlocks)
+                * countPermutations(stackBlocks);
+
+        if (count > MAX_SYMMETRIES) {
+            return null;
+        }
+        return new Symmetries(
+                bitTables(permutations(rowBlocks), boxRows),
+                permutations(stackBlocks).toArray(new int[0][]));
+    }
+
+    /**
+     * Check if a board fits the signatures of this counter and is sparse
+     * enough, i.e. at least {@value #MIN_OPEN_RATIO} of its cells are open.
+     *
+     * @param board Board to check.
+     * @return True, if the board can be counted.
+     */
+    static boolean supports(Board board) {
+        if (board.getNumbers() + board.getBoxRows() + 1 > ID_SHIFT) {
+            return false;
+        }
+        int open = 0;
+
+        for (int value : BoardGeometry.of(board).readValues(board)) {
+            if (value == Board.UNSET_CELL) {
+                open++;
+            }
+        }
+        int cells = board.getNumbers() * board.getNumbers();
+        return open >= MIN_OPEN_RATIO * cells;
+    }
+
+    /**
+     * Count the solutions.
+     *
+     * @return Number of solutions, or {@code null} if interrupted or the
+     *         states of a step exceeded the memory limit.
+     */
+    BigInteger count() {
+        Map<State, BigInteger> layer = new HashMap<>();
+        layer.put(initial, BigInteger.ONE);
+
+        for (int step = 0; step < cellCount && !layer.isEmpty(); step++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            Map<State, BigInteger> next = new HashMap<>();
+
+            for (Map.Entry<State, BigInteger> entry : layer.entrySet()) {
+                expand(step, entry.getKey().digits, entry.getValue(), next);
+
+                if (next.size() > maxStates) {
+                    return null;
+                }
+            }
+            layer = next;
+
+            if (symmetries[step] != null) {
+                layer = mergeSymmetric(symmetries[step], layer);
+            }
+        }
+        BigInteger total = BigInteger.ZERO;
+
+        for (BigInteger count : layer.values()) {
+            total = total.add(count);
+        }
+        return total;
+    }
+
+    /**
+     * Place every possible number on the cell of a step.
+     *
+     * @param step   Step index.
+     * @param digits Signatures of the state before the step, sorted.
+     * @param weight Number of ways to reach the state.
+     * @param next   Receives the following states with their weights.
+     */
+    private void expand(int step, long[] digits, BigInteger weight,
+                        Map<State, BigInteger> next) {
+        long cellUnits = units[step];
+
+        for (int i = 0; i < digits.length; i++) {
+            long digit = digits[i];
+
+            if ((i > 0 && digits[i - 1] == digit)
+                    || (digit & cellUnits) != 0) {
+                continue;
+            }
+            boolean named = (digit & NAMED) != 0;
+            int id = (int) (digit >>> ID_SHIFT) & ID_MASK;
+
+            if (given[step] >= 0 ? !named || id != given[step]
+                    : named && (givenOnPeers[step] & (1L << id)) != 0) {
+                continue;
+            }
+            int same = 1;
+
+            while (i + same < digits.length && digits[i + same] == digit) {
+                same++;
+            }
+            long[] child = digits.clone();
+            child[i] = digit | cellUnits;
+
+            if (lastGiven[step]) {
+                child[i] &= UNITS;
+            }
+
+            for (int j = 0; j < child.length; j++) {
+                child[j] &= ~done[step];
+            }
+            Arrays.sort(child);
+            next.merge(new State(child),
+                    weight.multiply(BigInteger.valueOf(same)),
+                    BigInteger::add);
+        }
+    }
+
+    /**
+     * Merge the states, which are permutations of each other.
+     *
+     * @param group Permutations keeping the rest of a blank board.
+     * @param layer States with their weights.
+     * @return Least permutations of the states with their weights.
+     */
+    private Map<State, BigInteger> mergeSymmetric(
+            Symmetries group, Map<State, BigInteger> layer) {
+        Map<State, BigInteger> merged = new HashMap<>();
+
+        for (Map.Entry<State, BigInteger> entry : layer.entrySet()) {
+            State state = entry.getKey();
+
+            // Named numbers sort first. Without them the rest of the board
+            // is blank, hence symmetric.
+            if (state.digits[0] >= 0) {
+                state = new State(leastPermutation(state.digits, group));
+            }
+            merged.merge(state, entry.getValue(), BigInteger::add);
+        }
+        return merged;
+    }
+
+    /**
+     * Get the least permutation of a state.
+     *
+     * @param digits Signatures without named numbers, sorted.
+     * @param group  Permutations keeping the rest of a blank board.
+     * @return Least permuted signatures, sorted.
+     */
+    private long[] leastPermutation(long[] digits, Symmetries group) {
+        int stackMask = (1 << boxCols) - 1;
+        int rowMask = (1 << boxRows) - 1;
+        long keptBits = ~((1L << numbers) - 1 | (long) rowMask << numbers);
+        long[] best = digits;
+        long[] columns = new long[digits.length];
+        long[] permuted = new long[digits.length];
+        int[] choice = new int[stacks];
+
+        for (int[] target : group.stackTargets) {
+            do {
+                for (int i = 0; i < digits.length; i++) {
+                    long signature = digits[i] & keptBits;
+
+                    for (int s = 0; s < stacks; s++) {
+                        int bits = (int) (digits[i] >>> (s * boxCols))
+                                & stackMask;
+                        signature |= (long) columnTables[choice[s]][bits]
+                                << (target[s] * boxCols);
+                    }
+                    columns[i] = signature;
+                }
+
+                for (int[] rowTable : group.rowTables) {
+                    for (int i = 0; i < digits.length; i++) {
+                        int bits = (int) (digits[i] >>> numbers) & rowMask;
+                        permuted[i] = columns[i]
+                                | (long) rowTable[bits] << numbers;
+                    }
+                    Arrays.sort(permuted);
+
+                    if (Arrays.compare(permuted, best) < 0) {
+                        best = permuted.clone();
+                    }
+                }
+            } while (nextChoice(choice, columnTables.length));
+        }
+        return best;
+    }
+
+    /**
+     * Get permutations of bits as lookup tables.
+     *
+     * @param perms Target bit of every bit, for each permutation.
+     * @param size  Number of bits.
+     * @return Permuted mask of every mask, for each permutation.
+     */
+    private static int[][] bitTables(List<int[]> perms, int size) {
+        int[][] tables = new int[perms.size()][1 << size];
+
+        for (int p = 0; p < perms.size(); p++) {
+            for (int mask = 0; mask < 1 << size; mask++) {
+                for (int bit = 0; bit < size; bit++) {
+                    if ((mask & (1 << bit)) != 0) {
+                        tables[p][mask] |= 1 << perms.get(p)[bit];
+                    }
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Get the permutations, which map consecutive blocks of elements onto
+     * themselves.
+     *
+     * @param blocks Number of elements of every block.
+     * @return Target of every element, for each permutation, the identity
+     *         first.
+     */
+    private static List<int[]> permutations(int[] blocks) {
+        List<int[]> result = new ArrayList<>();
+        result.add(new int[0]);
+        int offset = 0;
+
+        for (int block : blocks) {
+            List<int[]> extended = new ArrayList<>();
+
+            for (int[] head : result) {
+                for (int[] tail : permutations(block)) {
+                    int[] target = Arrays.copyOf(head, offset + block);
+
+                    for (int i = 0; i < block; i++) {
+                        target[offset + i] = offset + tail[i];
+                    }
+                    extended.add(target);
+                }
+            }
+            result = extended;
+            offset += block;
+        }
+        return result;
+    }
+
+    /**
+     * Get all permutations of {@code 0..size-1}.
+     *
+     * @param size Number of elements.
+     * @return The permutations, the identity first.
+     */
+    private static List<int[]> permutations(int size) {
+        List<int[]> result = new ArrayList<>();
+        int[] perm = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            perm[i] = i;
+        }
+
+        while (true) {
+            result.add(perm.clone());
+            int i = size - 2;
+
+            while (i >= 0 && perm[i] > perm[i + 1]) {
+                i--;
+            }
+
+            if (i < 0) {
+                return result;
+            }
+            int j = size - 1;
+
+            while (perm[j] < perm[i]) {
+                j--;
+            }
+            swap(perm, i, j);
+
+            for (int a = i + 1, b = size - 1; a < b; a++, b--) {
+                swap(perm, a, b);
+            }
+        }
+    }
+
+    /**
+     * Swap two array elements.
+     *
+     * @param array The array.
+     * @param i     Index of the first element.
+     * @param j     Index of the second element.
+     */
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    /**
+     * Get the number of permutations, which map consecutive blocks of
+     * elements onto themselves.
+     *
+     * @param blocks Number of elements of every block.
+     * @return Product of the factorials of the block sizes.
+     */
+    private static double countPermutations(int[] blocks) {
+        double result = 1;
+
+        for (int block : blocks) {
+            for (int i = 2; i <= block; i++) {
+                result *= i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Advance a mixed radix counter.
+     *
+     * @param choice Digits of the counter.
+     * @param radix  Radix of every digit.
+     * @return False, if the counter wrapped around.
+     */
+    private static boolean nextChoice(int[] choice, int radix) {
+        for (int i = 0; i < choice.length; i++) {
+            if (++choice[i] < radix) {
+                return true;
+            }
+            choice[i] = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Symmetry class of partial boards.
+     */
+    private static final class State {
+
+        /**
+         * Signatures of all numbers, sorted.
+         */
+        private final long[] digits;
+
+        /**
+         * Hash code of the signatures.
+         */
+        private final int hash;
+
+        /**
+         * Construct state.
+         *
+         * @param digits Signatures of all numbers, sorted.
+         */
+        private State(long[] digits) {
+            this.digits = digits;
+            hash = Arrays.hashCode(digits);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State
+                    && Arrays.equals(digits, ((State) other).digits);
+        }
+    }
+
+    /**
+     * Permutations of rows and stacks of a band, which keep the rest of a
+     * blank board. Columns may be permuted within every stack in addition.
+     */
+    private static final class Symmetries {
+
+        /**
+         * Row permutations, as table from the row bits to the permuted bits.
+         */
+        private final int[][] rowTables;
+
+        /**
+         * Stack permutations, as target stack of every stack.
+         */
+        private final int[][] stackTargets;
+
+        /**
+         * Construct permutations.
+         *
+         * @param rowTables    Row permutations as bit tables.
+         * @param stackTargets Target stack of every stack, for each stack
+         *                     permutation.
+         */
+        private Symmetries(int[][] rowTables, int[][] stackTargets) {
+            this.rowTables = rowTables;
+            this.stackTargets = stackTargets;
+        }
+    }
+}
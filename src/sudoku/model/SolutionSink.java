@@ -0,0 +1,21 @@
+package sudoku.model;
+
+/**
+ * Receiver of the solutions of an enumeration, see
+ * {@link SudokuBoardSolver#enumerateSolutions(Board, SolutionSink)}.
+ * Solutions are passed on as soon as they are found, thus an enumeration
+ * does not need to hold them in memory.
+ */
+@FunctionalInterface
+public interface SolutionSink {
+
+    /**
+     * Receive a solution.
+     *
+     * @param values Number of each cell in row-major order. The array is not
+     *               used by the enumeration afterwards.
+     * @return True to continue the enumeration, false to stop it.
+     */
+    boolean accept(int[] values);
+
+}
@@ -0,0 +1,522 @@
+package sudoku.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+
+/**
+ * Solution sink, which writes the solutions of a board to a temporary file
+ * instead of holding them in memory. Each solution is packed into
+ * {@code ceil(log2(numbers))} bits per cell, e.g. 41 bytes for a 9x9 board.
+ * The packing keeps the lexicographic order of the solutions as the unsigned
+ * byte order of their records.
+ *
+ * The stored solutions are read back by {@link #getSolutions(boolean)} as a
+ * memory-mapped list, which creates each board when it is accessed. If sorted
+ * solutions are requested and were not written in order, the file is sorted
+ * by an external merge sort, holding at most {@link #getSortMemory()} bytes of
+ * records in memory.
+ *
+ * Temporary files are deleted by {@link #close()}.
+ */
+public class SolutionStore implements SolutionSink, Closeable {
+
+    /**
+     * Default number of record bytes sorted in memory at once.
+     */
+    public static final int DEFAULT_SORT_MEMORY = 64 << 20;
+
+    /**
+     * Size of the buffer of each file stream.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Board the solutions belong to.
+     */
+    private final Board board;
+
+    /**
+     * Geometry of the board.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Number of bits per cell.
+     */
+    private final int bits;
+
+    /**
+     * Number of bytes per solution.
+     */
+    private final int recordSize;
+
+    /**
+     * Directory of the temporary files, or {@code null} for the default.
+     */
+    private final File directory;
+
+    /**
+     * All temporary files created, to be deleted on close.
+     */
+    private final List<File> tempFiles;
+
+    /**
+     * File the solutions are written to.
+     */
+    private final File file;
+
+    /**
+     * Stream to the file, or {@code null} once writing has finished.
+     */
+    private OutputStream out;
+
+    /**
+     * Last record written.
+     */
+    private byte[] lastRecord;
+
+    /**
+     * Sets if the records were written in strictly ascending order.
+     */
+    private boolean ascending;
+
+    /**
+     * Number of stored solutions.
+     */
+    private long size;
+
+    /**
+     * File holding the sorted records, or {@code null} if not sorted yet.
+     */
+    private File sortedFile;
+
+    /**
+     * Maximum number of record bytes sorted in memory at once.
+     */
+    private int sortMemory;
+
+    /**
+     * Construct solution store in the default temporary directory.
+     *
+     * @param board Board the solutions belong to. Will not be changed.
+     * @throws IOException Exception regarding output errors.
+     */
+    public SolutionStore(Board board) throws IOException {
+        this(board, null);
+    }
+
+    /**
+     * Construct solution store.
+     *
+     * @param board     Board the solutions belong to. Will not be changed.
+     * @param directory Directory of the temporary files, or {@code null} for
+     *                  the default temporary directory.
+     * @throws IOException Exception regarding output errors.
+     */
+    public SolutionStore(Board board, File directory) throws IOException {
+        this.board = board.clone();
+        this.directory = directory;
+        geometry = BoardGeometry.of(board);
+        bits = Math.max(1, Integer.SIZE
+                - Integer.numberOfLeadingZeros(geometry.getNumbers() - 1));
+        recordSize = (geometry.getCellCount() * bits + Byte.SIZE - 1)
+                / Byte.SIZE;
+        tempFiles = new ArrayList<>();
+        file = createTempFile();
+        out = new BufferedOutputStream(new FileOutputStream(file),
+                BUFFER_SIZE);
+        ascending = true;
+        sortMemory = DEFAULT_SORT_MEMORY;
+    }
+
+    /**
+     * Get maximum number of record bytes sorted in memory at once.
+     *
+     * @return Number of bytes.
+     */
+    public int getSortMemory() {
+        return sortMemory;
+    }
+
+    /**
+     * Set maximum number of record bytes sorted in memory at once. Larger
+     * values give fewer runs to merge. Defaults to
+     * {@value #DEFAULT_SORT_MEMORY}.
+     *
+     * @param sortMemory Number of bytes, at least 1.
+     */
+    public void setSortMemory(int sortMemory) {
+        assert (sortMemory >= 1);
+
+        this.sortMemory = sortMemory;
+    }
+
+    /**
+     * Get number of stored solutions.
+     *
+     * @return Number of solutions.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get number of bytes per stored solution.
+     *
+     * @return Number of bytes.
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Store a solution.
+     *
+     * @param values Number of each cell in row-major order.
+     * @return True, as long as solutions can be stored.
+     * @throws IllegalStateException The solutions were already read.
+     * @throws UncheckedIOException  Exception regarding output errors.
+     */
+    @Override
+    public boolean accept(int[] values) {
+        if (out == null) {
+            throw new IllegalStateException("Solutions were already read.");
+        }
+        byte[] record = pack(values);
+
+        if (lastRecord != null
+                && Arrays.compareUnsigned(lastRecord, record) >= 0) {
+            ascending = false;
+        }
+
+        try {
+            out.write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastRecord = record;
+        size++;
+        return true;
+    }
+
+    /**
+     * Get the stored solutions. Writing ends with the first call, further
+     * solutions are not accepted.
+     *
+     * @param sorted Sets if the solutions are returned in lexicographic order,
+     *               else in the order they were stored.
+     * @return Read-only list, which reads each solution from the mapped file
+     *         when it is accessed. Valid until this store is closed.
+     * @throws IOException Exception regarding input or output errors.
+     */
+    public List<Board> getSolutions(boolean sorted) throws IOException {
+        finishWriting();
+
+        if (!sorted || ascending) {
+            return new MappedSolutions(file);
+        }
+
+        if (sortedFile == null) {
+            sortedFile = sort();
+        }
+        return new MappedSolutions(sortedFile);
+    }
+
+    /**
+     * Delete all temporary files. Lists returned before must not be used
+     * afterwards.
+     *
+     * @throws IOException Exception regarding output errors.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finishWriting();
+        } finally {
+            for (File tempFile : tempFiles) {
+                tempFile.delete();
+            }
+            tempFiles.clear();
+        }
+    }
+
+    /**
+     * Close the stream to the solution file, if still open.
+     *
+     * @throws IOException Exception regarding output errors.
+     */
+    private void finishWriting() throws IOException {
+        if (out != null) {
+            OutputStream stream = out;
+            out = null;
+            lastRecord = null;
+            stream.close();
+        }
+    }
+
+    /**
+     * Create a temporary file, which is deleted on close.
+     *
+     * @return The file.
+     * @throws IOException Exception regarding output errors.
+     */
+    private File createTempFile() throws IOException {
+        File tempFile = File.createTempFile("sudoku-solutions", ".bin",
+                directory);
+        tempFile.deleteOnExit();
+        tempFiles.add(tempFile);
+        return tempFile;
+    }
+
+    /**
+     * Pack a solution, most significant bits first.
+     *
+     * @param values Number of each cell.
+     * @return The record.
+     */
+    private byte[] pack(int[] values) {
+        byte[] record = new byte[recordSize];
+        int bit = 0;
+
+        for (int value : values) {
+            int code = value - 1;
+
+            for (int b = bits - 1; b >= 0; b--, bit++) {
+                if ((code & (1 << b)) != 0) {
+                    record[bit / Byte.SIZE] |=
+                            (byte) (0x80 >>> (bit % Byte.SIZE));
+                }
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Unpack a solution.
+     *
+     * @param record The record.
+     * @return Number of each cell.
+     */
+    private int[] unpack(byte[] record) {
+        int[] values = new int[geometry.getCellCount()];
+        int bit = 0;
+
+        for (int cell = 0; cell < values.length; cell++) {
+            int code = 0;
+
+            for (int b = 0; b < bits; b++, bit++) {
+                code = (code << 1) | ((record[bit / Byte.SIZE]
+                        >>> (Byte.SIZE - 1 - bit % Byte.SIZE)) & 1);
+            }
+            values[cell] = code + 1;
+        }
+        return values;
+    }
+
+    /**
+     * Sort the solution file into a new file, by sorting runs of records in
+     * memory and merging all runs.
+     *
+     * @return The sorted file.
+     * @throws IOException Exception regarding input or output errors.
+     */
+    private File sort() throws IOException {
+        int runRecords = Math.max(1, sortMemory / recordSize);
+        List<File> runs = new ArrayList<>();
+
+        try (InputStream in = new BufferedInputStream(
+                new FileInputStream(file), BUFFER_SIZE)) {
+            for (long done = 0; done < size; done += runRecords) {
+                int count = (int) Math.min(runRecords, size - done);
+                byte[][] records = new byte[count][];
+
+                for (int i = 0; i < count; i++) {
+                    records[i] = in.readNBytes(recordSize);
+                }
+                Arrays.sort(records, Arrays::compareUnsigned);
+                File run = createTempFile();
+
+                try (OutputStream runOut = new BufferedOutputStream(
+                        new FileOutputStream(run), BUFFER_SIZE)) {
+                    for (byte[] record : records) {
+                        runOut.write(record);
+                    }
+                }
+                runs.add(run);
+            }
+        }
+
+        if (runs.size() == 1) {
+            return runs.get(0);
+        }
+        File merged = createTempFile();
+        merge(runs, merged);
+
+        for (File run : runs) {
+            run.delete();
+            tempFiles.remove(run);
+        }
+        return merged;
+    }
+
+    /**
+     * Merge sorted runs into one sorted file.
+     *
+     * @param runs   Files of the sorted runs.
+     * @param merged File to write the merged records to.
+     * @throws IOException Exception regarding input or output errors.
+     */
+    private void merge(List<File> runs, File merged) throws IOException {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(
+                (a, b) -> Arrays.compareUnsigned(a.head, b.head));
+        List<RunReader> readers = new ArrayList<>();
+
+        try (OutputStream mergedOut = new BufferedOutputStream(
+                new FileOutputStream(merged), BUFFER_SIZE)) {
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                readers.add(reader);
+
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+
+            while (!heads.isEmpty()) {
+                RunReader reader = heads.poll();
+                mergedOut.write(reader.head);
+
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    /**
+     * Reader of the next record of a sorted run.
+     */
+    private final class RunReader {
+
+        /**
+         * Stream of the run.
+         */
+        private final InputStream in;
+
+        /**
+         * Current record.
+         */
+        private byte[] head;
+
+        /**
+         * Open a run.
+         *
+         * @param run File of the run.
+         * @throws IOException Exception regarding input errors.
+         */
+        private RunReader(File run) throws IOException {
+            in = new BufferedInputStream(new FileInputStream(run),
+                    BUFFER_SIZE);
+        }
+
+        /**
+         * Read the next record.
+         *
+         * @return False, if the run is exhausted.
+         * @throws IOException Exception regarding input errors.
+         */
+        private boolean advance() throws IOException {
+            head = in.readNBytes(recordSize);
+            return head.length == recordSize;
+        }
+    }
+
+    /**
+     * Read-only list of the solutions in a mapped record file. The file is
+     * mapped in segments of whole records, each of at most 2 GiB.
+     */
+    private final class MappedSolutions extends AbstractList<Board>
+            implements RandomAccess {
+
+        /**
+         * Mapped segments of the file.
+         */
+        private final MappedByteBuffer[] segments;
+
+        /**
+         * Number of records per segment.
+         */
+        private final int segmentRecords;
+
+        /**
+         * Map a record file.
+         *
+         * @param records File of the records.
+         * @throws IOException Exception regarding input errors.
+         */
+        private MappedSolutions(File records) throws IOException {
+            segmentRecords = Integer.MAX_VALUE / recordSize;
+            int count = (int) ((size + segmentRecords - 1) / segmentRecords);
+            segments = new MappedByteBuffer[count];
+
+            try (FileChannel channel = FileChannel.open(records.toPath(),
+                    StandardOpenOption.READ)) {
+                for (int i = 0; i < count; i++) {
+                    long first = (long) i * segmentRecords;
+                    long length = Math.min(segmentRecords, size - first)
+                            * recordSize;
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                            first * recordSize, length);
+                }
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Board get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index
+                        + " out of " + size + " solutions.");
+            }
+            byte[] record = new byte[recordSize];
+            // A duplicate has its own position, thus reads may run
+            // concurrently.
+            ByteBuffer segment = segments[index / segmentRecords].duplicate();
+            segment.position((index % segmentRecords) * recordSize);
+            segment.get(record);
+            return geometry.writeSolution(board, unpack(record));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int size() {
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+    }
+}
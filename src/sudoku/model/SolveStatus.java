@@ -0,0 +1,49 @@
+package sudoku.model;
+
+/**
+ * Outcome of the last solve of a solver, see
+ * {@link SudokuSolver#getLastStatus()}.
+ */
+public enum SolveStatus {
+
+    /**
+     * At least one solution was found, and the search was complete as
+     * requested.
+     */
+    SOLVED,
+
+    /**
+     * The search was complete and found no solution.
+     */
+    NO_SOLUTION,
+
+    /**
+     * The solving thread was interrupted, the returned solutions may be
+     * incomplete.
+     */
+    CANCELLED,
+
+    /**
+     * The search of {@link SearchMode#MEMORY_BOUNDED} mode needed more live
+     * boards than allowed, the returned solutions may be incomplete.
+     */
+    FRONTIER_LIMIT,
+
+    /**
+     * Counting by dynamic programming needed more memory than allowed, no
+     * count was returned.
+     */
+    COUNT_LIMIT;
+
+    /**
+     * Check if the search was complete, thus a missing solution proves the
+     * board unsolvable.
+     *
+     * @return True, if the outcome is {@link #SOLVED} or
+     *         {@link #NO_SOLUTION}.
+     */
+    public boolean isDefinitive() {
+        return this == SOLVED || this == NO_SOLUTION;
+    }
+
+}
@@ -0,0 +1,28 @@
+package sudoku.model;
+
+/**
+ * The engines {@link AutoSolver} chooses from.
+ */
+public enum SolverEngine {
+
+    /**
+     * {@link SudokuBoardSolver} with its bitboard search for 9x9 boards.
+     */
+    BITBOARD,
+
+    /**
+     * {@link SudokuBoardSolver} in {@link SearchMode#UNIT_MASKS} mode.
+     */
+    UNIT_MASKS,
+
+    /**
+     * {@link TemplateSudokuSolver}.
+     */
+    TEMPLATES,
+
+    /**
+     * {@link SatSudokuSolver}.
+     */
+    SAT
+
+}
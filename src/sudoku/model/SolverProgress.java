@@ -0,0 +1,107 @@
+package sudoku.model;
+
+/**
+ * State of a running search, reported to a {@link ProgressListener}.
+ */
+public final class SolverProgress {
+
+    /**
+     * Number of guesses made so far.
+     */
+    private final long nodes;
+
+    /**
+     * Number of guesses on the current path of the search.
+     */
+    private final int depth;
+
+    /**
+     * Time since the search started, in milliseconds.
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Number of each cell of the current partial board in row-major order.
+     */
+    private final int[] values;
+
+    /**
+     * Construct progress.
+     *
+     * @param nodes         Number of guesses made so far.
+     * @param depth         Number of guesses on the current path.
+     * @param elapsedMillis Time since the search started, in milliseconds.
+     * @param numbers       Board length for row-/col-/box elements.
+     * @param values        Number of each cell of the current partial board
+     *                      in row-major order, {@link Board#UNSET_CELL} for
+     *                      open cells.
+     */
+    public SolverProgress(long nodes, int depth, long elapsedMillis,
+                          int numbers, int[] values) {
+        this.nodes = nodes;
+        this.depth = depth;
+        this.elapsedMillis = elapsedMillis;
+        this.numbers = numbers;
+        this.values = values;
+    }
+
+    /**
+     * Get number of guesses made so far.
+     *
+     * @return Number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get number of guesses on the current path of the search.
+     *
+     * @return Depth.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get time since the search started.
+     *
+     * @return Elapsed time, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Get average number of guesses per second since the search started.
+     *
+     * @return Nodes per second.
+     */
+    public double getNodesPerSecond() {
+        return elapsedMillis == 0 ? 0 : nodes * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Get board length for row-/col-/box elements.
+     *
+     * @return Numbers of the board.
+     */
+    public int getNumbers() {
+        return numbers;
+    }
+
+    /**
+     * Get current partial board of the search.
+     *
+     * @return Number of each cell in row-major order,
+     *         {@link Board#UNSET_CELL} for open cells.
+     */
+    public int[] getValues() {
+        return values.clone();
+    }
+}
@@ -60,6 +60,80 @@ public class SudokuBoard implements Board {
 
     }
 
+    /**
+     * Construct a sudoku board holding the given numbers. The result equals
+     * setting every number on an empty board in row-major order, but the
+     * possibilities of each open cell are computed once from the numbers
+     * held by its units, instead of being removed number by number.
+     *
+     * @param boxRows Inner box-row length.
+     * @param boxCols Inner box-col length.
+     * @param values  Number of each cell in row-major order, or
+     *                {@link Board#UNSET_CELL}. Will not be changed.
+     * @throws InvalidSudokuException A number is out of range, a unit holds a
+     *                                number twice, or an open cell has no
+     *                                possibility left.
+     */
+    SudokuBoard(int boxRows, int boxCols, int[] values)
+            throws InvalidSudokuException {
+        this(boxRows, boxCols);
+        BitSet[] rowUsed = new BitSet[numbers];
+        BitSet[] colUsed = new BitSet[numbers];
+        BitSet[] boxUsed = new BitSet[numbers];
+
+        for (int i = 0; i < numbers; i++) {
+            rowUsed[i] = new BitSet(numbers);
+            colUsed[i] = new BitSet(numbers);
+            boxUsed[i] = new BitSet(numbers);
+        }
+
+        for (int cell = 0; cell < values.length; cell++) {
+            if (values[cell] != UNSET_CELL) {
+                if (values[cell] < 1 || values[cell] > numbers) {
+                    throw new InvalidSudokuException("Error! Violation "
+                            + "against sudoku-feature, can not set number.");
+                }
+                int row = cell / numbers;
+                int col = cell % numbers;
+                int box = getBox(Structure.ROW, row, col);
+                int numberIndex = values[cell] - 1;
+
+                if (rowUsed[row].get(numberIndex)
+                        || colUsed[col].get(numberIndex)
+                        || boxUsed[box].get(numberIndex)) {
+                    throw new InvalidSudokuException("Error! Violation "
+                            + "against sudoku-feature, can not set number.");
+                }
+                rowUsed[row].set(numberIndex);
+                colUsed[col].set(numberIndex);
+                boxUsed[box].set(numberIndex);
+                board[row][col].clear();
+                board[row][col].set(numberIndex);
+                isFixed[row][col] = true;
+                lastCelLSet[0] = row;
+                lastCelLSet[1] = col;
+            }
+        }
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                if (!isFixed[row][col]) {
+                    BitSet possibilities = board[row][col];
+                    possibilities.andNot(rowUsed[row]);
+                    possibilities.andNot(colUsed[col]);
+                    possibilities.andNot(
+                            boxUsed[getBox(Structure.ROW, row, col)]);
+
+                    if (possibilities.isEmpty()) {
+                        throw new InvalidSudokuException("Error! Violation "
+                                + "against sudoku-feature, can not remove "
+                                + "number. ");
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Initialize board, every cell holds all possibilities.
      */
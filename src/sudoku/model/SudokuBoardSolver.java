@@ -1,28 +1,310 @@
 package sudoku.model;
 
 
+import java.math.BigInteger;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
-import java.util.Collections;
+import java.util.Random;
+import java.util.function.Predicate;
 
 /**
  * Sudoku board solver, to solve a sudoku-board with strategies and
  * guess-algorithms and find all possible solutions to it.
+ *
+ * Progress, see {@link #setProgressListener(ProgressListener)}, is reported
+ * by the searches of all modes.
  */
-public class SudokuBoardSolver implements SudokuSolver {
+public class SudokuBoardSolver extends AbstractSudokuSolver
+        implements CountingSudokuSolver {
 
     /**
-     * List of saturators.
+     * Default maximum number of boards held by the choice points of
+     * {@link SearchMode#MEMORY_BOUNDED} mode.
      */
-    private List<Saturator> saturators;
+    public static final int DEFAULT_MAX_LIVE_BOARDS = 1024;
+
+    /**
+     * Backtracking strategy.
+     */
+    private SearchMode searchMode;
+
+    /**
+     * Maximum size of nogoods learned in {@link SearchMode#BACKJUMPING} mode,
+     * 0 disables learning.
+     */
+    private int maxNogoodSize;
+
+    /**
+     * Sets if classic 9x9 boards are solved by the specialized bitboard
+     * search.
+     */
+    private boolean fastPath;
+
+    /**
+     * Order of cells and candidates to guess on.
+     */
+    private Branching branching;
+
+    /**
+     * Seed of the random choices of {@link Branching#RANDOM}.
+     */
+    private long seed;
+
+    /**
+     * Maximum number of boards held by the choice points of
+     * {@link SearchMode#MEMORY_BOUNDED} mode.
+     */
+    private int maxLiveBoards;
+
+    /**
+     * Sets if all solutions are returned in lexicographic order.
+     */
+    private boolean sortedSolutions;
+
+    /**
+     * Outcome of the last solve.
+     */
+    private SolveStatus lastStatus;
+
+    /**
+     * Restart policy of the first solution search, or {@code null}.
+     */
+    private RestartPolicy restartPolicy;
+
+    /**
+     * Number of restarts of the last first solution search with restarts.
+     */
+    private int lastRestartCount;
+
+    /**
+     * Throttle of the progress reports of the running solve, or
+     * {@code null}.
+     */
+    private ProgressReporter progress;
 
     /**
      * Construct sudoku-board-solver.
      */
     public SudokuBoardSolver() {
-        saturators = new ArrayList<>();
+        super();
+        searchMode = SearchMode.CHRONOLOGICAL;
+        fastPath = true;
+        branching = Branching.MIN_REMAINING;
+        maxLiveBoards = DEFAULT_MAX_LIVE_BOARDS;
+        sortedSolutions = true;
+    }
+
+    /**
+     * Get backtracking strategy.
+     *
+     * @return Backtracking strategy.
+     */
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Set backtracking strategy, used in all following tries to find a
+     * solution.
+     *
+     * In {@link SearchMode#BACKJUMPING} mode the registered strategies are
+     * only applied to the initial board, the search itself does forward
+     * checking. In {@link SearchMode#UNIT_MASKS} mode they are not applied at
+     * all, the search propagates naked and hidden singles itself.
+     *
+     * @param searchMode Backtracking strategy.
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Get maximum size of learned nogoods.
+     *
+     * @return Maximum number of guesses in a learned nogood, 0 if learning is
+     *         disabled.
+     */
+    public int getMaxNogoodSize() {
+        return maxNogoodSize;
+    }
+
+    /**
+     * Set maximum size of nogoods learned in {@link SearchMode#BACKJUMPING}
+     * mode. A nogood is a combination of guesses, which was proven to allow no
+     * solution.
+     *
+     * @param maxNogoodSize Maximum number of guesses in a learned nogood, 0
+     *                      disables learning.
+     */
+    public void setMaxNogoodSize(int maxNogoodSize) {
+        assert (maxNogoodSize >= 0);
+
+        this.maxNogoodSize = maxNogoodSize;
+    }
+
+    /**
+     * Check if classic 9x9 boards are solved by the specialized bitboard
+     * search.
+     *
+     * @return True, if the fast path is enabled.
+     */
+    public boolean isFastPath() {
+        return fastPath;
+    }
+
+    /**
+     * Set if boards with 3x3 boxes are solved by a specialized bitboard
+     * search, which does its own propagation of naked and hidden singles
+     * instead of applying the registered strategies. Only used in
+     * {@link SearchMode#CHRONOLOGICAL} mode with
+     * {@link Branching#MIN_REMAINING}, enabled by default.
+     *
+     * @param fastPath True, to enable the fast path.
+     */
+    public void setFastPath(boolean fastPath) {
+        this.fastPath = fastPath;
+    }
+
+    /**
+     * Get order of cells and candidates to guess on.
+     *
+     * @return Branching order.
+     */
+    public Branching getBranching() {
+        return branching;
+    }
+
+    /**
+     * Set order of cells and candidates to guess on in
+     * {@link SearchMode#CHRONOLOGICAL} mode. Different orders can differ
+     * greatly in runtime on the same board.
+     *
+     * @param branching Branching order.
+     */
+    public void setBranching(Branching branching) {
+        this.branching = branching;
+    }
+
+    /**
+     * Get seed of the random choices.
+     *
+     * @return Seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set seed of the random choices of {@link Branching#RANDOM}. Each solve
+     * starts from this seed, thus results stay repeatable.
+     *
+     * @param seed Seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get maximum number of boards held by the choice points of
+     * {@link SearchMode#MEMORY_BOUNDED} mode.
+     *
+     * @return Maximum number of boards.
+     */
+    public int getMaxLiveBoards() {
+        return maxLiveBoards;
+    }
+
+    /**
+     * Set maximum number of boards held by the choice points of
+     * {@link SearchMode#MEMORY_BOUNDED} mode, besides the board being worked
+     * on. If the search would need more, it stops with
+     * {@link SolveStatus#FRONTIER_LIMIT}, returning the solutions found so
+     * far, rather than exhausting the memory. Thus a {@code null} solution
+     * only proves the board unsolvable if {@link #getLastStatus()} is
+     * {@link SolveStatus#NO_SOLUTION}. Defaults to
+     * {@value #DEFAULT_MAX_LIVE_BOARDS}.
+     *
+     * @param maxLiveBoards Maximum number of boards, at least 0.
+     */
+    public void setMaxLiveBoards(int maxLiveBoards) {
+        assert (maxLiveBoards >= 0);
+
+        this.maxLiveBoards = maxLiveBoards;
+    }
+
+    /**
+     * Check if all solutions are returned in lexicographic order.
+     *
+     * @return True, if solutions are sorted.
+     */
+    public boolean isSortedSolutions() {
+        return sortedSolutions;
+    }
+
+    /**
+     * Set if all solutions are returned in lexicographic order of their cells
+     * in row-major order, enabled by default. Otherwise they are returned in
+     * the order the search finds them, which is still repeatable.
+     *
+     * In {@link SearchMode#CHRONOLOGICAL} and {@link SearchMode#MEMORY_BOUNDED}
+     * mode, searches for all solutions then guess in
+     * {@link Branching#ROW_MAJOR} order, which finds the solutions in
+     * lexicographic order by itself, since it fills the cells in row-major
+     * order and guesses in ascending order. The other searches sort the
+     * numbers of the found solutions before building their boards.
+     *
+     * @param sortedSolutions True, to sort solutions.
+     */
+    public void setSortedSolutions(boolean sortedSolutions) {
+        this.sortedSolutions = sortedSolutions;
+    }
+
+    /**
+     * Get outcome of the last solve.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet.
+     */
+    @Override
+    public SolveStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Get restart policy of the first solution search.
+     *
+     * @return Restart policy, or {@code null} if restarts are disabled.
+     */
+    public RestartPolicy getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    /**
+     * Set restart policy of the first solution search in
+     * {@link SearchMode#CHRONOLOGICAL} mode. Each run guesses in
+     * {@link Branching#RANDOM} order under the node budget of the policy, and
+     * is abandoned for a run with a new seed once the budget is used up. The
+     * seeds of all runs are derived from {@link #getSeed()}, so a search can
+     * be reproduced. Searches for all solutions never restart.
+     *
+     * Restarts cut off the long runs of hard boards, whose runtime depends
+     * heavily on early guesses.
+     *
+     * @param restartPolicy Restart policy, or {@code null} to disable
+     *                      restarts.
+     */
+    public void setRestartPolicy(RestartPolicy restartPolicy) {
+        this.restartPolicy = restartPolicy;
+    }
+
+    /**
+     * Get number of restarts of the last first solution search with restarts.
+     *
+     * @return Number of restarts.
+     */
+    public int getLastRestartCount() {
+        return lastRestartCount;
     }
 
     /**
@@ -34,12 +316,309 @@ public class SudokuBoardSolver implements SudokuSolver {
      * return null iff no solution was found.
      */
     private List<Board> solve(Board board, boolean onlyFirst) {
+        lastStatus = null;
+        progress = createProgressReporter();
+        List<Board> solutions;
+
+        try {
+            solutions = search(board, onlyFirst);
+        } finally {
+            progress = null;
+        }
+
+        if (lastStatus == null) {
+            lastStatus = outcomeOf(solutions, onlyFirst);
+        }
+        return solutions;
+    }
+
+    /**
+     * Solves board by the set search mode.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> search(Board board, boolean onlyFirst) {
+        if (searchMode == SearchMode.BACKJUMPING
+                && BackjumpingSearch.supports(board)) {
+            return solveBackjumping(board, onlyFirst);
+        } else if (searchMode == SearchMode.UNIT_MASKS
+                && UnitMaskSearch.supports(board)) {
+            UnitMaskSearch unitMasks = new UnitMaskSearch(board);
+            unitMasks.setProgress(progress);
+            return toSolutions(board, unitMasks.run(onlyFirst));
+        }
+        Branching order = sortedSolutions && !onlyFirst ? Branching.ROW_MAJOR
+                : branching;
+
+        if (searchMode == SearchMode.MEMORY_BOUNDED) {
+            List<Board> solutions = new ArrayList<>();
+            solveBounded(board, order, solution -> solutions.add(solution)
+                    && !onlyFirst);
+            return solutions.isEmpty() ? null : solutions;
+        } else if (onlyFirst && restartPolicy != null) {
+            return solveWithRestarts(board);
+        } else if (fastPath && branching == Branching.MIN_REMAINING
+                && Bitboard9x9Search.supports(board)) {
+            Bitboard9x9Search bitboard = new Bitboard9x9Search(board);
+            bitboard.setProgress(progress);
+            return toSolutions(board, bitboard.run(onlyFirst));
+        }
         List<Board> solutions = new ArrayList<>();
+        depthFirst(board, order, new Random(seed), Long.MAX_VALUE,
+                solution -> solutions.add(solution) && !onlyFirst);
+        return solutions.isEmpty() ? null : solutions;
+    }
+
+    /**
+     * Enumerates all solutions of a board, passing on every solution as soon
+     * as it is found instead of collecting them. Thus the number of solutions
+     * is not limited by memory, e.g. when writing them to a
+     * {@link SolutionStore}. The outcome is reported by
+     * {@link #getLastStatus()}, where a stop by the sink counts as
+     * {@link SolveStatus#SOLVED}.
+     *
+     * Solutions are passed on in search order, which is lexicographic with
+     * {@link Branching#ROW_MAJOR} in {@link SearchMode#CHRONOLOGICAL} or
+     * {@link SearchMode#MEMORY_BOUNDED} mode. Restarts are not used.
+     *
+     * @param board Board to solve. Will not be changed.
+     * @param sink  Receiver of the solutions.
+     */
+    public void enumerateSolutions(Board board, SolutionSink sink) {
+        Board boardClone = board.clone();
+        BoardGeometry geometry = BoardGeometry.of(boardClone);
+        boolean[] found = new boolean[1];
+        SolutionSink counting = values -> {
+            found[0] = true;
+            return sink.accept(values);
+        };
+        Predicate<Board> boards = solution ->
+                counting.accept(geometry.readValues(solution));
+        lastStatus = null;
+
+        if (searchMode == SearchMode.BACKJUMPING
+                && BackjumpingSearch.supports(boardClone)) {
+            if (saturateInPlace(boardClone)) {
+                new BackjumpingSearch(boardClone, maxNogoodSize).run(counting);
+            }
+        } else if (searchMode == SearchMode.UNIT_MASKS
+                && UnitMaskSearch.supports(boardClone)) {
+            new UnitMaskSearch(boardClone).run(counting);
+        } else if (searchMode == SearchMode.MEMORY_BOUNDED) {
+            solveBounded(boardClone, branching, boards);
+        } else if (fastPath && branching == Branching.MIN_REMAINING
+                && Bitboard9x9Search.supports(boardClone)) {
+            new Bitboard9x9Search(boardClone).run(counting);
+        } else {
+            depthFirst(boardClone, branching, new Random(seed),
+                    Long.MAX_VALUE, boards);
+        }
+
+        if (lastStatus == null) {
+            if (Thread.currentThread().isInterrupted()) {
+                lastStatus = SolveStatus.CANCELLED;
+            } else if (found[0]) {
+                lastStatus = SolveStatus.SOLVED;
+            } else {
+                lastStatus = SolveStatus.NO_SOLUTION;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * After applying the set solving strategies once, the solutions of
+     * sparse boards are counted by dynamic programming over the cells box by
+     * box, whose states are classes of partial boards equal up to relabeling
+     * of the numbers not given anymore and up to permutations of rows, columns
+     * and stacks. Nearly blank boards thus share few states, e.g. the
+     * 29136487207403520 solutions of the empty 8x8 board are counted in
+     * seconds without listing any. Boards with more givens or with more than
+     * 49 numbers are counted by enumeration. If the states of a sparse board
+     * outgrow the memory limit of the counter, no count is returned and the
+     * outcome is {@link SolveStatus#COUNT_LIMIT}, since enumerating that
+     * many solutions would not finish either. The outcome is reported by
+     * {@link #getLastStatus()}.
+     */
+    @Override
+    public BigInteger countSolutions(Board board) {
+        Board boardClone = board.clone();
+        BigInteger count;
+        lastStatus = null;
+
+        if (!saturateInPlace(boardClone)) {
+            count = BigInteger.ZERO;
+        } else if (SolutionCounter.supports(boardClone)) {
+            count = new SolutionCounter(boardClone).count();
+
+            if (count == null && !Thread.currentThread().isInterrupted()) {
+                lastStatus = SolveStatus.COUNT_LIMIT;
+                return null;
+            }
+        } else {
+            long[] found = new long[1];
+            enumerateSolutions(boardClone, values -> ++found[0] > 0);
+            count = BigInteger.valueOf(found[0]);
+        }
+
+        if (count == null || Thread.currentThread().isInterrupted()) {
+            lastStatus = SolveStatus.CANCELLED;
+            return null;
+        }
+        lastStatus = count.signum() > 0 ? SolveStatus.SOLVED
+                : SolveStatus.NO_SOLUTION;
+        return count;
+    }
+
+    /**
+     * Solves board by depth first search on choice points, holding at most
+     * the set number of boards. Stops with
+     * {@link SolveStatus#FRONTIER_LIMIT} if more would be needed.
+     *
+     * @param board Board to solve.
+     * @param order Order of cells and candidates to guess on.
+     * @param found Receives the found solutions, in search order, and returns
+     *              false to stop the search.
+     */
+    private void solveBounded(Board board, Branching order,
+                              Predicate<Board> found) {
+        Deque<ChoicePoint> frontier = new ArrayDeque<>();
+        Random random = new Random(seed);
+        Board current = board;
+        ProgressReporter reporter = progress;
+        long nodes = 0;
+
+        while (current != null) {
+            if (Thread.currentThread().isInterrupted()) {
+                lastStatus = SolveStatus.CANCELLED;
+                break;
+            }
+
+            if (reporter != null && reporter.isDue(++nodes)) {
+                reporter.report(nodes, frontier.size(), current.getNumbers(),
+                        BoardGeometry.of(current).readValues(current));
+            }
+            boolean open = true;
+
+            try {
+                saturateDirect(current);
+            } catch (UnsolvableSudokuException e) {
+                open = false;
+            }
+
+            if (open && current.isSolution()) {
+                if (!found.test(current)) {
+                    break;
+                }
+                open = false;
+            }
+
+            if (open) {
+                if (frontier.size() >= maxLiveBoards) {
+                    lastStatus = SolveStatus.FRONTIER_LIMIT;
+                    break;
+                }
+                int[] coordinates = findBracktrackingField(current, order,
+                        random);
+                int row = coordinates[0];
+                int col = coordinates[1];
+                int[] guesses = getGuesses(current, row, col, order, random);
+
+                if (guesses.length > 0) {
+                    frontier.push(new ChoicePoint(current, row, col,
+                            guesses));
+                }
+            }
+            current = null;
+
+            while (current == null && !frontier.isEmpty()) {
+                ChoicePoint point = frontier.peek();
+                int number = point.guesses[point.next++];
+                Board child;
+
+                // The last guess of a level takes over its board.
+                if (point.next == point.guesses.length) {
+                    frontier.pop();
+                    child = point.board;
+                } else {
+                    child = point.board.clone();
+                }
+
+                try {
+                    child.setCell(Structure.ROW, point.row, point.col, number);
+                    current = child;
+                } catch (InvalidSudokuException e) {
+                    continue;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds first solution by randomized depth first searches with growing
+     * node budgets, as set by the restart policy.
+     *
+     * @param board Board to solve.
+     * @return List holding the found solution, return null iff no solution
+     * was found.
+     */
+    private List<Board> solveWithRestarts(Board board) {
+        Random seeds = new Random(seed);
+        lastRestartCount = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Board> solutions = new ArrayList<>();
+            long budget = restartPolicy.getBudget(lastRestartCount);
+            boolean complete = depthFirst(board, Branching.RANDOM,
+                    new Random(seeds.nextLong()), budget,
+                    solution -> !solutions.add(solution));
+
+            if (!solutions.isEmpty()) {
+                return solutions;
+            } else if (complete) {
+                return null;
+            }
+            lastRestartCount++;
+        }
+        return null;
+    }
+
+    /**
+     * Depth first search on board copies, applying the set solving strategies
+     * on every board.
+     *
+     * @param board  Board to solve, will be saturated.
+     * @param order  Order of cells and candidates to guess on.
+     * @param random Source of the random choices.
+     * @param budget Maximum number of boards to visit.
+     * @param found  Receives the found solutions, in search order, and
+     *               returns false to stop the search.
+     * @return False, if the search was stopped by the budget or an interrupt.
+     */
+    private boolean depthFirst(Board board, Branching order, Random random,
+                               long budget, Predicate<Board> found) {
         Deque<Board> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        ProgressReporter reporter = progress;
+        long nodes = 0;
         stack.push(board);
+        depths.push(0);
 
         while (!stack.isEmpty()) {
+            if (nodes++ == budget || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
             Board boardTop = stack.pop();
+            int depth = depths.pop();
+
+            if (reporter != null && reporter.isDue(nodes)) {
+                reporter.report(nodes, depth, boardTop.getNumbers(),
+                        BoardGeometry.of(boardTop).readValues(boardTop));
+            }
 
             try {
                 saturateDirect(boardTop);
@@ -48,67 +627,67 @@ public class SudokuBoardSolver implements SudokuSolver {
             }
 
             if (boardTop.isSolution()) {
-                solutions.add(boardTop);
-
-                if (onlyFirst) {
-                    return solutions;
+                if (!found.test(boardTop)) {
+                    return true;
                 }
             } else {
-                List<Board> candidates = getCandidates(boardTop);
+                List<Board> candidates = getCandidates(boardTop, order,
+                        random);
 
                 for (int i = candidates.size() - 1; i >= 0; i--) {
                     stack.push(candidates.get(i));
+                    depths.push(depth + 1);
                 }
             }
         }
+        return true;
+    }
 
-        if (solutions.isEmpty()) {
+    /**
+     * Solves board by conflict-directed backjumping, after applying the set
+     * solving strategies once.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> solveBackjumping(Board board, boolean onlyFirst) {
+        if (!saturateInPlace(board)) {
             return null;
-        } else {
-            Collections.sort(solutions);
-            return solutions;
         }
+        BackjumpingSearch search = new BackjumpingSearch(board, maxNogoodSize);
+        search.setProgress(progress);
+        return toSolutions(board, search.run(onlyFirst));
     }
 
     /**
-     * Apply set solving strategies on board.
+     * Convert the complete assignments found by a search to solution boards.
      *
-     * @param board Board to apply changes.
-     * @return True, if and only if board was changed.
-     * @throws UnsolvableSudokuException Sudoku board is not solvable.
+     * @param board       Board the search was run on.
+     * @param assignments Number of each cell for every solution found.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
      */
-    private boolean saturateDirect(Board board)
-            throws UnsolvableSudokuException {
-        if (!saturators.isEmpty()) {
-            try {
-                boolean change = false;
-
-                for (Saturator saturator : saturators) {
-                    boolean changeBoard = saturator.saturate(board);
-
-                    if (changeBoard) {
-                        change = true;
-                    }
-                }
-                return change;
-            } catch (UnsolvableSudokuException e) {
-                throw new UnsolvableSudokuException(e.getMessage());
-            }
-        }
-        return false;
+    private List<Board> toSolutions(Board board, List<int[]> assignments) {
+        return BoardGeometry.of(board).writeSolutions(board, assignments,
+                sortedSolutions);
     }
 
     /**
      * Get boards where guesses result in solvable boards.
      *
-     * @param board Board to get candidates of.
+     * @param board  Board to get candidates of.
+     * @param order  Order of cells and candidates to guess on.
+     * @param random Source of the random choices.
      * @return List of corresponding candidates.
      */
-    private List<Board> getCandidates(Board board) {
-        int[] coordinates = findBracktrackingField(board);
+    private List<Board> getCandidates(Board board, Branching order,
+                                      Random random) {
+        int[] coordinates = findBracktrackingField(board, order, random);
         int row = coordinates[0];
         int col = coordinates[1];
-        int[] pos = board.getPossibilities(Structure.ROW, row, col);
+        int[] pos = getGuesses(board, row, col, order, random);
         List<Board> candidates = new ArrayList<>();
 
         for (int po : pos) {
@@ -124,25 +703,65 @@ public class SudokuBoardSolver implements SudokuSolver {
         return candidates;
     }
 
+    /**
+     * Get the numbers to guess on a cell, in the order to try them.
+     *
+     * @param board  Board to guess on.
+     * @param row    Row of the cell.
+     * @param col    Column of the cell.
+     * @param order  Order of candidates to guess.
+     * @param random Source of the random choices.
+     * @return Candidates of the cell.
+     */
+    private int[] getGuesses(Board board, int row, int col, Branching order,
+                             Random random) {
+        int[] pos = board.getPossibilities(Structure.ROW, row, col);
+
+        if (order == Branching.RANDOM) {
+            for (int i = pos.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = pos[i];
+                pos[i] = pos[j];
+                pos[j] = swap;
+            }
+        }
+        return pos;
+    }
+
     /**
      * Find coordinates of cell to guess on/ apply backtracking.
      *
-     * @param board Board to find backtracking cell.
+     * @param board  Board to find backtracking cell.
+     * @param order  Order of cells to guess on.
+     * @param random Source of the random choices.
      * @return Coordinates (row,cal) of cell.
      */
-    private int[] findBracktrackingField(Board board) {
+    private int[] findBracktrackingField(Board board, Branching order,
+                                         Random random) {
         final int tupelSize = 2;
         int[] coordinates = new int[tupelSize];
         int minCardinality = board.getNumbers() + 1;
+        int ties = 0;
 
         for (int row = 0; row < board.getNumbers(); row++) {
             for (int col = 0; col < board.getNumbers(); col++) {
                 if (board.getCell(Structure.ROW, row, col)
                         == Board.UNSET_CELL) {
+                    if (order == Branching.ROW_MAJOR) {
+                        coordinates[0] = row;
+                        coordinates[1] = col;
+                        return coordinates;
+                    }
                     int[] pos = board.getPossibilities(Structure.ROW, row, col);
 
                     if (pos.length < minCardinality) {
                         minCardinality = pos.length;
+                        ties = 1;
+                        coordinates[0] = row;
+                        coordinates[1] = col;
+                    } else if (pos.length == minCardinality
+                            && order == Branching.RANDOM
+                            && random.nextInt(++ties) == 0) {
                         coordinates[0] = row;
                         coordinates[1] = col;
                     }
@@ -152,36 +771,6 @@ public class SudokuBoardSolver implements SudokuSolver {
         return coordinates;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void addSaturator(Saturator saturator) {
-        saturators.add(saturator);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public Board saturate(Board board) {
-        Board boardClone = board.clone();
-        boolean done = false;
-
-        while (!done) {
-            try {
-                boolean change = saturateDirect(boardClone);
-
-                if (boardClone.isSolution() || !change) {
-                    done = true;
-                }
-            } catch (UnsolvableSudokuException e) {
-                done = true;
-            }
-        }
-        return boardClone;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -205,4 +794,50 @@ public class SudokuBoardSolver implements SudokuSolver {
         Board boardClone = board.clone();
         return solve(boardClone, false);
     }
+
+    /**
+     * Untried guesses on one cell of a board.
+     */
+    private static final class ChoicePoint {
+
+        /**
+         * Board before guessing.
+         */
+        private final Board board;
+
+        /**
+         * Row of the cell.
+         */
+        private final int row;
+
+        /**
+         * Column of the cell.
+         */
+        private final int col;
+
+        /**
+         * Numbers to guess, in order.
+         */
+        private final int[] guesses;
+
+        /**
+         * Index of the next number to guess.
+         */
+        private int next;
+
+        /**
+         * Construct choice point.
+         *
+         * @param board   Board before guessing.
+         * @param row     Row of the cell.
+         * @param col     Column of the cell.
+         * @param guesses Numbers to guess, in order.
+         */
+        private ChoicePoint(Board board, int row, int col, int[] guesses) {
+            this.board = board;
+            this.row = row;
+            this.col = col;
+            this.guesses = guesses;
+        }
+    }
 }
@@ -0,0 +1,287 @@
+package sudoku.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoding of a Sudoku as propositional formula in conjunctive normal form.
+ *
+ * There is one variable per candidate of every unset cell, which is true iff
+ * the cell holds that number. Set cells and removed candidates need no
+ * variables. The constraints are:
+ * <ul>
+ * <li>every unset cell holds at least one and at most one number,</li>
+ * <li>every number missing in a unit is placed at least once and at most
+ * once in it.</li>
+ * </ul>
+ * The at-most-one constraints are kept as groups of variables, and are only
+ * expanded to pairwise binary clauses when written as DIMACS.
+ */
+final class SudokuCnf {
+
+    /**
+     * Geometry of the encoded board.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Number of each cell of the encoded board, or {@link Board#UNSET_CELL}.
+     */
+    private final int[] given;
+
+    /**
+     * Variable of each candidate, indexed by cell * numbers + digit, 0 for
+     * removed candidates.
+     */
+    private final int[] varOf;
+
+    /**
+     * Cell of each variable.
+     */
+    private final int[] cellOf;
+
+    /**
+     * Number of each variable.
+     */
+    private final int[] numberOf;
+
+    /**
+     * Number of variables.
+     */
+    private int varCount;
+
+    /**
+     * At-least-one clauses, as DIMACS literals.
+     */
+    private final List<int[]> clauses;
+
+    /**
+     * At-most-one groups, as variables.
+     */
+    private final List<int[]> groups;
+
+    /**
+     * Whether a cell without candidates made the encoding trivially false.
+     */
+    private boolean trivialConflict;
+
+    /**
+     * Encode a board.
+     *
+     * @param board Board to encode. Will not be changed.
+     */
+    SudokuCnf(Board board) {
+        geometry = BoardGeometry.of(board);
+        int numbers = geometry.getNumbers();
+        int cells = geometry.getCellCount();
+        given = geometry.readValues(board);
+        varOf = new int[cells * numbers];
+        cellOf = new int[cells * numbers + 1];
+        numberOf = new int[cells * numbers + 1];
+        clauses = new ArrayList<>();
+        groups = new ArrayList<>();
+
+        for (int cell = 0; cell < cells; cell++) {
+            if (given[cell] == Board.UNSET_CELL) {
+                int[] pos = board.getPossibilities(Structure.ROW,
+                        cell / numbers, cell % numbers);
+                int[] vars = new int[pos.length];
+
+                for (int i = 0; i < pos.length; i++) {
+                    vars[i] = ++varCount;
+                    varOf[cell * numbers + pos[i] - 1] = varCount;
+                    cellOf[varCount] = cell;
+                    numberOf[varCount] = pos[i];
+                }
+                addExactlyOne(vars);
+            }
+        }
+
+        for (int[] unit : geometry.getUnits()) {
+            for (int digit = 0; digit < numbers; digit++) {
+                int count = 0;
+                boolean placed = false;
+
+                for (int cell : unit) {
+                    if (given[cell] == digit + 1) {
+                        placed = true;
+                    } else if (varOf[cell * numbers + digit] != 0) {
+                        count++;
+                    }
+                }
+
+                if (placed) {
+                    continue;
+                }
+                int[] vars = new int[count];
+                int fill = 0;
+
+                for (int cell : unit) {
+                    if (varOf[cell * numbers + digit] != 0) {
+                        vars[fill++] = varOf[cell * numbers + digit];
+                    }
+                }
+                addExactlyOne(vars);
+            }
+        }
+    }
+
+    /**
+     * Add constraints that exactly one of some variables is true.
+     *
+     * @param vars The variables.
+     */
+    private void addExactlyOne(int[] vars) {
+        if (vars.length == 0) {
+            trivialConflict = true;
+            return;
+        }
+        clauses.add(vars);
+
+        if (vars.length > 1) {
+            groups.add(vars);
+        }
+    }
+
+    /**
+     * Get number of variables.
+     *
+     * @return Number of variables.
+     */
+    int getVarCount() {
+        return varCount;
+    }
+
+    /**
+     * Create a SAT engine loaded with this formula.
+     *
+     * @return The engine.
+     */
+    CdclEngine createEngine() {
+        CdclEngine engine = new CdclEngine(varCount);
+
+        if (trivialConflict) {
+            engine.addClause();
+        }
+
+        for (int[] clause : clauses) {
+            engine.addClause(clause);
+        }
+
+        for (int[] group : groups) {
+            engine.addAtMostOne(group);
+        }
+        return engine;
+    }
+
+    /**
+     * Read the numbers of all cells from the model of an engine.
+     *
+     * @param engine Engine which found a model of this formula.
+     * @return Number of each cell.
+     */
+    int[] decode(CdclEngine engine) {
+        int[] values = given.clone();
+
+        for (int var = 1; var <= varCount; var++) {
+            if (engine.modelValue(var)) {
+                values[cellOf[var]] = numberOf[var];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Read the numbers of the cells decided so far by an engine, while it is
+     * searching.
+     *
+     * @param engine Engine searching a model of this formula.
+     * @return Number of each cell, or {@link Board#UNSET_CELL}.
+     */
+    int[] decodePartial(CdclEngine engine) {
+        int[] values = given.clone();
+
+        for (int var = 1; var <= varCount; var++) {
+            if (engine.isTrue(var)) {
+                values[cellOf[var]] = numberOf[var];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Get a clause which excludes a decoded solution.
+     *
+     * @param values Number of each cell, as returned by
+     *               {@link #decode(CdclEngine)}.
+     * @return The clause, as DIMACS literals.
+     */
+    int[] blockingClause(int[] values) {
+        int numbers = geometry.getNumbers();
+        List<Integer> lits = new ArrayList<>();
+
+        for (int cell = 0; cell < values.length; cell++) {
+            if (given[cell] == Board.UNSET_CELL) {
+                lits.add(-varOf[cell * numbers + values[cell] - 1]);
+            }
+        }
+        int[] clause = new int[lits.size()];
+
+        for (int i = 0; i < clause.length; i++) {
+            clause[i] = lits.get(i);
+        }
+        return clause;
+    }
+
+    /**
+     * Write the formula in DIMACS CNF format, with at-most-one constraints
+     * expanded to pairwise clauses.
+     *
+     * @param out Writer to write to, will not be closed.
+     * @throws IOException Exception regarding output errors.
+     */
+    void writeDimacs(Writer out) throws IOException {
+        long count = clauses.size() + (trivialConflict ? 1 : 0);
+
+        for (int[] group : groups) {
+            count += (long) group.length * (group.length - 1) / 2;
+        }
+        out.write("c sudoku " + geometry.getBoxRows() + " "
+                + geometry.getBoxCols() + "\n");
+        out.write("c variable v is cell (v_row, v_col) holding v_number:\n");
+
+        for (int var = 1; var <= varCount; var++) {
+            int numbers = geometry.getNumbers();
+            out.write("c " + var + " " + cellOf[var] / numbers + " "
+                    + cellOf[var] % numbers + " " + numberOf[var] + "\n");
+        }
+        out.write("p cnf " + varCount + " " + count + "\n");
+
+        if (trivialConflict) {
+            out.write("0\n");
+        }
+        StringBuilder bob = new StringBuilder();
+
+        for (int[] clause : clauses) {
+            for (int lit : clause) {
+                bob.append(lit).append(' ');
+            }
+            bob.append("0\n");
+            out.write(bob.toString());
+            bob.setLength(0);
+        }
+
+        for (int[] group : groups) {
+            for (int i = 0; i < group.length; i++) {
+                for (int j = i + 1; j < group.length; j++) {
+                    bob.append(-group[i]).append(' ').append(-group[j])
+                            .append(" 0\n");
+                }
+                out.write(bob.toString());
+                bob.setLength(0);
+            }
+        }
+    }
+}
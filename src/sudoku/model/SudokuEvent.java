@@ -0,0 +1,177 @@
+package sudoku.model;
+
+/**
+ * Change of a {@link SudokuModel}, passed to its observers. Depending on the
+ * type, the event names the changed cell with its old and new number, or all
+ * cells changed by a batch update, so observers only need to refresh what
+ * actually changed.
+ */
+public final class SudokuEvent {
+
+    /**
+     * Kind of change.
+     */
+    private final SudokuEventType type;
+
+    /**
+     * Changed model.
+     */
+    private final SudokuModel model;
+
+    /**
+     * Row of the changed cell, or -1.
+     */
+    private final int row;
+
+    /**
+     * Column of the changed cell, or -1.
+     */
+    private final int col;
+
+    /**
+     * Number of the cell before the change.
+     */
+    private final int oldValue;
+
+    /**
+     * Number of the cell after the change.
+     */
+    private final int newValue;
+
+    /**
+     * Row-major indices of the changed cells.
+     */
+    private final int[] cells;
+
+    /**
+     * Construct event.
+     *
+     * @param type     Kind of change.
+     * @param model    Changed model.
+     * @param row      Row of the changed cell, or -1.
+     * @param col      Column of the changed cell, or -1.
+     * @param oldValue Number of the cell before the change.
+     * @param newValue Number of the cell after the change.
+     * @param cells    Row-major indices of the changed cells.
+     */
+    private SudokuEvent(SudokuEventType type, SudokuModel model, int row,
+                        int col, int oldValue, int newValue, int[] cells) {
+        this.type = type;
+        this.model = model;
+        this.row = row;
+        this.col = col;
+        this.oldValue = oldValue;
+        this.newValue = newValue;
+        this.cells = cells;
+    }
+
+    /**
+     * Create event of a single changed cell.
+     *
+     * @param model    Changed model.
+     * @param row      Row of the cell.
+     * @param col      Column of the cell.
+     * @param oldValue Number of the cell before the change.
+     * @param newValue Number of the cell after the change.
+     * @return The event.
+     */
+    public static SudokuEvent cellChanged(SudokuModel model, int row, int col,
+                                          int oldValue, int newValue) {
+        return new SudokuEvent(SudokuEventType.CELL_CHANGED, model, row, col,
+                oldValue, newValue,
+                new int[] {row * model.getNumbers() + col});
+    }
+
+    /**
+     * Create event of several changed cells.
+     *
+     * @param model Changed model.
+     * @param cells Row-major indices of the changed cells. Will not be
+     *              changed.
+     * @return The event.
+     */
+    public static SudokuEvent bulkChanged(SudokuModel model, int[] cells) {
+        return new SudokuEvent(SudokuEventType.BULK_CHANGED, model, -1, -1,
+                Board.UNSET_CELL, Board.UNSET_CELL, cells);
+    }
+
+    /**
+     * Create event of a replaced board.
+     *
+     * @param model Changed model.
+     * @return The event.
+     */
+    public static SudokuEvent boardReplaced(SudokuModel model) {
+        return new SudokuEvent(SudokuEventType.BOARD_REPLACED, model, -1, -1,
+                Board.UNSET_CELL, Board.UNSET_CELL, null);
+    }
+
+    /**
+     * Get kind of change.
+     *
+     * @return Type of the event.
+     */
+    public SudokuEventType getType() {
+        return type;
+    }
+
+    /**
+     * Get changed model.
+     *
+     * @return The model.
+     */
+    public SudokuModel getModel() {
+        return model;
+    }
+
+    /**
+     * Get row of the changed cell of a {@link SudokuEventType#CELL_CHANGED}
+     * event.
+     *
+     * @return Row index, or -1 for other events.
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Get column of the changed cell of a
+     * {@link SudokuEventType#CELL_CHANGED} event.
+     *
+     * @return Column index, or -1 for other events.
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Get number of the changed cell before a
+     * {@link SudokuEventType#CELL_CHANGED} event.
+     *
+     * @return Old number, or {@link Board#UNSET_CELL}.
+     */
+    public int getOldValue() {
+        return oldValue;
+    }
+
+    /**
+     * Get number of the changed cell after a
+     * {@link SudokuEventType#CELL_CHANGED} event.
+     *
+     * @return New number, or {@link Board#UNSET_CELL}.
+     */
+    public int getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * Get the changed cells of a cell or bulk change. The returned array must
+     * not be changed.
+     *
+     * @return Row-major indices of the changed cells, or {@code null} for a
+     *         {@link SudokuEventType#BOARD_REPLACED} event.
+     */
+    public int[] getCells() {
+        return cells;
+    }
+}
@@ -0,0 +1,23 @@
+package sudoku.model;
+
+/**
+ * Kind of change of a {@link SudokuModel}, see {@link SudokuEvent}.
+ */
+public enum SudokuEventType {
+
+    /**
+     * A single cell changed.
+     */
+    CELL_CHANGED,
+
+    /**
+     * Several cells changed by one batch update.
+     */
+    BULK_CHANGED,
+
+    /**
+     * The whole board was replaced, possibly with another geometry.
+     */
+    BOARD_REPLACED
+
+}
@@ -1,20 +1,23 @@
 package sudoku.model;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 /**
  * Model class, holds information about game-board.
  */
 public class SudokuModel extends SudokuObservable {
 
     /**
-     * Board holding set values for cells.
+     * Value of each cell in row-major order, or {@link Board#UNSET_CELL}.
      */
-    private int[][] gameBoard;
+    private int[] values;
 
     /**
-     * 2DArray holds information about cells being preset and not changeable
-     * by user-input ( exception: opening a new sudoku-file).
+     * Bits of the cells in row-major order, which are preset and not
+     * changeable by user-input ( exception: opening a new sudoku-file).
      */
-    private boolean[][] presetCell;
+    private BitSet presetCells;
 
     /**
      * Inner box-row length.
@@ -31,12 +34,64 @@ public class SudokuModel extends SudokuObservable {
      */
     private int numbers;
 
+    /**
+     * Number of open batch updates, observers are notified once the last
+     * one ends.
+     */
+    private int updateDepth;
+
+    /**
+     * Row-major indices of the cells changed by the open batch update.
+     */
+    private BitSet pendingCells;
+
+    /**
+     * Sets if the open batch update replaced the board.
+     */
+    private boolean pendingReplace;
+
+    /**
+     * Number of cells of each row holding a number, indexed by
+     * {@code row * numbers + number - 1}.
+     */
+    private int[] rowCounts;
+
+    /**
+     * Number of cells of each column holding a number, indexed by
+     * {@code col * numbers + number - 1}.
+     */
+    private int[] colCounts;
+
+    /**
+     * Number of cells of each box holding a number, indexed by
+     * {@code box * numbers + number - 1}.
+     */
+    private int[] boxCounts;
+
+    /**
+     * Number of pairs of a unit and a number, which the unit holds more than
+     * once.
+     */
+    private int conflicts;
+
+    /**
+     * Number of unset cells.
+     */
+    private int unsetCount;
+
     /**
      * Get 2DArray with information about cells being preset or not.
      *
      * @return 2D field, holds information about cells being preset or not.
+     *         A copy, changes do not affect the model.
      */
     public boolean[][] getPresetCell() {
+        boolean[][] presetCell = new boolean[numbers][numbers];
+
+        for (int cell = presetCells.nextSetBit(0); cell >= 0;
+             cell = presetCells.nextSetBit(cell + 1)) {
+            presetCell[cell / numbers][cell % numbers] = true;
+        }
         return presetCell;
     }
 
@@ -44,10 +99,16 @@ public class SudokuModel extends SudokuObservable {
      * Set 2DArray with information about cells being preset or not.
      *
      * @param presetCell 2D field, holds information about cells
-     *                   being preset or not.
+     *                   being preset or not. Will not be changed.
      */
     public void setPresetCell(boolean[][] presetCell) {
-        this.presetCell = presetCell;
+        presetCells.clear();
+
+        for (int row = 0; row < numbers; row++) {
+            for (int col = 0; col < numbers; col++) {
+                presetCells.set(row * numbers + col, presetCell[row][col]);
+            }
+        }
     }
 
     /**
@@ -58,7 +119,7 @@ public class SudokuModel extends SudokuObservable {
      * @param value Value to set cell to.
      */
     protected void setPresetCellValue(int row, int col, boolean value) {
-        presetCell[row][col] = value;
+        presetCells.set(row * numbers + col, value);
     }
 
     /**
@@ -69,34 +130,47 @@ public class SudokuModel extends SudokuObservable {
      * @return Value of cell with given coordinates.
      */
     public boolean getPresetCellValue(int row, int col) {
-        return presetCell[row][col];
+        return presetCells.get(row * numbers + col);
     }
 
     /**
      * Get model.
      *
-     * @return 2D field, holds information about cell values.
+     * @return 2D field, holds information about cell values. A copy, changes
+     *         do not affect the model.
      */
     public int[][] getGameBoard() {
+        int[][] gameBoard = new int[numbers][numbers];
+
+        for (int row = 0; row < numbers; row++) {
+            System.arraycopy(values, row * numbers, gameBoard[row], 0,
+                    numbers);
+        }
         return gameBoard;
     }
 
     /**
-     * Set model.
+     * Set model, without notifying the observers.
      *
-     * @param gameBoard The model, simple game board.
+     * @param gameBoard The model, simple game board. Will not be changed.
      */
     public void setGameBoard(int[][] gameBoard) {
-        this.gameBoard = gameBoard;
+        for (int row = 0; row < numbers; row++) {
+            System.arraycopy(gameBoard[row], 0, values, row * numbers,
+                    numbers);
+        }
+        recount();
     }
 
     /**
-     * Set the number of rows in a box.
+     * Get the values of all cells.
      *
-     * @param boxRows Number of rows per box.
+     * @return Value of each cell in row-major order, or
+     *         {@link Board#UNSET_CELL}. A copy, changes do not affect the
+     *         model.
      */
-    public void setBoxRows(int boxRows) {
-        this.boxRows = boxRows;
+    public int[] getValues() {
+        return values.clone();
     }
 
     /**
@@ -109,56 +183,92 @@ public class SudokuModel extends SudokuObservable {
     }
 
     /**
-     * Set the number columns in a box.
+     * Check if every cell holds a value.
      *
-     * @param boxCols Number of columns per box.
+     * @return True, if all cells are set, else false.
      */
-    public void setBoxCols(int boxCols) {
-        this.boxCols = boxCols;
+    public boolean checkAllCellsSet() {
+        return unsetCount == 0;
     }
 
     /**
-     * Set numbers, product of {@code boxCols} and {@code boxRows}.
+     * Check if a row, column or box holds a number more than once. Takes
+     * constant time, the occupancy of every unit is kept up to date by
+     * {@link #setCell(int, int, int)}.
      *
-     * @param numbers Board length for row-/col-/box elements.
+     * @return True, if any unit holds a number twice.
      */
-    public void setNumbers(int numbers) {
-        this.numbers = numbers;
+    public boolean hasConflicts() {
+        return conflicts > 0;
     }
 
     /**
-     * Check if every cell holds a value.
+     * Check if a number is still possible for a cell, i.e. neither its row
+     * nor its column nor its box holds the number. Takes constant time.
      *
-     * @return True, if all cells are set, else false.
+     * @param row    Row index of cell.
+     * @param col    Column index of cell.
+     * @param number Number to check.
+     * @return True, if no peer and not the cell itself holds the number.
      */
-    public boolean checkAllCellsSet() {
-        for (int[] ints : gameBoard) {
-            for (int anInt : ints) {
-                if (anInt == -1) {
-                    return false;
-                }
+    public boolean isCandidate(int row, int col, int number) {
+        int d = number - 1;
+        return rowCounts[row * numbers + d] == 0
+                && colCounts[col * numbers + d] == 0
+                && boxCounts[getBox(row, col) * numbers + d] == 0;
+    }
+
+    /**
+     * Count the numbers still possible for a cell, see
+     * {@link #isCandidate(int, int, int)}.
+     *
+     * @param row Row index of cell.
+     * @param col Column index of cell.
+     * @return Number of candidates.
+     */
+    public int countCandidates(int row, int col) {
+        int count = 0;
+
+        for (int number = 1; number <= numbers; number++) {
+            if (isCandidate(row, col, number)) {
+                count++;
             }
         }
-        return true;
+        return count;
     }
 
     /**
-     * Convert simple Model to smart-sudoku-board.
+     * Check if the number of a cell is held by another cell of its row,
+     * column or box as well. Takes constant time.
+     *
+     * @param row Row index of cell.
+     * @param col Column index of cell.
+     * @return True, if the cell is set and conflicts with another cell.
+     */
+    public boolean isConflicting(int row, int col) {
+        int number = values[row * numbers + col];
+
+        if (number < 1 || number > numbers) {
+            return false;
+        }
+        int d = number - 1;
+        return rowCounts[row * numbers + d] > 1
+                || colCounts[col * numbers + d] > 1
+                || boxCounts[getBox(row, col) * numbers + d] > 1;
+    }
+
+    /**
+     * Convert simple Model to smart-sudoku-board. Every call builds a new
+     * board in one pass over the flat cell values, the possibilities of each
+     * empty cell are computed from the numbers of its units at once. Changes
+     * to the board do not affect the model.
      *
      * @return Board instance of SudokuModel.
      * @throws InvalidSudokuException Exception if one likes to set a number
      *                                which is not possible.
      */
     public Board convertToSudokuBoard() throws InvalidSudokuException {
-        Board sudokuBoard = new SudokuBoard(boxRows, boxCols);
-
-        for (int row = 0; row < numbers; row++) {
-            for (int col = 0; col < numbers; col++) {
-                sudokuBoard.setCell(Structure.ROW, row, col,
-                        gameBoard[row][col]);
-            }
-        }
-        return sudokuBoard;
+        return new SudokuBoard(boxRows, boxCols, values);
     }
 
     /**
@@ -172,10 +282,29 @@ public class SudokuModel extends SudokuObservable {
         this.boxRows = boxRows;
         this.boxCols = boxCols;
         numbers = boxRows * boxCols;
-        gameBoard = new int[numbers][numbers];
-        presetCell = new boolean[numbers][numbers];
+        values = new int[numbers * numbers];
+        presetCells = new BitSet(numbers * numbers);
         initializeEmptyBoard();
+        recount();
+    }
 
+    /**
+     * Construct copy of a model, without its observers.
+     *
+     * @param other Model to copy.
+     */
+    private SudokuModel(SudokuModel other) {
+        super();
+        boxRows = other.boxRows;
+        boxCols = other.boxCols;
+        numbers = other.numbers;
+        values = other.values.clone();
+        presetCells = (BitSet) other.presetCells.clone();
+        rowCounts = other.rowCounts.clone();
+        colCounts = other.colCounts.clone();
+        boxCounts = other.boxCounts.clone();
+        conflicts = other.conflicts;
+        unsetCount = other.unsetCount;
     }
 
     /**
@@ -218,7 +347,7 @@ public class SudokuModel extends SudokuObservable {
      * @return The content of the cell.
      */
     public int getCell(int row, int col) {
-        return gameBoard[row][col];
+        return values[row * numbers + col];
     }
 
     /**
@@ -230,40 +359,192 @@ public class SudokuModel extends SudokuObservable {
      */
     public void setCell(int row, int col, int number) {
         setChanged();
-        gameBoard[row][col] = number;
+        int oldNumber = values[row * numbers + col];
+        values[row * numbers + col] = number;
+        count(row, col, oldNumber, -1);
+        count(row, col, number, 1);
+
+        if (updateDepth == 0) {
+            fireChange(SudokuEvent.cellChanged(this, row, col, oldNumber,
+                    number));
+        } else {
+            pendingCells.set(row * numbers + col);
+        }
+    }
+
+    /**
+     * Replace geometry and cells by those of another model. Observers are
+     * notified by a single {@link SudokuEventType#BOARD_REPLACED} event.
+     *
+     * @param other Model to take the board from. Will not be changed.
+     */
+    public void replaceBoard(SudokuModel other) {
+        setChanged();
+        boxRows = other.getBoxRows();
+        boxCols = other.getBoxColumns();
+        numbers = other.getNumbers();
+        values = other.values.clone();
+        presetCells = (BitSet) other.presetCells.clone();
+        recount();
+
+        if (updateDepth == 0) {
+            fireChange(SudokuEvent.boardReplaced(this));
+        } else {
+            pendingReplace = true;
+        }
+    }
+
+    /**
+     * Set the content of all cells at once. Observers are notified a single
+     * time, after all cells are set.
+     *
+     * @param numbers Number of each cell, indexed by row and column, or
+     *                {@link Board#UNSET_CELL}. Will not be changed.
+     */
+    public void setCells(int[][] numbers) {
+        beginUpdate();
+
+        try {
+            for (int row = 0; row < this.numbers; row++) {
+                for (int col = 0; col < this.numbers; col++) {
+                    if (getCell(row, col) != numbers[row][col]) {
+                        setCell(row, col, numbers[row][col]);
+                    }
+                }
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Start a batch update. Until the matching call of {@link #endUpdate()},
+     * changes of cells do not notify the observers. Batch updates may be
+     * nested.
+     */
+    public void beginUpdate() {
+        if (updateDepth == 0) {
+            pendingCells = new BitSet(numbers * numbers);
+            pendingReplace = false;
+        }
+        updateDepth++;
+    }
+
+    /**
+     * End a batch update. If it was the outermost one and a cell changed
+     * meanwhile, the observers are notified once.
+     *
+     * @throws IllegalStateException No batch update was started.
+     */
+    public void endUpdate() {
+        if (updateDepth == 0) {
+            throw new IllegalStateException("No batch update started.");
+        }
+        updateDepth--;
+
+        if (updateDepth == 0 && hasChange()) {
+            SudokuEvent event;
+
+            if (pendingReplace) {
+                event = SudokuEvent.boardReplaced(this);
+            } else {
+                event = SudokuEvent.bulkChanged(this,
+                        pendingCells.stream().toArray());
+            }
+            pendingCells = null;
+            fireChange(event);
+        }
+    }
 
+    /**
+     * Notify observers of a change and clear the change mark.
+     *
+     * @param event Description of the change.
+     */
+    private void fireChange(SudokuEvent event) {
         if (countObservers() != 0) {
-            notifyObservers(this);
+            notifyObservers(event);
         }
         clearChanged();
     }
 
     /**
-     * Deep copy of model.
+     * Deep copy of model. Cells and unit counters are copied, observers are
+     * not.
      *
      * @return Deep copy of this instance.
      */
     @Override
     public SudokuModel clone() {
-        SudokuModel deepCopy = new SudokuModel(boxRows, boxCols);
-
-        for (int row = 0; row < numbers; row++) {
-            for (int col = 0; col < numbers; col++) {
-                deepCopy.setCell(row, col, gameBoard[row][col]);
-                deepCopy.setPresetCellValue(row, col, presetCell[row][col]);
-            }
-        }
-        return deepCopy;
+        return new SudokuModel(this);
     }
 
     /**
      * Initialize board, every cell holds all possibilities.
      */
     private void initializeEmptyBoard() {
-        for (int row = 0; row < numbers; row++) {
-            for (int column = 0; column < numbers; column++) {
-                setCell(row, column, Board.UNSET_CELL);
-            }
+        Arrays.fill(values, Board.UNSET_CELL);
+    }
+
+    /**
+     * Get the box of a cell.
+     *
+     * @param row Row index of cell.
+     * @param col Column index of cell.
+     * @return Index of the box, boxes are numbered row-major.
+     */
+    private int getBox(int row, int col) {
+        return (row / boxRows) * boxRows + col / boxCols;
+    }
+
+    /**
+     * Add or remove a number of a cell to the counters of its units.
+     *
+     * @param row    Row index of cell.
+     * @param col    Column index of cell.
+     * @param number Number of the cell, or {@link Board#UNSET_CELL}.
+     * @param delta  1 to add the number, -1 to remove it.
+     */
+    private void count(int row, int col, int number, int delta) {
+        if (number == Board.UNSET_CELL) {
+            unsetCount += delta;
+        } else if (number >= 1 && number <= numbers) {
+            int d = number - 1;
+            adjust(rowCounts, row * numbers + d, delta);
+            adjust(colCounts, col * numbers + d, delta);
+            adjust(boxCounts, getBox(row, col) * numbers + d, delta);
+        }
+    }
+
+    /**
+     * Change a unit counter, and the number of conflicts if the unit starts
+     * or stops holding its number more than once.
+     *
+     * @param counts Counters of a unit type.
+     * @param index  Index of the counter.
+     * @param delta  1 or -1.
+     */
+    private void adjust(int[] counts, int index, int delta) {
+        boolean before = counts[index] > 1;
+        counts[index] += delta;
+
+        if (before != counts[index] > 1) {
+            conflicts += delta;
+        }
+    }
+
+    /**
+     * Count the numbers of all units from scratch.
+     */
+    private void recount() {
+        rowCounts = new int[numbers * numbers];
+        colCounts = new int[numbers * numbers];
+        boxCounts = new int[numbers * numbers];
+        conflicts = 0;
+        unsetCount = 0;
+
+        for (int cell = 0; cell < values.length; cell++) {
+            count(cell / numbers, cell % numbers, values[cell], 1);
         }
     }
 }
@@ -81,12 +81,12 @@ public class SudokuObservable {
     /**
      * Notify all of its observers.
      *
-     * @param gameBoard Current model.
+     * @param event Description of the change.
      */
-    public void notifyObservers(SudokuModel gameBoard) {
+    public void notifyObservers(SudokuEvent event) {
         if (hasChange()) {
             for (SudokuObserver o : observers) {
-                o.update(gameBoard);
+                o.update(event);
             }
         }
     }
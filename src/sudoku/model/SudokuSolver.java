@@ -58,5 +58,17 @@ public interface SudokuSolver {
      * @return A list of all solutions of {@code board}.
      */
     List<Board> findAllSolutions(Board board);
-    
+
+    /**
+     * Get the outcome of the last call of {@link #findFirstSolution(Board)}
+     * or {@link #findAllSolutions(Board)}. A {@code null} result of a search,
+     * which was not complete, does not prove the board unsolvable.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet or the
+     *         solver does not report outcomes.
+     */
+    default SolveStatus getLastStatus() {
+        return null;
+    }
+
 }
@@ -0,0 +1,311 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Search over placement templates, see {@link DigitTemplates}. A solution is
+ * one template per number, the templates being pairwise disjoint.
+ *
+ * The search picks the number with the fewest templates left, tries each of
+ * them, and keeps only the templates of the other numbers which are disjoint
+ * from all chosen ones (AND). A branch fails as soon as a number has no
+ * template left, or a free cell is covered by no remaining template (OR).
+ */
+final class TemplateSearch {
+
+    /**
+     * Maximum number of templates of all numbers of a board. Boards with more
+     * are left to other searches.
+     */
+    static final int MAX_TEMPLATES = 1 << 19;
+
+    /**
+     * Geometry of the board.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Number of words of one template.
+     */
+    private final int words;
+
+    /**
+     * Flat templates of each zero based number.
+     */
+    private final long[][] templates;
+
+    /**
+     * All cells of the board.
+     */
+    private final long[] allCells;
+
+    /**
+     * Template chosen for each number on the current path.
+     */
+    private final int[] chosen;
+
+    /**
+     * Found solutions.
+     */
+    private final List<int[]> solutions;
+
+    /**
+     * Sets if the search stops at the first solution.
+     */
+    private boolean onlyFirst;
+
+    /**
+     * Number of templates tried.
+     */
+    private long nodes;
+
+    /**
+     * Receiver of the progress, or {@code null}.
+     */
+    private ProgressReporter progress;
+
+    /**
+     * Initialize search.
+     *
+     * @param geometry  Geometry of the board.
+     * @param templates Flat templates of each zero based number.
+     */
+    private TemplateSearch(BoardGeometry geometry, long[][] templates) {
+        this.geometry = geometry;
+        this.templates = templates;
+        words = DigitTemplates.wordsOf(geometry);
+        allCells = new long[words];
+        chosen = new int[geometry.getNumbers()];
+        solutions = new ArrayList<>();
+
+        for (int cell = 0; cell < geometry.getCellCount(); cell++) {
+            allCells[cell / Long.SIZE] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Create a search on a board.
+     *
+     * @param board Board to solve. Will not be changed.
+     * @return The search, or {@code null} if the board is too large or has
+     *         more than {@link #MAX_TEMPLATES} templates.
+     */
+    static TemplateSearch create(Board board) {
+        BoardGeometry geometry = BoardGeometry.of(board);
+
+        if (!geometry.fitsMask()) {
+            return null;
+        }
+        long[] candidates = geometry.readCandidates(board);
+        int numbers = geometry.getNumbers();
+        long[][] templates = new long[numbers][];
+        int left = MAX_TEMPLATES;
+
+        for (int digit = 0; digit < numbers; digit++) {
+            templates[digit] = DigitTemplates.forDigit(geometry, candidates,
+                    digit, left);
+
+            if (templates[digit] == null) {
+                return null;
+            }
+            left -= templates[digit].length / DigitTemplates.wordsOf(geometry);
+        }
+        return new TemplateSearch(geometry, templates);
+    }
+
+    /**
+     * Get the number of templates tried so far.
+     *
+     * @return Number of templates tried.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Report the progress of the search to a reporter, counting tried
+     * templates as guesses and chosen templates as depth.
+     *
+     * @param progress Receiver of the progress, or {@code null}.
+     */
+    void setProgress(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Run the search.
+     *
+     * @param first Sets if the search stops at the first solution.
+     * @return Number of each cell for every solution found, in search order.
+     */
+    List<int[]> run(boolean first) {
+        onlyFirst = first;
+        int numbers = geometry.getNumbers();
+        int[][] lists = new int[numbers][];
+        int[] sizes = new int[numbers];
+
+        for (int digit = 0; digit < numbers; digit++) {
+            sizes[digit] = templates[digit].length / words;
+            lists[digit] = new int[sizes[digit]];
+
+            if (sizes[digit] == 0) {
+                return solutions;
+            }
+
+            for (int t = 0; t < sizes[digit]; t++) {
+                lists[digit][t] = t;
+            }
+        }
+        long remaining = numbers == Long.SIZE ? -1L : (1L << numbers) - 1;
+        search(new long[words], lists, sizes, remaining);
+        return solutions;
+    }
+
+    /**
+     * Choose a template for the number with the fewest templates left.
+     *
+     * @param occupied  Cells covered by the chosen templates.
+     * @param lists     Indices of the templates left for each number.
+     * @param sizes     Number of templates left for each number.
+     * @param remaining Numbers without chosen template.
+     * @return True, if the search is to stop.
+     */
+    private boolean search(long[] occupied, int[][] lists, int[] sizes,
+                           long remaining) {
+        if (remaining == 0) {
+            solutions.add(decode(0));
+            return onlyFirst;
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        int best = -1;
+
+        for (long r = remaining; r != 0; r &= r - 1) {
+            int digit = Long.numberOfTrailingZeros(r);
+
+            if (best < 0 || sizes[digit] < sizes[best]) {
+                best = digit;
+            }
+        }
+        long rest = remaining & ~(1L << best);
+        int[][] childLists = new int[lists.length][];
+        int[] childSizes = new int[sizes.length];
+        long[] next = new long[words];
+
+        for (long r = rest; r != 0; r &= r - 1) {
+            int digit = Long.numberOfTrailingZeros(r);
+            childLists[digit] = new int[sizes[digit]];
+        }
+
+        for (int i = 0; i < sizes[best]; i++) {
+            int t = lists[best][i];
+            nodes++;
+
+            if (progress != null && progress.isDue(nodes)) {
+                progress.report(nodes, chosen.length - Long.bitCount(remaining),
+                        chosen.length, decode(remaining));
+            }
+
+            for (int w = 0; w < words; w++) {
+                next[w] = occupied[w] | templates[best][t * words + w];
+            }
+
+            if (restrict(next, lists, sizes, rest, childLists, childSizes)) {
+                chosen[best] = t;
+
+                if (search(next, childLists, childSizes, rest)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keep the templates disjoint from the occupied cells.
+     *
+     * @param occupied   Cells covered by the chosen templates.
+     * @param lists      Indices of the templates left for each number.
+     * @param sizes      Number of templates left for each number.
+     * @param rest       Numbers to restrict.
+     * @param childLists Receives the kept indices.
+     * @param childSizes Receives the number of kept indices.
+     * @return False, if a number has no template left or a free cell can not
+     *         be covered anymore.
+     */
+    private boolean restrict(long[] occupied, int[][] lists, int[] sizes,
+                             long rest, int[][] childLists, int[] childSizes) {
+        long[] cover = occupied.clone();
+
+        for (long r = rest; r != 0; r &= r - 1) {
+            int digit = Long.numberOfTrailingZeros(r);
+            long[] table = templates[digit];
+            int[] kept = childLists[digit];
+            int fill = 0;
+
+            for (int i = 0; i < sizes[digit]; i++) {
+                int base = lists[digit][i] * words;
+                long overlap = 0;
+
+                for (int w = 0; w < words; w++) {
+                    overlap |= table[base + w] & occupied[w];
+                }
+
+                if (overlap == 0) {
+                    kept[fill++] = lists[digit][i];
+
+                    for (int w = 0; w < words; w++) {
+                        cover[w] |= table[base + w];
+                    }
+                }
+            }
+
+            if (fill == 0) {
+                return false;
+            }
+            childSizes[digit] = fill;
+        }
+
+        for (int w = 0; w < words; w++) {
+            if ((allCells[w] & ~cover[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read the numbers of the chosen templates.
+     *
+     * @param open Numbers without chosen template, their cells are left
+     *             unset.
+     * @return Number of each cell, or {@link Board#UNSET_CELL}.
+     */
+    private int[] decode(long open) {
+        int[] values = new int[geometry.getCellCount()];
+
+        if (open != 0) {
+            Arrays.fill(values, Board.UNSET_CELL);
+        }
+
+        for (int digit = 0; digit < chosen.length; digit++) {
+            if ((open & (1L << digit)) != 0) {
+                continue;
+            }
+            int base = chosen[digit] * words;
+
+            for (int w = 0; w < words; w++) {
+                for (long bits = templates[digit][base + w]; bits != 0;
+                        bits &= bits - 1) {
+                    values[w * Long.SIZE + Long.numberOfTrailingZeros(bits)] =
+                            digit + 1;
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,120 @@
+package sudoku.model;
+
+import java.util.List;
+
+/**
+ * Sudoku solver, which combines precomputed placement templates of the single
+ * numbers instead of setting cells. The templates of all numbers are filtered
+ * against the candidates of the board, and the search combines one template
+ * per number with bitwise checks. Template tables are built once per board
+ * geometry, see {@link DigitTemplates}.
+ *
+ * Registered solution strategies are applied once before filtering, which
+ * prunes the templates. Boards with more than
+ * {@link TemplateSearch#MAX_TEMPLATES} templates left, like nearly empty
+ * 16x16 boards, are solved by {@link SudokuBoardSolver} in
+ * {@link SearchMode#UNIT_MASKS} mode instead.
+ */
+public class TemplateSudokuSolver extends AbstractSudokuSolver {
+
+    /**
+     * Outcome of the last solve.
+     */
+    private SolveStatus lastStatus;
+
+    /**
+     * Construct template-sudoku-solver.
+     */
+    public TemplateSudokuSolver() {
+        super();
+    }
+
+    /**
+     * Get outcome of the last solve.
+     *
+     * @return The outcome, or {@code null} if nothing was solved yet.
+     */
+    @Override
+    public SolveStatus getLastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Solves board and records the outcome.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> solve(Board board, boolean onlyFirst) {
+        lastStatus = null;
+        List<Board> solutions = search(board, onlyFirst);
+
+        if (lastStatus == null) {
+            lastStatus = outcomeOf(solutions, onlyFirst);
+        }
+        return solutions;
+    }
+
+    /**
+     * Solves board by combining templates, or by the fallback if too many
+     * templates are left.
+     *
+     * @param board     Board to solve.
+     * @param onlyFirst Sets if first or all solutions will be returned.
+     * @return List of boards, that represent a solution for given board,
+     * return null iff no solution was found.
+     */
+    private List<Board> search(Board board, boolean onlyFirst) {
+        if (!saturateInPlace(board)) {
+            return null;
+        }
+        TemplateSearch search = TemplateSearch.create(board);
+
+        if (search == null) {
+            SudokuBoardSolver fallback = new SudokuBoardSolver();
+            fallback.setSearchMode(SearchMode.UNIT_MASKS);
+            fallback.setProgressListener(getProgressListener());
+            fallback.setProgressInterval(getProgressInterval());
+
+            List<Board> solutions;
+
+            if (onlyFirst) {
+                Board solution = fallback.findFirstSolution(board);
+                solutions = solution == null ? null : List.of(solution);
+            } else {
+                solutions = fallback.findAllSolutions(board);
+            }
+            lastStatus = fallback.getLastStatus();
+            return solutions;
+        }
+        BoardGeometry geometry = BoardGeometry.of(board);
+        search.setProgress(createProgressReporter());
+        return geometry.writeSolutions(board, search.run(onlyFirst), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Board findFirstSolution(Board board) {
+        Board boardClone = board.clone();
+        List<Board> firstSolution = solve(boardClone, true);
+
+        if (firstSolution == null) {
+            return null;
+        } else {
+            return firstSolution.get(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Board> findAllSolutions(Board board) {
+        Board boardClone = board.clone();
+        return solve(boardClone, false);
+    }
+}
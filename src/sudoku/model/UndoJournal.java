@@ -0,0 +1,241 @@
+package sudoku.model;
+
+/**
+ * Undo and redo history of a {@link SudokuModel}, stored as a journal of
+ * cell changes. Each change takes a constant amount of memory, and undoing
+ * or redoing a move only touches the cells it changed, independent of the
+ * board size.
+ *
+ * Changes are kept in a ring buffer of primitive arrays. A move consists of
+ * one or more consecutive changes, e.g. all cells filled by a solution. When
+ * the buffer is full, the oldest moves are dropped as a whole. Recording a
+ * new move drops all moves, which could be redone.
+ */
+public class UndoJournal {
+
+    /**
+     * Default maximum number of recorded cell changes.
+     */
+    public static final int DEFAULT_DEPTH = 4096;
+
+    /**
+     * Row-major index of the cell of each change.
+     */
+    private final int[] cells;
+
+    /**
+     * Number of the cell before each change.
+     */
+    private final int[] oldValues;
+
+    /**
+     * Number of the cell after each change.
+     */
+    private final int[] newValues;
+
+    /**
+     * Sets if a change is the first one of its move.
+     */
+    private final boolean[] moveStarts;
+
+    /**
+     * Position of the oldest change, which can be undone.
+     */
+    private long tail;
+
+    /**
+     * Position after the last change, which has not been undone.
+     */
+    private long cursor;
+
+    /**
+     * Position after the last change, which can be redone.
+     */
+    private long head;
+
+    /**
+     * Position of the first change of the open move, or -1 if no move is
+     * open.
+     */
+    private long moveStart;
+
+    /**
+     * Construct journal holding up to {@value #DEFAULT_DEPTH} cell changes.
+     */
+    public UndoJournal() {
+        this(DEFAULT_DEPTH);
+    }
+
+    /**
+     * Construct empty journal.
+     *
+     * @param depth Maximum number of recorded cell changes, at least 1.
+     */
+    public UndoJournal(int depth) {
+        assert (depth >= 1);
+
+        cells = new int[depth];
+        oldValues = new int[depth];
+        newValues = new int[depth];
+        moveStarts = new boolean[depth];
+        moveStart = -1;
+    }
+
+    /**
+     * Get maximum number of recorded cell changes.
+     *
+     * @return Capacity of the ring buffer.
+     */
+    public int getDepth() {
+        return cells.length;
+    }
+
+    /**
+     * Start a move, all changes recorded until {@link #endMove()} are undone
+     * and redone together.
+     */
+    public void beginMove() {
+        assert (moveStart < 0);
+
+        moveStart = cursor;
+        head = cursor;
+    }
+
+    /**
+     * End the open move.
+     */
+    public void endMove() {
+        assert (moveStart >= 0);
+
+        moveStart = -1;
+    }
+
+    /**
+     * Record a cell change. Outside of {@link #beginMove()} and
+     * {@link #endMove()}, the change is a move of its own.
+     *
+     * @param row      Row of the cell.
+     * @param col      Column of the cell.
+     * @param numbers  Numbers of the board.
+     * @param oldValue Number of the cell before the change.
+     * @param newValue Number of the cell after the change.
+     */
+    public void record(int row, int col, int numbers, int oldValue,
+                       int newValue) {
+        boolean single = moveStart < 0;
+
+        if (single) {
+            beginMove();
+        }
+
+        if (cursor - tail == cells.length) {
+            dropOldestMove();
+        }
+        int index = (int) (cursor % cells.length);
+        cells[index] = row * numbers + col;
+        oldValues[index] = oldValue;
+        newValues[index] = newValue;
+        moveStarts[index] = cursor == moveStart;
+        cursor++;
+        head = cursor;
+
+        if (tail > moveStart) {
+            // The open move outgrew the buffer, it cannot be undone.
+            tail = cursor;
+        }
+
+        if (single) {
+            endMove();
+        }
+    }
+
+    /**
+     * Check if there is a move to undo.
+     *
+     * @return True, if {@link #undo(SudokuModel)} changes the model.
+     */
+    public boolean canUndo() {
+        return cursor > tail;
+    }
+
+    /**
+     * Check if there is a move to redo.
+     *
+     * @return True, if {@link #redo(SudokuModel)} changes the model.
+     */
+    public boolean canRedo() {
+        return head > cursor;
+    }
+
+    /**
+     * Undo the last move. The model is changed by one batch update.
+     *
+     * @param model Model the moves were recorded for.
+     * @return False, if there was no move to undo.
+     */
+    public boolean undo(SudokuModel model) {
+        if (!canUndo()) {
+            return false;
+        }
+        int numbers = model.getNumbers();
+        model.beginUpdate();
+
+        try {
+            int index;
+
+            do {
+                cursor--;
+                index = (int) (cursor % cells.length);
+                model.setCell(cells[index] / numbers, cells[index] % numbers,
+                        oldValues[index]);
+            } while (!moveStarts[index]);
+        } finally {
+            model.endUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Redo the last undone move. The model is changed by one batch update.
+     *
+     * @param model Model the moves were recorded for.
+     * @return False, if there was no move to redo.
+     */
+    public boolean redo(SudokuModel model) {
+        if (!canRedo()) {
+            return false;
+        }
+        int numbers = model.getNumbers();
+        model.beginUpdate();
+
+        try {
+            do {
+                int index = (int) (cursor % cells.length);
+                model.setCell(cells[index] / numbers, cells[index] % numbers,
+                        newValues[index]);
+                cursor++;
+            } while (cursor < head
+                    && !moveStarts[(int) (cursor % cells.length)]);
+        } finally {
+            model.endUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Drop all moves.
+     */
+    public void clear() {
+        tail = cursor;
+        head = cursor;
+    }
+
+    /**
+     * Drop the oldest move to make room for a change.
+     */
+    private void dropOldestMove() {
+        do {
+            tail++;
+        } while (tail < cursor && !moveStarts[(int) (tail % cells.length)]);
+    }
+}
@@ -0,0 +1,478 @@
+package sudoku.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search which keeps, besides the candidate mask of every cell, for every
+ * unit and number the mask of positions in the unit still open for the
+ * number. Boards with up to 64 numbers are supported.
+ *
+ * The position masks of each unit type are stored number-major, so the
+ * masks of all rows (columns, boxes) for one number are adjacent. Removing a
+ * number from the peers of a cell thus becomes a few loops, which clear the
+ * same bits in a contiguous run of masks, and finding hidden singles is a
+ * population count over such a run. Both are loop shapes the JIT compiles to
+ * vector instructions on CPUs which have them.
+ *
+ * A state is one {@code long} array, laid out as the cell candidates, the
+ * row, column and box position masks, and the unset cell bits.
+ */
+final class UnitMaskSearch {
+
+    /**
+     * Geometry of the board.
+     */
+    private final BoardGeometry geometry;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Inner box-row length.
+     */
+    private final int boxRows;
+
+    /**
+     * Inner box-col length.
+     */
+    private final int boxCols;
+
+    /**
+     * Offset of the row position masks in a state.
+     */
+    private final int rowWhere;
+
+    /**
+     * Offset of the column position masks in a state.
+     */
+    private final int colWhere;
+
+    /**
+     * Offset of the box position masks in a state.
+     */
+    private final int boxWhere;
+
+    /**
+     * Offset of the unset cell bits in a state.
+     */
+    private final int unset;
+
+    /**
+     * Length of a state.
+     */
+    private final int stateLength;
+
+    /**
+     * State of each search depth, allocated on demand.
+     */
+    private final List<long[]> states;
+
+    /**
+     * Number of guesses made.
+     */
+    private long nodes;
+
+    /**
+     * Receiver of the progress, or {@code null}.
+     */
+    private ProgressReporter progress;
+
+    /**
+     * Initialize search on a board.
+     *
+     * @param board Board to solve. Will not be changed.
+     */
+    UnitMaskSearch(Board board) {
+        assert (supports(board));
+
+        geometry = BoardGeometry.of(board);
+        numbers = geometry.getNumbers();
+        boxRows = geometry.getBoxRows();
+        boxCols = geometry.getBoxCols();
+        int cells = geometry.getCellCount();
+        int planes = numbers * numbers;
+        rowWhere = cells;
+        colWhere = rowWhere + planes;
+        boxWhere = colWhere + planes;
+        unset = boxWhere + planes;
+        stateLength = unset + (cells + Long.SIZE - 1) / Long.SIZE;
+        states = new ArrayList<>();
+        long[] root = new long[stateLength];
+        states.add(root);
+        long[] masks = geometry.readCandidates(board);
+
+        for (int cell = 0; cell < cells; cell++) {
+            int row = cell / numbers;
+            int col = cell % numbers;
+            int box = geometry.boxOf(cell);
+            long cand = masks[cell];
+            root[cell] = cand;
+
+            while (cand != 0) {
+                int d = Long.numberOfTrailingZeros(cand);
+                cand &= cand - 1;
+                root[rowWhere + d * numbers + row] |= 1L << col;
+                root[colWhere + d * numbers + col] |= 1L << row;
+                root[boxWhere + d * numbers + box] |= 1L << boxMinor(row, col);
+            }
+
+            if (board.getCell(Structure.ROW, row, col) == Board.UNSET_CELL) {
+                root[unset + cell / Long.SIZE] |= 1L << cell;
+            }
+        }
+    }
+
+    /**
+     * Check if a board can be handled by this search.
+     *
+     * @param board Board to check.
+     * @return True, if its numbers fit into the position masks.
+     */
+    static boolean supports(Board board) {
+        return BoardGeometry.of(board).fitsMask();
+    }
+
+    /**
+     * Get the number of guesses made so far.
+     *
+     * @return Number of guesses.
+     */
+    long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Report the progress of the search to a reporter.
+     *
+     * @param progress Receiver of the progress, or {@code null}.
+     */
+    void setProgress(ProgressReporter progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Run the search.
+     *
+     * @param onlyFirst Sets if the search stops at the first solution.
+     * @return Number of each cell for every solution found, in search order.
+     */
+    List<int[]> run(boolean onlyFirst) {
+        List<int[]> solutions = new ArrayList<>();
+        run(values -> solutions.add(values) && !onlyFirst);
+        return solutions;
+    }
+
+    /**
+     * Run the search, passing on every solution as soon as it is found.
+     *
+     * @param sink Receiver of the solutions, in search order.
+     */
+    void run(SolutionSink sink) {
+        int cells = geometry.getCellCount();
+        int[] cellAt = new int[cells + 1];
+        long[] untried = new long[cells + 1];
+        int depth = 0;
+
+        if (!propagate(states.get(0))) {
+            return;
+        }
+
+        while (depth >= 0) {
+            long[] s = states.get(depth);
+            int cell = selectCell(s);
+
+            if (cell < 0) {
+                if (!sink.accept(decode(s))) {
+                    return;
+                }
+                depth--;
+            } else {
+                cellAt[depth] = cell;
+                untried[depth] = s[cell];
+            }
+
+            while (depth >= 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                if (untried[depth] == 0) {
+                    depth--;
+                    continue;
+                }
+                int d = Long.numberOfTrailingZeros(untried[depth]);
+                untried[depth] &= untried[depth] - 1;
+                nodes++;
+
+                if (progress != null && progress.isDue(nodes)) {
+                    progress.report(nodes, depth, numbers,
+                            decode(states.get(depth)));
+                }
+
+                if (states.size() == depth + 1) {
+                    states.add(new long[stateLength]);
+                }
+                long[] child = states.get(depth + 1);
+                System.arraycopy(states.get(depth), 0, child, 0, stateLength);
+
+                if (place(child, cellAt[depth], d) && propagate(child)) {
+                    depth++;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the position of a cell in its box.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     * @return Minor box coordinate.
+     */
+    private int boxMinor(int row, int col) {
+        return (row % boxRows) * boxCols + (col % boxCols);
+    }
+
+    /**
+     * Set a cell and remove its number from all peers.
+     *
+     * @param s     State to change.
+     * @param cell  Cell to set.
+     * @param digit Zero based number to set.
+     * @return False, if the number is no candidate of the cell.
+     */
+    private boolean place(long[] s, int cell, int digit) {
+        long bit = 1L << digit;
+
+        if ((s[cell] & bit) == 0) {
+            return false;
+        }
+        int row = cell / numbers;
+        int col = cell % numbers;
+        int box = geometry.boxOf(cell);
+        int minor = boxMinor(row, col);
+        long others = s[cell] & ~bit;
+
+        while (others != 0) {
+            int d = Long.numberOfTrailingZeros(others);
+            others &= others - 1;
+            s[rowWhere + d * numbers + row] &= ~(1L << col);
+            s[colWhere + d * numbers + col] &= ~(1L << row);
+            s[boxWhere + d * numbers + box] &= ~(1L << minor);
+        }
+        s[cell] = bit;
+        s[unset + cell / Long.SIZE] &= ~(1L << cell);
+
+        for (int peer : geometry.peersOf(cell)) {
+            s[peer] &= ~bit;
+        }
+        int base = digit * numbers;
+        int firstRow = row - row % boxRows;
+        int firstCol = col - col % boxCols;
+        long rowBit = 1L << row;
+        long colBit = 1L << col;
+        long boxRowsMask = ((1L << boxRows) - 1) << firstRow;
+        long boxColsMask = ((1L << boxCols) - 1) << firstCol;
+        long rowSlice = ((1L << boxCols) - 1) << (row % boxRows * boxCols);
+        long colSlice = 0;
+
+        for (int i = 0; i < boxRows; i++) {
+            colSlice |= 1L << (i * boxCols + col % boxCols);
+        }
+        // Row peers leave their columns, column peers their rows.
+        clearRun(s, colWhere + base, numbers, rowBit);
+        clearRun(s, rowWhere + base, numbers, colBit);
+        // Box peers leave their rows and columns.
+        clearRun(s, rowWhere + base + firstRow, boxRows, boxColsMask);
+        clearRun(s, colWhere + base + firstCol, boxCols, boxRowsMask);
+        // Row peers leave the other boxes of the band.
+        clearRun(s, boxWhere + base + box - box % boxRows, boxRows, rowSlice);
+
+        // Column peers leave the other boxes of the stack.
+        for (int b = box % boxRows; b < numbers; b += boxRows) {
+            s[boxWhere + base + b] &= ~colSlice;
+        }
+        s[rowWhere + base + row] = colBit;
+        s[colWhere + base + col] = rowBit;
+        s[boxWhere + base + box] = 1L << minor;
+        return true;
+    }
+
+    /**
+     * Clear bits in a run of masks.
+     *
+     * @param s      State to change.
+     * @param from   Index of the first mask.
+     * @param length Number of masks.
+     * @param bits   Bits to clear.
+     */
+    private static void clearRun(long[] s, int from, int length, long bits) {
+        long keep = ~bits;
+
+        for (int i = from; i < from + length; i++) {
+            s[i] &= keep;
+        }
+    }
+
+    /**
+     * Set naked and hidden singles until a fix point is reached.
+     *
+     * @param s State to change.
+     * @return False, if the state turned out to be unsolvable.
+     */
+    private boolean propagate(long[] s) {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int w = 0; w < stateLength - unset; w++) {
+                long open = s[unset + w];
+
+                while (open != 0) {
+                    int cell = w * Long.SIZE + Long.numberOfTrailingZeros(open);
+                    open &= open - 1;
+                    long cand = s[cell];
+
+                    if (cand == 0) {
+                        return false;
+                    }
+
+                    if ((cand & (cand - 1)) == 0) {
+                        if (!place(s, cell, Long.numberOfTrailingZeros(cand))) {
+                            return false;
+                        }
+                        changed = true;
+                    }
+                }
+            }
+
+            if (changed) {
+                continue;
+            }
+            int result = findHiddenSingle(s);
+
+            if (result < 0) {
+                return false;
+            }
+            changed = result > 0;
+        }
+        return true;
+    }
+
+    /**
+     * Set all hidden singles of the current state, i.e. numbers with only one
+     * open position in a unit.
+     *
+     * @param s State to change.
+     * @return Number of cells set, or -1 if a unit has no position left for a
+     *         number.
+     */
+    private int findHiddenSingle(long[] s) {
+        int[][] units = geometry.getUnits();
+        int count = 0;
+
+        for (int type = 0; type < 3; type++) {
+            int offset = rowWhere + type * numbers * numbers;
+
+            for (int digit = 0; digit < numbers; digit++) {
+                int base = offset + digit * numbers;
+
+                if (!allNonZero(s, base, numbers)) {
+                    return -1;
+                }
+
+                for (int u = 0; u < numbers; u++) {
+                    long where = s[base + u];
+
+                    // Setting an earlier single may have emptied the mask.
+                    if (where == 0) {
+                        return -1;
+                    } else if ((where & (where - 1)) == 0) {
+                        int cell = units[type * numbers + u]
+                                [Long.numberOfTrailingZeros(where)];
+
+                        if ((s[unset + cell / Long.SIZE] & (1L << cell)) != 0) {
+                            if (!place(s, cell, digit)) {
+                                return -1;
+                            }
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check a run of masks for empty ones.
+     *
+     * @param s      State to check.
+     * @param from   Index of the first mask.
+     * @param length Number of masks.
+     * @return True, if no mask is empty.
+     */
+    private static boolean allNonZero(long[] s, int from, int length) {
+        boolean ok = true;
+
+        for (int i = from; i < from + length; i++) {
+            ok &= s[i] != 0;
+        }
+        return ok;
+    }
+
+    /**
+     * Select the unset cell with the fewest candidates.
+     *
+     * @param s Current state.
+     * @return The cell, or -1 if all cells are set.
+     */
+    private int selectCell(long[] s) {
+        int best = -1;
+        int minCardinality = Integer.MAX_VALUE;
+
+        for (int w = 0; w < stateLength - unset; w++) {
+            long open = s[unset + w];
+
+            while (open != 0) {
+                int cell = w * Long.SIZE + Long.numberOfTrailingZeros(open);
+                open &= open - 1;
+                int cardinality = Long.bitCount(s[cell]);
+
+                if (cardinality < minCardinality) {
+                    minCardinality = cardinality;
+                    best = cell;
+
+                    if (cardinality == 2) {
+                        return best;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Read the numbers of a state.
+     *
+     * @param s State, solved or partial.
+     * @return Number of each cell, {@link Board#UNSET_CELL} for unset cells.
+     */
+    private int[] decode(long[] s) {
+        int[] values = new int[geometry.getCellCount()];
+
+        for (int cell = 0; cell < values.length; cell++) {
+            if ((s[unset + cell / Long.SIZE] & (1L << cell)) != 0) {
+                values[cell] = Board.UNSET_CELL;
+            } else {
+                values[cell] = Long.numberOfTrailingZeros(s[cell]) + 1;
+            }
+        }
+        return values;
+    }
+}
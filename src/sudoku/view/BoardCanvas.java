@@ -0,0 +1,601 @@
+package sudoku.view;
+
+import sudoku.model.Board;
+import sudoku.model.SudokuEvent;
+import sudoku.model.SudokuModel;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Component painting the whole game-board by itself, instead of one label
+ * per cell. Cells scale with the component, clicks are mapped to cells by
+ * {@link #cellAt(Point)}, and a change of the model only repaints the
+ * units of the changed cells. Cells conflicting with a peer are
+ * highlighted.
+ *
+ * Fonts and the widths of all numbers are computed once per cell size, so
+ * painting a cell only draws a cached string.
+ */
+public class BoardCanvas extends JComponent implements SudokuObserver {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Preferred edge length of a cell, in pixels.
+     */
+    private static final int PREFERRED_CELL_SIZE = 50;
+
+    /**
+     * Preferred edge length of the board, which large boards shrink to.
+     */
+    private static final int PREFERRED_BOARD_SIZE = 900;
+
+    /**
+     * Smallest preferred edge length of a cell, in pixels.
+     */
+    private static final int MIN_CELL_SIZE = 16;
+
+    /**
+     * Width of the lines between boxes, in pixels.
+     */
+    private static final int BOX_LINE_WIDTH = 3;
+
+    /**
+     * Background of cells, whose number is held by a peer as well.
+     */
+    private static final Color CONFLICT_COLOR = new Color(255, 170, 170);
+
+    /**
+     * Largest board length, whose candidates are shown as mini-grid.
+     */
+    private static final int MAX_MINI_GRID_NUMBERS = 16;
+
+    /**
+     * Smallest edge length of a mini-grid cell, in pixels.
+     */
+    private static final int MIN_MINI_CELL_SIZE = 8;
+
+    /**
+     * The displayed model.
+     */
+    private final SudokuModel gameBoard;
+
+    /**
+     * Board length for row-/col-/box elements.
+     */
+    private final int numbers;
+
+    /**
+     * Inner box-row length.
+     */
+    private final int boxRows;
+
+    /**
+     * Inner box-col length.
+     */
+    private final int boxCols;
+
+    /**
+     * Text of every number, indexed by the number.
+     */
+    private final String[] texts;
+
+    /**
+     * Row-major index of the selected cell, or -1.
+     */
+    private int selectedCell;
+
+    /**
+     * Row-major index of the cell below the mouse, or -1.
+     */
+    private int hoverCell;
+
+    /**
+     * Partial board of a running search, shown in the empty cells, or
+     * {@code null}.
+     */
+    private int[] snapshot;
+
+    /**
+     * Sets if the candidates of the empty cells are shown.
+     */
+    private boolean showCandidates;
+
+    /**
+     * Cell size the cached fonts were computed for, or -1.
+     */
+    private int fontCellSize;
+
+    /**
+     * Font of the numbers.
+     */
+    private Font font;
+
+    /**
+     * Enlarged font of the number of the selected cell.
+     */
+    private Font selectedFont;
+
+    /**
+     * Metrics of {@link #font}.
+     */
+    private FontMetrics metrics;
+
+    /**
+     * Metrics of {@link #selectedFont}.
+     */
+    private FontMetrics selectedMetrics;
+
+    /**
+     * Width of the text of every number in {@link #font}.
+     */
+    private int[] widths;
+
+    /**
+     * Width of the text of every number in {@link #selectedFont}.
+     */
+    private int[] selectedWidths;
+
+    /**
+     * Font of the candidates in the mini-grid.
+     */
+    private Font candidateFont;
+
+    /**
+     * Metrics of {@link #candidateFont}.
+     */
+    private FontMetrics candidateMetrics;
+
+    /**
+     * Width of the text of every number in {@link #candidateFont}.
+     */
+    private int[] candidateWidths;
+
+    /**
+     * Font of the candidate count badge.
+     */
+    private Font badgeFont;
+
+    /**
+     * Construct canvas displaying a model.
+     *
+     * @param gameBoard The model to display.
+     */
+    public BoardCanvas(SudokuModel gameBoard) {
+        this.gameBoard = gameBoard;
+        numbers = gameBoard.getNumbers();
+        boxRows = gameBoard.getBoxRows();
+        boxCols = gameBoard.getBoxColumns();
+        texts = new String[numbers + 1];
+
+        for (int number = 1; number <= numbers; number++) {
+            texts[number] = String.valueOf(number);
+        }
+        selectedCell = -1;
+        hoverCell = -1;
+        fontCellSize = -1;
+        int cellSize = Math.max(MIN_CELL_SIZE, Math.min(PREFERRED_CELL_SIZE,
+                PREFERRED_BOARD_SIZE / Math.max(1, numbers)));
+        setPreferredSize(new Dimension(numbers * cellSize + BOX_LINE_WIDTH,
+                numbers * cellSize + BOX_LINE_WIDTH));
+        setOpaque(true);
+        MouseAdapter hover = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent mouseEvent) {
+                int[] cell = cellAt(mouseEvent.getPoint());
+                setHoverCell(cell == null ? -1 : cell[0] * numbers + cell[1]);
+            }
+
+            @Override
+            public void mouseExited(MouseEvent mouseEvent) {
+                setHoverCell(-1);
+            }
+        };
+        addMouseListener(hover);
+        addMouseMotionListener(hover);
+    }
+
+    /**
+     * Get the cell at a point of this component.
+     *
+     * @param point Point relative to this component.
+     * @return Row and column of the cell, or {@code null} if the point is
+     *         outside of the board.
+     */
+    public int[] cellAt(Point point) {
+        int size = getCellSize();
+        int x = point.x - getOriginX(size);
+        int y = point.y - getOriginY(size);
+
+        if (x < 0 || y < 0 || x >= numbers * size || y >= numbers * size) {
+            return null;
+        }
+        return new int[] {y / size, x / size};
+    }
+
+    /**
+     * Get the bounds of a cell.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     * @return Rectangle of the cell, relative to this component.
+     */
+    public Rectangle getCellBounds(int row, int col) {
+        int size = getCellSize();
+        return new Rectangle(getOriginX(size) + col * size,
+                getOriginY(size) + row * size, size, size);
+    }
+
+    /**
+     * Get the selected cell.
+     *
+     * @return Row and column of the selected cell, or {@code null}.
+     */
+    public int[] getSelectedCell() {
+        return selectedCell < 0 ? null
+                : new int[] {selectedCell / numbers, selectedCell % numbers};
+    }
+
+    /**
+     * Select a cell, which is highlighted and shown with a larger font.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     */
+    public void setSelectedCell(int row, int col) {
+        int previous = selectedCell;
+        selectedCell = row * numbers + col;
+        repaintCell(previous);
+        repaintCell(selectedCell);
+    }
+
+    /**
+     * Remove the selection, if any.
+     */
+    public void clearSelection() {
+        int previous = selectedCell;
+        selectedCell = -1;
+        repaintCell(previous);
+    }
+
+    /**
+     * Check if the candidates of the empty cells are shown.
+     *
+     * @return True, if the overlay is shown.
+     */
+    public boolean isShowCandidates() {
+        return showCandidates;
+    }
+
+    /**
+     * Set if the candidates of the empty cells are shown. Boards up to
+     * {@value #MAX_MINI_GRID_NUMBERS} numbers show them as mini-grid shaped
+     * like a box, larger boards or small cells show the number of candidates
+     * as badge. Candidates are read from the unit counters of the model,
+     * which are updated on every change.
+     *
+     * @param showCandidates True, to show the overlay.
+     */
+    public void setShowCandidates(boolean showCandidates) {
+        if (this.showCandidates != showCandidates) {
+            this.showCandidates = showCandidates;
+            repaint();
+        }
+    }
+
+    /**
+     * Show the partial board of a running search in the empty cells, in
+     * gray.
+     *
+     * @param values Number of each cell in row-major order, or {@code null}
+     *               to remove the snapshot.
+     */
+    public void setSnapshot(int[] values) {
+        if (values != null && values.length != numbers * numbers) {
+            return;
+        }
+        snapshot = values;
+        repaint();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the row, column and box of each changed cell are repainted, as
+     * a change may start or end conflicts with its peers and only changes
+     * the candidates of its peers. The whole board is repainted only if it
+     * was replaced.
+     */
+    @Override
+    public void update(SudokuEvent event) {
+        switch (event.getType()) {
+
+            case CELL_CHANGED:
+            case BULK_CHANGED:
+                for (int cell : event.getCells()) {
+                    repaintUnits(cell / numbers, cell % numbers);
+                }
+                break;
+            default:
+                repaint();
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int size = getCellSize();
+        updateFonts(size);
+        int originX = getOriginX(size);
+        int originY = getOriginY(size);
+        Rectangle clip = g.getClipBounds();
+
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getParent() != null ? getParent().getBackground()
+                : Color.LIGHT_GRAY);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        int firstRow = clamp((clip.y - originY) / size);
+        int lastRow = clamp((clip.y + clip.height - originY) / size);
+        int firstCol = clamp((clip.x - originX) / size);
+        int lastCol = clamp((clip.x + clip.width - originX) / size);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintCell(g, row, col, originX + col * size,
+                        originY + row * size, size);
+            }
+        }
+        g.setColor(Color.BLACK);
+        int length = numbers * size;
+
+        for (int row = 0; row <= numbers; row += boxRows) {
+            g.fillRect(originX - 1, originY + row * size - 1, length + 2,
+                    BOX_LINE_WIDTH);
+        }
+
+        for (int col = 0; col <= numbers; col += boxCols) {
+            g.fillRect(originX + col * size - 1, originY - 1,
+                    BOX_LINE_WIDTH, length + 2);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Paint background, border and number of a cell.
+     *
+     * @param g    Graphics to paint with.
+     * @param row  Row of the cell.
+     * @param col  Column of the cell.
+     * @param x    Left edge of the cell.
+     * @param y    Top edge of the cell.
+     * @param size Edge length of the cell.
+     */
+    private void paintCell(Graphics2D g, int row, int col, int x, int y,
+                           int size) {
+        int cell = row * numbers + col;
+        boolean selected = cell == selectedCell;
+
+        if (selected) {
+            g.setColor(Color.YELLOW);
+        } else if (gameBoard.isConflicting(row, col)) {
+            g.setColor(CONFLICT_COLOR);
+        } else if (cell == hoverCell) {
+            g.setColor(Color.LIGHT_GRAY);
+        } else {
+            g.setColor(Color.WHITE);
+        }
+        g.fillRect(x, y, size, size);
+        g.setColor(Color.BLACK);
+        g.drawRect(x, y, size, size);
+        int number = gameBoard.getCell(row, col);
+
+        if (number < 1 || number > numbers) {
+            number = snapshot == null ? Board.UNSET_CELL : snapshot[cell];
+
+            if (number >= 1 && number <= numbers) {
+                g.setFont(font);
+                g.setColor(Color.GRAY);
+                g.drawString(texts[number], x + (size - widths[number]) / 2,
+                        y + (size - metrics.getHeight()) / 2
+                                + metrics.getAscent());
+            } else if (showCandidates) {
+                paintCandidates(g, row, col, x, y, size);
+            }
+        } else {
+            FontMetrics fm = selected ? selectedMetrics : metrics;
+            int width = (selected ? selectedWidths : widths)[number];
+            g.setFont(selected ? selectedFont : font);
+            g.setColor(gameBoard.getPresetCellValue(row, col) ? Color.RED
+                    : Color.BLACK);
+            g.drawString(texts[number], x + (size - width) / 2,
+                    y + (size - fm.getHeight()) / 2 + fm.getAscent());
+        }
+    }
+
+    /**
+     * Paint the candidates of an empty cell, as mini-grid or count badge.
+     *
+     * @param g    Graphics to paint with.
+     * @param row  Row of the cell.
+     * @param col  Column of the cell.
+     * @param x    Left edge of the cell.
+     * @param y    Top edge of the cell.
+     * @param size Edge length of the cell.
+     */
+    private void paintCandidates(Graphics2D g, int row, int col, int x,
+                                 int y, int size) {
+        int miniWidth = size / boxCols;
+        int miniHeight = size / boxRows;
+
+        if (numbers <= MAX_MINI_GRID_NUMBERS
+                && Math.min(miniWidth, miniHeight) >= MIN_MINI_CELL_SIZE) {
+            int offsetX = x + (size - boxCols * miniWidth) / 2;
+            int offsetY = y + (size - boxRows * miniHeight) / 2
+                    + (miniHeight - candidateMetrics.getHeight()) / 2
+                    + candidateMetrics.getAscent();
+            g.setFont(candidateFont);
+            g.setColor(Color.DARK_GRAY);
+
+            for (int number = 1; number <= numbers; number++) {
+                if (gameBoard.isCandidate(row, col, number)) {
+                    int index = number - 1;
+                    g.drawString(texts[number], offsetX
+                            + index % boxCols * miniWidth
+                            + (miniWidth - candidateWidths[number]) / 2,
+                            offsetY + index / boxCols * miniHeight);
+                }
+            }
+        } else {
+            int count = gameBoard.countCandidates(row, col);
+            g.setFont(badgeFont);
+            g.setColor(count == 0 ? Color.RED : Color.DARK_GRAY);
+            g.drawString(String.valueOf(count), x + size / 10,
+                    y + size - size / 10);
+        }
+    }
+
+    /**
+     * Compute fonts and text widths, if the cell size changed.
+     *
+     * @param size Edge length of a cell.
+     */
+    private void updateFonts(int size) {
+        if (size == fontCellSize) {
+            return;
+        }
+        int digits = texts[numbers].length();
+        font = new Font("Serif", Font.PLAIN,
+                Math.max(1, size * 21 / PREFERRED_CELL_SIZE
+                        * 2 / (digits + 1)));
+        selectedFont = font.deriveFont(Math.min(size * 0.84f,
+                font.getSize2D() * 2));
+        int miniCell = Math.min(size / boxCols, size / boxRows);
+        candidateFont = font.deriveFont((float) Math.max(1,
+                miniCell * 4 / 5 * 2 / (digits + 1)));
+        badgeFont = font.deriveFont((float) Math.max(1, size * 3 / 10));
+        metrics = getFontMetrics(font);
+        selectedMetrics = getFontMetrics(selectedFont);
+        candidateMetrics = getFontMetrics(candidateFont);
+        widths = new int[numbers + 1];
+        selectedWidths = new int[numbers + 1];
+        candidateWidths = new int[numbers + 1];
+
+        for (int number = 1; number <= numbers; number++) {
+            widths[number] = metrics.stringWidth(texts[number]);
+            selectedWidths[number] = selectedMetrics.stringWidth(
+                    texts[number]);
+            candidateWidths[number] = candidateMetrics.stringWidth(
+                    texts[number]);
+        }
+        fontCellSize = size;
+    }
+
+    /**
+     * Change the cell below the mouse.
+     *
+     * @param cell Row-major index of the cell, or -1.
+     */
+    private void setHoverCell(int cell) {
+        if (cell != hoverCell) {
+            int previous = hoverCell;
+            hoverCell = cell;
+            repaintCell(previous);
+            repaintCell(cell);
+        }
+    }
+
+    /**
+     * Repaint the rectangle of a cell, including its border.
+     *
+     * @param cell Row-major index of the cell, or -1 to do nothing.
+     */
+    private void repaintCell(int cell) {
+        if (cell >= 0) {
+            Rectangle bounds = getCellBounds(cell / numbers, cell % numbers);
+            repaint(bounds.x - BOX_LINE_WIDTH, bounds.y - BOX_LINE_WIDTH,
+                    bounds.width + 2 * BOX_LINE_WIDTH,
+                    bounds.height + 2 * BOX_LINE_WIDTH);
+        }
+    }
+
+    /**
+     * Repaint the row, column and box of a cell.
+     *
+     * @param row Row of the cell.
+     * @param col Column of the cell.
+     */
+    private void repaintUnits(int row, int col) {
+        int size = getCellSize();
+        int originX = getOriginX(size);
+        int originY = getOriginY(size);
+        int length = numbers * size + 2 * BOX_LINE_WIDTH;
+        int boxX = originX + col / boxCols * boxCols * size;
+        int boxY = originY + row / boxRows * boxRows * size;
+        repaint(originX - BOX_LINE_WIDTH, originY + row * size
+                - BOX_LINE_WIDTH, length, size + 2 * BOX_LINE_WIDTH);
+        repaint(originX + col * size - BOX_LINE_WIDTH, originY
+                - BOX_LINE_WIDTH, size + 2 * BOX_LINE_WIDTH, length);
+        repaint(boxX - BOX_LINE_WIDTH, boxY - BOX_LINE_WIDTH,
+                boxCols * size + 2 * BOX_LINE_WIDTH,
+                boxRows * size + 2 * BOX_LINE_WIDTH);
+    }
+
+    /**
+     * Get the edge length of a cell at the current component size.
+     *
+     * @return Cell size, at least 1.
+     */
+    private int getCellSize() {
+        return Math.max(1, (Math.min(getWidth(), getHeight())
+                - BOX_LINE_WIDTH) / Math.max(1, numbers));
+    }
+
+    /**
+     * Get the left edge of the board, which is centered horizontally.
+     *
+     * @param size Edge length of a cell.
+     * @return X coordinate of the board.
+     */
+    private int getOriginX(int size) {
+        return (getWidth() - numbers * size) / 2;
+    }
+
+    /**
+     * Get the top edge of the board, which is centered vertically.
+     *
+     * @param size Edge length of a cell.
+     * @return Y coordinate of the board.
+     */
+    private int getOriginY(int size) {
+        return (getHeight() - numbers * size) / 2;
+    }
+
+    /**
+     * Clamp a row or column index to the board.
+     *
+     * @param index Index, possibly outside of the board.
+     * @return Index between 0 and {@code numbers - 1}.
+     */
+    private int clamp(int index) {
+        return Math.max(0, Math.min(numbers - 1, index));
+    }
+}
@@ -0,0 +1,149 @@
+package sudoku.view;
+
+import sudoku.model.SudokuEvent;
+import sudoku.model.SudokuEventType;
+import sudoku.model.SudokuModel;
+
+import javax.swing.Timer;
+import java.util.BitSet;
+
+/**
+ * Observer, which forwards the changes of a model to another observer on the
+ * Event Dispatch Thread. Changes may be reported from any thread.
+ *
+ * Changes arriving before the forwarding took place are coalesced into one
+ * event, and at most {@code maxRate} events are forwarded per second. A
+ * burst of changes, e.g. a solver filling the board, thus refreshes the
+ * view once per frame instead of once per cell.
+ */
+public class EdtDispatcher implements SudokuObserver {
+
+    /**
+     * Default maximum number of forwarded events per second.
+     */
+    public static final int DEFAULT_MAX_RATE = 60;
+
+    /**
+     * Observer receiving the coalesced events on the Event Dispatch Thread.
+     */
+    private final SudokuObserver target;
+
+    /**
+     * Minimum time between two forwarded events, in milliseconds.
+     */
+    private final int minInterval;
+
+    /**
+     * Single-shot timer forwarding the pending changes.
+     */
+    private final Timer timer;
+
+    /**
+     * First pending event, or {@code null} if none is pending.
+     */
+    private SudokuEvent pending;
+
+    /**
+     * Number of pending events.
+     */
+    private int pendingCount;
+
+    /**
+     * Row-major indices of the cells changed by the pending events.
+     */
+    private BitSet pendingCells;
+
+    /**
+     * Sets if one of the pending events replaced the board.
+     */
+    private boolean pendingReplace;
+
+    /**
+     * Time of the last forwarded event, in milliseconds.
+     */
+    private long lastDispatch;
+
+    /**
+     * Construct dispatcher forwarding up to {@value #DEFAULT_MAX_RATE} events
+     * per second.
+     *
+     * @param target Observer receiving the events.
+     */
+    public EdtDispatcher(SudokuObserver target) {
+        this(target, DEFAULT_MAX_RATE);
+    }
+
+    /**
+     * Construct dispatcher.
+     *
+     * @param target  Observer receiving the events.
+     * @param maxRate Maximum number of forwarded events per second, at least
+     *                1.
+     */
+    public EdtDispatcher(SudokuObserver target, int maxRate) {
+        assert (maxRate >= 1);
+
+        this.target = target;
+        minInterval = 1000 / maxRate;
+        timer = new Timer(minInterval, actionEvent -> dispatch());
+        timer.setRepeats(false);
+        pendingCells = new BitSet();
+    }
+
+    /**
+     * Record a change and schedule its forwarding, unless it is scheduled
+     * already.
+     *
+     * @param event Description of the change.
+     */
+    @Override
+    public synchronized void update(SudokuEvent event) {
+        if (pendingCount == 0) {
+            pending = event;
+            long wait = lastDispatch + minInterval
+                    - System.currentTimeMillis();
+            timer.setInitialDelay((int) Math.max(0, Math.min(wait,
+                    minInterval)));
+            timer.restart();
+        }
+        pendingCount++;
+
+        if (event.getType() == SudokuEventType.BOARD_REPLACED) {
+            pendingReplace = true;
+        } else {
+            for (int cell : event.getCells()) {
+                pendingCells.set(cell);
+            }
+        }
+    }
+
+    /**
+     * Forward the pending changes as one event, on the Event Dispatch
+     * Thread.
+     */
+    private void dispatch() {
+        SudokuEvent event;
+
+        synchronized (this) {
+            if (pendingCount == 0) {
+                return;
+            }
+            SudokuModel model = pending.getModel();
+
+            if (pendingCount == 1) {
+                event = pending;
+            } else if (pendingReplace) {
+                event = SudokuEvent.boardReplaced(model);
+            } else {
+                event = SudokuEvent.bulkChanged(model,
+                        pendingCells.stream().toArray());
+            }
+            pending = null;
+            pendingCount = 0;
+            pendingCells.clear();
+            pendingReplace = false;
+            lastDispatch = System.currentTimeMillis();
+        }
+        target.update(event);
+    }
+}
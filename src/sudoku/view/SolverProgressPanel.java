@@ -0,0 +1,273 @@
+package sudoku.view;
+
+import sudoku.model.ProgressListener;
+import sudoku.model.SolverProgress;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+import java.awt.FlowLayout;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Status bar showing the progress of the running solving jobs, with a button
+ * to cancel them. Progress may be reported from any thread.
+ *
+ * Every job reports to its own listener, see {@link #startJob}, which keeps
+ * only the latest report of that job, so concurrent jobs never overwrite
+ * each other. The job started first among the running ones is shown, with
+ * the number of the others. At most {@code maxRate} reports are shown per
+ * second, so a solver reporting faster than the view can paint neither
+ * queues events nor waits for the view. The partial board of the shown
+ * report is painted into the empty cells of the board.
+ */
+public class SolverProgressPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default maximum number of shown reports per second.
+     */
+    public static final int DEFAULT_MAX_RATE = 30;
+
+    /**
+     * Board to show the partial boards on, or {@code null}.
+     */
+    private final BoardCanvas boardCanvas;
+
+    /**
+     * Label showing nodes, depth and nodes per second.
+     */
+    private final JLabel statusLabel;
+
+    /**
+     * Button to cancel the solve.
+     */
+    private final JButton cancelButton;
+
+    /**
+     * Minimum time between two shown reports, in milliseconds.
+     */
+    private final int minInterval;
+
+    /**
+     * Single-shot timer showing the latest report.
+     */
+    private final Timer timer;
+
+    /**
+     * Progress of the running jobs, in order of start. Guarded by this
+     * panel.
+     */
+    private final Map<Object, JobProgress> jobs;
+
+    /**
+     * Sets if the shown job has a report, which is not shown yet.
+     */
+    private boolean pending;
+
+    /**
+     * Time the last report was shown, in milliseconds.
+     */
+    private long lastShown;
+
+    /**
+     * Construct hidden panel showing up to {@value #DEFAULT_MAX_RATE} reports
+     * per second.
+     *
+     * @param boardCanvas Board to show the partial boards on, or
+     *                    {@code null}.
+     */
+    public SolverProgressPanel(BoardCanvas boardCanvas) {
+        this(boardCanvas, DEFAULT_MAX_RATE);
+    }
+
+    /**
+     * Construct hidden panel.
+     *
+     * @param boardCanvas Board to show the partial boards on, or
+     *                    {@code null}.
+     * @param maxRate     Maximum number of shown reports per second, at least
+     *                    1.
+     */
+    public SolverProgressPanel(BoardCanvas boardCanvas, int maxRate) {
+        assert (maxRate >= 1);
+
+        this.boardCanvas = boardCanvas;
+        minInterval = 1000 / maxRate;
+        jobs = new LinkedHashMap<>();
+        timer = new Timer(minInterval, actionEvent -> showLatest());
+        timer.setRepeats(false);
+        setLayout(new FlowLayout(FlowLayout.LEFT));
+        statusLabel = new JLabel();
+        cancelButton = new JButton("Cancel");
+        add(statusLabel);
+        add(cancelButton);
+        setVisible(false);
+    }
+
+    /**
+     * Add listener to cancel button.
+     *
+     * @param listenerForCancelButton Cancel the running solve.
+     */
+    public void addCancelListener(ActionListener listenerForCancelButton) {
+        cancelButton.addActionListener(listenerForCancelButton);
+    }
+
+    /**
+     * Show the panel for a starting job. Call on the Event Dispatch Thread.
+     *
+     * @param job  Key of the job, to stop it by {@link #stopJob(Object)}.
+     * @param name Name of the job, shown with its progress.
+     * @return Listener receiving the progress of the job only.
+     */
+    public ProgressListener startJob(Object job, String name) {
+        JobProgress jobProgress = new JobProgress(name);
+
+        synchronized (this) {
+            jobs.put(job, jobProgress);
+        }
+        setVisible(true);
+        revalidate();
+        showLatest();
+        return progress -> report(jobProgress, progress);
+    }
+
+    /**
+     * Drop a finished or cancelled job, hide the panel and the partial board
+     * after the last one. Call on the Event Dispatch Thread.
+     *
+     * @param job Key of the job.
+     */
+    public void stopJob(Object job) {
+        boolean empty;
+
+        synchronized (this) {
+            if (jobs.remove(job) == null) {
+                return;
+            }
+            empty = jobs.isEmpty();
+        }
+
+        if (empty) {
+            stop();
+        } else {
+            showLatest();
+        }
+    }
+
+    /**
+     * Drop all jobs, hide the panel and the partial board. Call on the Event
+     * Dispatch Thread.
+     */
+    public void stop() {
+        synchronized (this) {
+            jobs.clear();
+            pending = false;
+        }
+        timer.stop();
+        setVisible(false);
+        revalidate();
+
+        if (boardCanvas != null) {
+            boardCanvas.setSnapshot(null);
+        }
+    }
+
+    /**
+     * Keep the report of a job and schedule showing it, if the job is shown
+     * and no report is scheduled already.
+     *
+     * @param job      Progress of the reporting job.
+     * @param progress State of the search.
+     */
+    private synchronized void report(JobProgress job, SolverProgress progress) {
+        job.latest = progress;
+
+        if (job != getShownJob() || pending) {
+            return;
+        }
+        long wait = lastShown + minInterval - System.currentTimeMillis();
+        timer.setInitialDelay((int) Math.max(0, Math.min(wait, minInterval)));
+        timer.restart();
+        pending = true;
+    }
+
+    /**
+     * Get the job to show.
+     *
+     * @return Progress of the first running job, or {@code null}.
+     */
+    private synchronized JobProgress getShownJob() {
+        return jobs.isEmpty() ? null : jobs.values().iterator().next();
+    }
+
+    /**
+     * Show the latest report of the shown job, on the Event Dispatch Thread.
+     */
+    private void showLatest() {
+        JobProgress job;
+        SolverProgress progress;
+        int others;
+
+        synchronized (this) {
+            job = getShownJob();
+
+            if (job == null) {
+                return;
+            }
+            progress = job.latest;
+            others = jobs.size() - 1;
+            pending = false;
+            lastShown = System.currentTimeMillis();
+        }
+        String text;
+
+        if (progress == null) {
+            text = job.name + ": solving...";
+        } else {
+            text = String.format("%s: %,d nodes, depth %d, %,.0f nodes/s",
+                    job.name, progress.getNodes(), progress.getDepth(),
+                    progress.getNodesPerSecond());
+        }
+
+        if (others > 0) {
+            text += String.format(" (+%d more)", others);
+        }
+        statusLabel.setText(text);
+
+        if (boardCanvas != null) {
+            boardCanvas.setSnapshot(progress == null ? null
+                    : progress.getValues());
+        }
+    }
+
+    /**
+     * Latest progress of one running job.
+     */
+    private static final class JobProgress {
+
+        /**
+         * Name of the job.
+         */
+        private final String name;
+
+        /**
+         * Latest report, or {@code null}. Guarded by the panel.
+         */
+        private SolverProgress latest;
+
+        /**
+         * Construct progress of a job without reports.
+         *
+         * @param name Name of the job.
+         */
+        private JobProgress(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package sudoku.view;
 
-import sudoku.model.SudokuModel;
+import sudoku.model.SudokuEvent;
 
 /**
  * Sudoku observer class, gets informed about changes in model.
@@ -9,7 +9,8 @@ public interface SudokuObserver {
     /**
      * This method is called whenever the model is changed.
      *
-     * @param gameBoard Model, that has change.
+     * @param event Description of the change, naming the changed cells and
+     *              the model.
      */
-    void update(SudokuModel gameBoard);
+    void update(SudokuEvent event);
 }
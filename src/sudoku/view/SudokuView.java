@@ -2,39 +2,33 @@ package sudoku.view;
 
 import sudoku.model.SudokuModel;
 
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JPanel;
-import javax.swing.JLabel;
 import javax.swing.JPopupMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JMenuBar;
 import javax.swing.JMenu;
 import javax.swing.KeyStroke;
-import javax.swing.BorderFactory;
-import java.awt.GridLayout;
-import java.awt.Color;
-import java.awt.Font;
-import java.awt.Dimension;
+import java.awt.BorderLayout;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseListener;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * View class, represents the game-board of the model and can be used as an
  * interface for the user to make an input.
  */
-public class SudokuView extends JPanel implements SudokuObserver {
+public class SudokuView extends JPanel {
 
     /**
-     * List contains 2DArray of labels for each sub-box.
+     * Component painting the cells.
      */
-    private List<JLabel[][]> subBoxLabels;
+    private BoardCanvas boardCanvas;
 
     /**
-     * 2DArray of panels, one for each sub-box.
+     * Status bar showing the progress of a running solve.
      */
-    private JPanel[][] subBoxPanels;
+    private SolverProgressPanel progressPanel;
 
     /**
      * Menu to set label.
@@ -61,6 +55,11 @@ public class SudokuView extends JPanel implements SudokuObserver {
      */
     private JMenuItem editUndo;
 
+    /**
+     * Menu-item to redo the last undone operation.
+     */
+    private JMenuItem editRedo;
+
     /**
      * Menu-item to suggest a value.
      */
@@ -71,6 +70,11 @@ public class SudokuView extends JPanel implements SudokuObserver {
      */
     private JMenuItem solveSolve;
 
+    /**
+     * Menu-item to show or hide the candidates of the empty cells.
+     */
+    private JCheckBoxMenuItem viewCandidates;
+
     /**
      * The menu.
      */
@@ -95,21 +99,32 @@ public class SudokuView extends JPanel implements SudokuObserver {
     }
 
     /**
-     * Get sub-box panels.
+     * Get board component.
      *
-     * @return 2D field, holds Panels, each representing a sub-box.
+     * @return Component painting the cells, hit-testing and highlighting
+     *         them.
      */
-    public JPanel[][] getSubBoxPanels() {
-        return subBoxPanels;
+    public BoardCanvas getBoardCanvas() {
+        return boardCanvas;
     }
 
     /**
-     * Get list with sub-box labels.
+     * Get progress status bar.
      *
-     * @return 2D field, holds Labels, each representing a cell.
+     * @return Panel showing the progress of a running solve.
      */
-    public List<JLabel[][]> getSubBoxLabels() {
-        return subBoxLabels;
+    public SolverProgressPanel getProgressPanel() {
+        return progressPanel;
+    }
+
+    /**
+     * Set the selection of the candidates menu-item, without notifying its
+     * listeners.
+     *
+     * @param selected True, if the candidates are shown.
+     */
+    public void setCandidatesSelected(boolean selected) {
+        viewCandidates.setSelected(selected);
     }
 
     /**
@@ -139,6 +154,15 @@ public class SudokuView extends JPanel implements SudokuObserver {
         editUndo.addActionListener(listenerForUndoButton);
     }
 
+    /**
+     * Add listener to redo menu-item.
+     *
+     * @param listenerForRedoButton Redo the last undone operation.
+     */
+    public void addRedoListener(ActionListener listenerForRedoButton) {
+        editRedo.addActionListener(listenerForRedoButton);
+    }
+
     /**
      * Add listener to suggest-value menu-item.
      *
@@ -174,30 +198,37 @@ public class SudokuView extends JPanel implements SudokuObserver {
      * @param listenerForRemoveButton Change label text to set value.
      */
     public void addRemoveListener(ActionListener listenerForRemoveButton) {
-        int lastMItemInd = subBoxLabels.size();
+        int lastMItemInd = popupMenuItems.length - 1;
         popupMenuItems[lastMItemInd].addActionListener(listenerForRemoveButton);
     }
 
     /**
-     * Add mouse-listener to labels representing cells.
+     * Add listener to candidates menu-item.
+     *
+     * @param listenerForCandidatesButton Show or hide the candidates.
+     */
+    public void addCandidatesListener(
+            ActionListener listenerForCandidatesButton) {
+        viewCandidates.addActionListener(listenerForCandidatesButton);
+    }
+
+    /**
+     * Add listener to cancel button of the progress status bar.
+     *
+     * @param listenerForCancelButton Cancel the running solve.
+     */
+    public void addCancelListener(ActionListener listenerForCancelButton) {
+        progressPanel.addCancelListener(listenerForCancelButton);
+    }
+
+    /**
+     * Add mouse-listener to the board, see {@link BoardCanvas#cellAt} to map
+     * the events to cells.
      *
      * @param listenForCellLable React to mouse input.
      */
     public void addLableListener(MouseListener listenForCellLable) {
-        int boxMajor = 0;
-
-        for (JPanel[] subBoxPanel : subBoxPanels) {
-            for (int j = 0; j < subBoxPanel.length; j++) {
-                JLabel[][] currentL2D = subBoxLabels.get(boxMajor);
-
-                for (JLabel[] jLabels : currentL2D) {
-                    for (JLabel jLabel : jLabels) {
-                        jLabel.addMouseListener(listenForCellLable);
-                    }
-                }
-                boxMajor++;
-            }
-        }
+        boardCanvas.addMouseListener(listenForCellLable);
     }
 
     /**
@@ -208,6 +239,7 @@ public class SudokuView extends JPanel implements SudokuObserver {
         JMenu fileMenu = new JMenu("File");
         JMenu editMenu = new JMenu("Edit");
         JMenu solveMenu = new JMenu("Solve");
+        JMenu viewMenu = new JMenu("View");
         // Initialize sub-menus and items.
         fileOpen = new JMenuItem("Open");
         KeyStroke keyStrokeToOpen = KeyStroke.getKeyStroke(KeyEvent.VK_O,
@@ -224,6 +256,11 @@ public class SudokuView extends JPanel implements SudokuObserver {
                 KeyEvent.CTRL_DOWN_MASK);
         editUndo.setAccelerator(keyStrokeToUndo);
         editUndo.setMnemonic(KeyEvent.VK_Z);
+        editRedo = new JMenuItem("Redo");
+        KeyStroke keyStrokeToRedo = KeyStroke.getKeyStroke(KeyEvent.VK_Y,
+                KeyEvent.CTRL_DOWN_MASK);
+        editRedo.setAccelerator(keyStrokeToRedo);
+        editRedo.setMnemonic(KeyEvent.VK_Y);
         solveSuggestValue = new JMenuItem("Suggest Value");
         KeyStroke keyStrokeToSuggestedValue =
                 KeyStroke.getKeyStroke(KeyEvent.VK_V,
@@ -236,18 +273,27 @@ public class SudokuView extends JPanel implements SudokuObserver {
                         KeyEvent.CTRL_DOWN_MASK);
         solveSolve.setAccelerator(keyStrokeToSolve);
         solveSolve.setMnemonic(KeyEvent.VK_A);
+        viewCandidates = new JCheckBoxMenuItem("Candidates");
+        KeyStroke keyStrokeToCandidates =
+                KeyStroke.getKeyStroke(KeyEvent.VK_P,
+                        KeyEvent.CTRL_DOWN_MASK);
+        viewCandidates.setAccelerator(keyStrokeToCandidates);
+        viewCandidates.setMnemonic(KeyEvent.VK_P);
         // Add menu-items to menu.
         fileMenu.add(fileOpen);
         fileMenu.addSeparator();
         fileMenu.add(fileExit);
         editMenu.add(editUndo);
+        editMenu.add(editRedo);
         solveMenu.add(solveSuggestValue);
         solveMenu.addSeparator();
         solveMenu.add(solveSolve);
+        viewMenu.add(viewCandidates);
         // Add menus to menu-bar
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
         menuBar.add(solveMenu);
+        menuBar.add(viewMenu);
     }
 
     /**
@@ -259,84 +305,28 @@ public class SudokuView extends JPanel implements SudokuObserver {
         if (gameBoard == null) {
             makeMenu();
         } else {
-            gameBoard.addObserver(this);
-
             if (menuBar == null) {
                 makeMenu();
             }
-            int boxRows = gameBoard.getBoxRows();
-            int boxCols = gameBoard.getBoxColumns();
-            setLayout(new GridLayout(boxCols, boxRows));
-            subBoxLabels = new ArrayList<>(gameBoard.getNumbers());
-            subBoxPanels = new JPanel[boxCols][boxRows];
-            setLabelCells(gameBoard, boxRows, boxCols, subBoxPanels,
-                    subBoxLabels);
+            setLayout(new BorderLayout());
+            boardCanvas = new BoardCanvas(gameBoard);
+            add(boardCanvas, BorderLayout.CENTER);
+            progressPanel = new SolverProgressPanel(boardCanvas);
+            add(progressPanel, BorderLayout.SOUTH);
+            gameBoard.addObserver(new EdtDispatcher(boardCanvas));
 
             if (popupMenu == null) {
-                addPopupMenu();
-            }
-        }
-    }
-
-    /**
-     * Set label settings representing a cell.
-     *
-     * @param gameBoard    The model, simple board.
-     * @param boxRows      Inner box-row length.
-     * @param boxCols      Inner box-col length.
-     * @param subBoxPanels 2DArray of panels, one for each sub-box.
-     * @param subBoxLabels List contains 2DArray of labels for each sub-box.
-     */
-    private void setLabelCells(SudokuModel gameBoard, int boxRows, int boxCols,
-                               JPanel[][] subBoxPanels,
-                               List<JLabel[][]> subBoxLabels) {
-        int boxMajor = 0;
-        for (int i = 0; i < subBoxPanels.length; i++) {
-            for (int j = 0; j < subBoxPanels[i].length; j++) {
-                subBoxPanels[i][j] = new JPanel();
-                add(subBoxPanels[i][j]);
-                subBoxPanels[i][j].setLayout(new GridLayout(boxRows, boxCols));
-                int boxMinor = 0;
-                subBoxLabels.add(new JLabel[boxRows][boxCols]);
-                JLabel[][] currentL2D = subBoxLabels.get(boxMajor);
-
-                for (int k = 0; k < currentL2D.length; k++) {
-                    for (int l = 0; l < currentL2D[k].length; l++) {
-                        int row = (boxMajor / boxRows) * boxRows
-                                + (boxMinor / boxCols);
-                        int col = (boxMajor % boxRows) * boxCols
-                                + (boxMinor % boxCols);
-                        currentL2D[k][l] =
-                                new JLabel(String.valueOf(gameBoard.getCell(row,
-                                        col)), JLabel.CENTER);
-                        setDefaultCellLabelSettings(currentL2D[k][l]);
-
-                        if (gameBoard.getPresetCellValue(row, col)) {
-                            currentL2D[k][l].setForeground(Color.RED);
-                        }
-
-                        if (currentL2D[k][l].getText().equals("-1")) {
-                            currentL2D[k][l].setText("");
-                            currentL2D[k][l].setForeground(Color.BLACK);
-                        }
-                        subBoxPanels[i][j].add(currentL2D[k][l]);
-                        currentL2D[k][l].setBorder(
-                                BorderFactory.createLineBorder(Color.BLACK));
-                        boxMinor++;
-                    }
-                }
-                subBoxPanels[i][j].setBorder(BorderFactory.createLineBorder(
-                        Color.BLACK));
-                boxMajor++;
+                addPopupMenu(gameBoard.getNumbers());
             }
         }
     }
 
     /**
      * Add popup-menu.
+     *
+     * @param boardSize Board length for row-/col-/box elements.
      */
-    private void addPopupMenu() {
-        final int boardSize = subBoxLabels.size();
+    private void addPopupMenu(int boardSize) {
         popupMenu = new JPopupMenu();
         popupMenuItems = new JMenuItem[boardSize + 1];
 
@@ -349,50 +339,4 @@ public class SudokuView extends JPanel implements SudokuObserver {
         popupMenu.add(popupMenuItems[boardSize]);
         setComponentPopupMenu(popupMenu);
     }
-
-    /**
-     * Set default settings for label.
-     *
-     * @param label Label to set some default settings for.
-     */
-    private void setDefaultCellLabelSettings(JLabel label) {
-        label.setPreferredSize(new Dimension(50, 50));
-        label.setOpaque(true);
-        label.setFont(new Font("Serif", Font.PLAIN, 21));
-        label.setBackground(Color.WHITE);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void update(SudokuModel gameBoard) {
-        int boxRows = gameBoard.getBoxRows();
-        int boxCols = gameBoard.getBoxColumns();
-        int boxMajor = 0;
-
-        for (JPanel[] subBoxPanel : subBoxPanels) {
-            for (int j = 0; j < subBoxPanel.length; j++) {
-                int boxMinor = 0;
-                JLabel[][] currentL2D = subBoxLabels.get(boxMajor);
-
-                for (JLabel[] jLabels : currentL2D) {
-                    for (JLabel jLabel : jLabels) {
-                        int row = (boxMajor / boxRows) * boxRows
-                                + (boxMinor / boxCols);
-                        int col = (boxMajor % boxRows) * boxCols
-                                + (boxMinor % boxCols);
-                        jLabel.setText(String.valueOf(
-                                gameBoard.getCell(row, col)));
-
-                        if (jLabel.getText().equals("-1")) {
-                            jLabel.setText("");
-                        }
-                        boxMinor++;
-                    }
-                }
-                boxMajor++;
-            }
-        }
-    }
-}
\ No newline at end of file
+}